@@ -25,6 +25,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/ping-server").permitAll() // Allow ping-server endpoint for testing
                 .requestMatchers("/login").permitAll()
                 .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
+                .requestMatchers("/actuator/health/**").permitAll() // Liveness/readiness probes run without a session
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
@@ -1,6 +1,9 @@
 package com.example.dashboard.controller;
 
 import com.example.dashboard.service.ActivatorService;
+import com.example.dashboard.service.LeaderElection;
+import com.example.dashboard.service.RestartGuard;
+import com.example.dashboard.service.RestartJournal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +19,15 @@ public class ActivatorController {
     @Autowired
     private ActivatorService activatorService;
 
+    @Autowired
+    private RestartJournal restartJournal;
+
+    @Autowired
+    private RestartGuard restartGuard;
+
+    @Autowired
+    private LeaderElection leaderElection;
+
     @PostMapping("/trigger-manual")
     public ResponseEntity<Map<String, String>> triggerManualRestart() {
         String result = activatorService.triggerManualRestart();
@@ -25,13 +37,11 @@ public class ActivatorController {
         return ResponseEntity.ok(response);
     }
 
+    // Restart journal, newest first; pass the returned nextCursor to get the next page
     @GetMapping("/logs")
-    public ResponseEntity<Map<String, Object>> getRestartLogs() {
-        List<String> logs = activatorService.getRestartLogs();
-        Map<String, Object> response = new HashMap<>();
-        response.put("logs", logs);
-        response.put("count", logs.size());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> getRestartLogs(@RequestParam(required = false) Long cursor,
+                                                              @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(restartJournal.page(cursor, limit));
     }
 
     @GetMapping("/down-services")
@@ -55,18 +65,30 @@ public class ActivatorController {
     public ResponseEntity<Map<String, Object>> getActivatorStatus() {
         List<String> downServices = activatorService.getCurrentDownServices();
         String nextSchedule = activatorService.getNextScheduledRestart();
-        List<String> logs = activatorService.getRestartLogs();
         
         Map<String, Object> response = new HashMap<>();
         response.put("downServicesCount", downServices.size());
         response.put("downServices", downServices);
         response.put("nextScheduledRestart", nextSchedule);
-        response.put("recentLogs", logs.subList(Math.max(0, logs.size() - 5), logs.size())); // Last 5 logs
-        response.put("totalLogs", logs.size());
+        response.put("recentLogs", restartJournal.page(null, 5).get("entries")); // Last 5 journal entries
+        response.put("totalLogs", restartJournal.getTotal());
+        response.put("lastRun", activatorService.getLastRestartRecord());
+        response.put("restartGuard", restartGuard.getStats());
+        response.put("leader", leaderElection.getStatus());
         
         return ResponseEntity.ok(response);
     }
     
+    // Closes the circuit breaker of one service key (or "group:<name>"), or all without a key
+    @DeleteMapping("/circuits")
+    public ResponseEntity<Map<String, Object>> resetCircuits(@RequestParam(required = false) String key) {
+        int closed = restartGuard.reset(key);
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Closed " + closed + " circuit(s)");
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/refresh-status")
     public ResponseEntity<Map<String, String>> refreshStatus() {
         try {
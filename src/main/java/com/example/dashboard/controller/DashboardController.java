@@ -1,18 +1,21 @@
 package com.example.dashboard.controller;
 
-import com.example.dashboard.model.Application;
 import com.example.dashboard.model.CommandRequest;
 import com.example.dashboard.service.AnsibleExecutionService;
+import com.example.dashboard.service.TopologyViewCache;
 import com.example.dashboard.service.YamlParserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Controller
 public class DashboardController {
@@ -23,13 +26,36 @@ public class DashboardController {
     @Autowired
     private AnsibleExecutionService ansibleExecutionService;
 
+    @Autowired
+    private TopologyViewCache topologyViewCache;
+
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
-        List<Application> applications = yamlParserService.parseYaml();
-        model.addAttribute("applications", applications);
+        YamlParserService.Topology topology = yamlParserService.getTopology();
+        model.addAttribute("applications", topology.getApplications());
+        model.addAttribute("topologyVersion", topology.getVersion());
+        // Only the first tab is inlined; the others are fetched when opened
+        model.addAttribute("firstApplicationFragment", topologyViewCache.getApplicationFragment(topology, 0));
         return "dashboard";
     }
 
+    // version is the topology version the page was built from; tabs of an older page are refused
+    @GetMapping(value = "/dashboard/fragments/app/{index}", produces = MediaType.TEXT_HTML_VALUE)
+    @ResponseBody
+    public ResponseEntity<String> applicationFragment(@PathVariable int index,
+                                                      @RequestParam(required = false) String version) {
+        YamlParserService.Topology topology = yamlParserService.getTopology();
+        if (!Objects.equals(topology.getVersion(), version)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Topology was reloaded (now version " + topology.getVersion() + "), reload the page");
+        }
+        String fragment = topologyViewCache.getApplicationFragment(topology, index);
+        if (fragment == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(fragment);
+    }
+
     @GetMapping("/login")
     public String showLoginPage() {
         return "login";
@@ -0,0 +1,148 @@
+package com.example.dashboard.controller;
+
+import com.example.dashboard.service.AnsibleExecutionService;
+import com.example.dashboard.service.CyberArkService;
+import com.example.dashboard.service.ExecutionRuntime;
+import com.example.dashboard.service.ProbeSharding;
+import com.example.dashboard.service.RemoteExecutionGate;
+import com.example.dashboard.service.RunningCommandRegistry;
+import com.example.dashboard.service.ServiceStatusMonitor;
+import com.example.dashboard.service.SimulatedFleetExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/execution")
+public class ExecutionController {
+
+    @Autowired
+    private RemoteExecutionGate remoteExecutionGate;
+
+    @Autowired
+    private RunningCommandRegistry runningCommandRegistry;
+
+    @Autowired
+    private AnsibleExecutionService ansibleExecutionService;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    @Autowired
+    private SimulatedFleetExecutor simulatedFleetExecutor;
+
+    @Autowired
+    private CyberArkService cyberArkService;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private ProbeSharding probeSharding;
+
+    @GetMapping("/gate")
+    public ResponseEntity<Map<String, Object>> getGateStats() {
+        return ResponseEntity.ok(remoteExecutionGate.getStats());
+    }
+
+    // Remote commands waiting for a slot or running, oldest first
+    @GetMapping("/commands")
+    public ResponseEntity<Map<String, Object>> getRunningCommands() {
+        List<Map<String, Object>> commands = runningCommandRegistry.list();
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", commands.size());
+        response.put("commands", commands);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/commands/{id}")
+    public ResponseEntity<Map<String, Object>> cancelCommand(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        if (!runningCommandRegistry.cancel(id)) {
+            response.put("status", "error");
+            response.put("message", "No running command with id " + id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("status", "success");
+        response.put("message", "Command " + id + " cancelled");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/credentials")
+    public ResponseEntity<Map<String, Object>> getCredentialCacheStats() {
+        return ResponseEntity.ok(cyberArkService.getStats());
+    }
+
+    // Forces every host to fetch its credentials again, e.g. after a password rotation
+    @DeleteMapping("/credentials")
+    public ResponseEntity<Map<String, Object>> clearCredentialCache() {
+        cyberArkService.invalidateAll();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Credential cache cleared");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/backend")
+    public ResponseEntity<Map<String, Object>> getBackend() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("backend", ansibleExecutionService.getBackend());
+        if (SimulatedFleetExecutor.NAME.equals(ansibleExecutionService.getBackend())) {
+            response.put("simulation", simulatedFleetExecutor.getStats());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Runs a full status sweep and returns its duration and throughput once it has finished
+    @PostMapping("/sweep")
+    public ResponseEntity<Map<String, Object>> runSweep() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("status", "success");
+            response.put("sweep", serviceStatusMonitor.runStatusSweep().get());
+            return ResponseEntity.ok(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.put("status", "error");
+            response.put("message", "Interrupted while waiting for the sweep");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        } catch (Exception e) {
+            response.put("status", "error");
+            response.put("message", "Status sweep failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // Threads, active and queued tasks and queue wait per worker lane
+    @GetMapping("/runtime")
+    public ResponseEntity<Map<String, Object>> getRuntimeStats() {
+        return ResponseEntity.ok(executionRuntime.getStats());
+    }
+
+    // Instances sharing the status probes and this instance's view of them
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShards() {
+        return ResponseEntity.ok(probeSharding.getStatus());
+    }
+
+    @GetMapping("/sweeps/last")
+    public ResponseEntity<Map<String, Object>> getLastSweep() {
+        return ResponseEntity.ok(serviceStatusMonitor.getLastSweep());
+    }
+
+    // Forgets simulated service state and counters, e.g. between load test runs
+    @PostMapping("/simulation/reset")
+    public ResponseEntity<Map<String, Object>> resetSimulation() {
+        simulatedFleetExecutor.reset();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Simulated fleet state reset");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.dashboard.controller;
+
+import com.example.dashboard.service.OperationOutputHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/operations")
+public class OperationController {
+
+    @Autowired
+    private OperationOutputHub operationOutputHub;
+
+    // Opens an output stream for an operation the user is about to start; pass the id with the operation
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> openOperation(Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("operationId", operationOutputHub.open(principal.getName()));
+        return ResponseEntity.ok(response);
+    }
+
+    // Server-sent "line" events while the operation runs, then one "done" event
+    @GetMapping(value = "/{operationId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOutput(@PathVariable String operationId, Principal principal,
+                                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = operationOutputHub.subscribe(operationId, principal.getName(), lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(operationOutputHub.getStats());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.dashboard.controller;
+
+import com.example.dashboard.model.RollingRestartRequest;
+import com.example.dashboard.service.RollingRestartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rolling-restarts")
+public class RollingRestartController {
+
+    @Autowired
+    private RollingRestartService rollingRestartService;
+
+    // Starts a rolling restart; follow it with GET /{id} or /api/operations/{id}/stream
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startRollingRestart(@RequestBody RollingRestartRequest request,
+                                                                   Principal principal) {
+        try {
+            Map<String, Object> rollout = rollingRestartService.start(request, principal.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(rollout);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listRollingRestarts() {
+        List<Map<String, Object>> rollouts = rollingRestartService.list();
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", rollouts.size());
+        response.put("rollouts", rollouts);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getRollingRestart(@PathVariable String id) {
+        Map<String, Object> rollout = rollingRestartService.get(id);
+        if (rollout == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rollout);
+    }
+
+    @PostMapping("/{id}/abort")
+    public ResponseEntity<Map<String, Object>> abortRollingRestart(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        if (!rollingRestartService.abort(id)) {
+            response.put("status", "error");
+            response.put("message", "No running rolling restart with this id");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("status", "success");
+        response.put("message", "Rolling restart will stop before its next wave");
+        return ResponseEntity.ok(response);
+    }
+}
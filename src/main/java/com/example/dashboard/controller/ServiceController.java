@@ -1,15 +1,30 @@
 package com.example.dashboard.controller;
 
 import com.example.dashboard.service.AnsibleExecutionService;
+import com.example.dashboard.service.BulkOperationService;
+import com.example.dashboard.service.OperationOutputHub;
+import com.example.dashboard.service.RestartJournal;
 import com.example.dashboard.service.ServiceStatusMonitor;
+import com.example.dashboard.service.TopologyIndex;
+import com.example.dashboard.model.BulkOperationRequest;
 import com.example.dashboard.model.CommandRequest;
+import com.example.dashboard.model.ExecutionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.Principal;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -21,10 +36,22 @@ public class ServiceController {
     @Autowired
     private ServiceStatusMonitor serviceStatusMonitor;
 
+    @Autowired
+    private OperationOutputHub operationOutputHub;
+
+    @Autowired
+    private BulkOperationService bulkOperationService;
+
+    @Autowired
+    private RestartJournal restartJournal;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @PostMapping("/service-operation")
-    public ResponseEntity<Map<String, String>> serviceOperation(
+    public ResponseEntity<Map<String, Object>> serviceOperation(
             @RequestBody ServiceOperationRequest request,
-            HttpServletRequest httpRequest) {
+            HttpServletRequest httpRequest,
+            Principal principal) {
 
         // Log the request details
         System.out.println("Service operation request received for: " + request.getAppName());
@@ -63,18 +90,50 @@ public class ServiceController {
         if (command == null || command.isEmpty()) {
             command = "echo No command provided";
         }
-        String result = ansibleExecutionService.executeCommand(
-                request.getAppName(),
-                request.getServerIp(),
-                command,
-                request.getServerOs()
-        );
+        // Output is streamed to /api/operations/{operationId}/stream when the client opened one
+        long startedAt = System.currentTimeMillis();
+        String operationId = request.getOperationId();
+        ExecutionResult result = null;
+        if (operationId != null && !operationId.isEmpty()) {
+            if (principal == null || !operationOutputHub.isOwner(operationId, principal.getName())) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("status", "error");
+                response.put("message", "Unknown operation id " + operationId);
+                return ResponseEntity.badRequest().body(response);
+            }
+            try {
+                result = ansibleExecutionService.executeCommand(
+                        request.getAppName(),
+                        request.getServerIp(),
+                        command,
+                        request.getServerOs(),
+                        request.getServiceType(),
+                        line -> operationOutputHub.publish(operationId, line)
+                );
+            } finally {
+                operationOutputHub.complete(operationId, result != null && result.isSuccess() ? "success" : "error");
+            }
+        } else {
+            result = ansibleExecutionService.executeCommand(
+                    request.getAppName(),
+                    request.getServerIp(),
+                    command,
+                    request.getServerOs(),
+                    request.getServiceType()
+            );
+        }
 
         // Log the result
         System.out.println("Service operation result: " + result);
+        // Journaled like the starts and stops of bulk operations; the request does not name the environment
+        String action = op.toLowerCase(Locale.ROOT);
+        if (Set.of("start", "stop", "restart").contains(action)) {
+            restartJournal.record("manual", TopologyIndex.makeKey(request.getAppName(), "*", request.getServerName(),
+                    request.getServiceName()), action, startedAt, result);
+        }
 
         // If operation was successful, immediately update the service status
-        if (result != null && result.contains("SUCCESS")) {
+        if (result.isSuccess()) {
             System.out.println("Operation successful, updating service status immediately...");
             // Extract environment name from the application name or use a default
             String envName = "Production"; // You might want to extract this from the request or config
@@ -87,14 +146,47 @@ public class ServiceController {
         }
 
         // Return response
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("message", request.getOperation() + " command executed");
-        response.put("details", result);
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", result.isSuccess() ? "success" : "error");
+        response.put("message", request.getOperation() + (result.isSuccess() ? " command executed" : " command failed: " + result.getMessage()));
+        response.put("details", result.getSummary());
+        response.put("result", result.toMap());
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Runs one operation on many services in parallel (see BulkOperationRequest). The
+     * response is application/x-ndjson: a "plan" line, one "item" line per service as it
+     * finishes, then a "summary" line.
+     */
+    @PostMapping("/service-operation/bulk")
+    public ResponseEntity<?> bulkServiceOperation(@RequestBody BulkOperationRequest request) {
+        BulkOperationService.Run run;
+        try {
+            run = bulkOperationService.prepare(request);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        // The run ends itself at its timeout; the margin leaves room to send the summary
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(TimeUnit.SECONDS.toMillis(run.getTimeoutSeconds() + 30));
+        bulkOperationService.execute(run, line -> {
+            try {
+                emitter.send(objectMapper.writeValueAsString(line) + "\n", MediaType.APPLICATION_NDJSON);
+                if ("summary".equals(line.get("type"))) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
     @PostMapping("/ping-server")
     public ResponseEntity<?> pingServer(@RequestBody CommandRequest request) {
         String result = ansibleExecutionService.pingServer(request);
@@ -103,7 +195,7 @@ public class ServiceController {
 
     @PostMapping("/test-status")
     public ResponseEntity<Map<String, String>> testStatus() {
-        String result = ansibleExecutionService.checkServiceStatus(
+        ExecutionResult result = ansibleExecutionService.checkServiceStatus(
             "GCP Mumbai Production Environment",
             "34.47.226.211",
             "systemctl status tomcat",
@@ -113,7 +205,7 @@ public class ServiceController {
         Map<String, String> response = new HashMap<>();
         response.put("status", "success");
         response.put("message", "Test status command executed");
-        response.put("details", result);
+        response.put("details", result.getSummary());
 
         return ResponseEntity.ok(response);
     }
@@ -133,6 +225,7 @@ public class ServiceController {
         private String statusScript;
         private String stopCmd;
         private String stopScript;
+        private String operationId; // optional, enables live output streaming
 
         // Getters and setters
         public String getAppName() { return appName; }
@@ -173,5 +266,8 @@ public class ServiceController {
 
         public String getStopScript() { return stopScript; }
         public void setStopScript(String stopScript) { this.stopScript = stopScript; }
+
+        public String getOperationId() { return operationId; }
+        public void setOperationId(String operationId) { this.operationId = operationId; }
     }
 } 
\ No newline at end of file
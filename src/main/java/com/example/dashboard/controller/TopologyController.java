@@ -0,0 +1,107 @@
+package com.example.dashboard.controller;
+
+import com.example.dashboard.model.Application;
+import com.example.dashboard.model.TopologyEntry;
+import com.example.dashboard.model.TopologySelector;
+import com.example.dashboard.service.ServiceStatusMonitor;
+import com.example.dashboard.service.TopologyIndex;
+import com.example.dashboard.service.TopologyViewCache;
+import com.example.dashboard.service.YamlParserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/topology")
+public class TopologyController {
+
+    @Autowired
+    private YamlParserService yamlParserService;
+
+    @Autowired
+    private TopologyViewCache topologyViewCache;
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTopology(
+            @RequestParam(required = false) String app,
+            @RequestParam(required = false) String env,
+            @RequestParam(required = false) String os,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String group,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+
+        TopologySelector selector = new TopologySelector();
+        selector.setApp(app);
+        selector.setEnv(env);
+        selector.setOs(os);
+        selector.setType(type);
+        selector.setGroup(group);
+        selector.setStatus(status);
+
+        Map<String, String> statuses = serviceStatusMonitor.getAllStatuses();
+        // The page and its version come from the same topology, even if it is reloaded meanwhile
+        TopologyIndex.Selection selection = topologyIndex.selectWithVersion(selector, statuses);
+        List<TopologyEntry> matches = selection.getEntries();
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // In long, so a large page number cannot overflow into a negative offset
+        int from = (int) Math.min((long) Math.max(page, 0) * pageSize, matches.size());
+        int to = Math.min(from + pageSize, matches.size());
+
+        List<Map<String, Object>> items = new ArrayList<>(to - from);
+        for (TopologyEntry entry : matches.subList(from, to)) {
+            items.add(toItem(entry, statuses.get(entry.getKey())));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("version", selection.getVersion());
+        response.put("page", Math.max(page, 0));
+        response.put("size", pageSize);
+        response.put("total", matches.size());
+        response.put("items", items);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadTopology() {
+        List<Application> applications = yamlParserService.reloadTopology();
+        topologyViewCache.invalidate();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("version", yamlParserService.getTopologyVersion());
+        response.put("applications", applications.size());
+        response.put("errors", yamlParserService.getYamlErrors());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> toItem(TopologyEntry entry, String status) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("key", entry.getKey());
+        item.put("app", entry.getAppName());
+        item.put("env", entry.getEnvName());
+        item.put("server", entry.getServerName());
+        item.put("ip", entry.getIp());
+        item.put("os", entry.getOs());
+        item.put("service", entry.getServiceName());
+        item.put("type", entry.getService().getType());
+        item.put("group", entry.getService().getGroup());
+        item.put("status", status != null ? status : "unknown");
+        return item;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.dashboard.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One operation (status, start, stop or restart) on many services: the services given as
+ * app|env|server|service keys or, without keys, the services matching app/env/os/type/group/
+ * status (see TopologySelector). timeoutSeconds bounds the whole run; perHostLimit lowers
+ * how many of the services run at once on one server.
+ */
+@Data
+@NoArgsConstructor
+public class BulkOperationRequest {
+    private String operation;
+    private List<String> keys;
+
+    private String app;
+    private String env;
+    private String os;
+    private String type;
+    private String group;
+    private String status;
+
+    private Integer timeoutSeconds;
+    private Integer perHostLimit;
+
+    public TopologySelector toSelector() {
+        TopologySelector selector = new TopologySelector();
+        selector.setApp(app);
+        selector.setEnv(env);
+        selector.setOs(os);
+        selector.setType(type);
+        selector.setGroup(group);
+        selector.setStatus(status);
+        return selector;
+    }
+
+    // Whether any selector field is set; an empty selector would match the whole fleet
+    public boolean hasSelector() {
+        return notEmpty(app) || notEmpty(env) || notEmpty(os) || notEmpty(type) || notEmpty(group) || notEmpty(status);
+    }
+
+    private static boolean notEmpty(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A running dashboard instance taking part in probe sharding. Each instance refreshes
+ * HEARTBEAT_AT of its own row; rows that stop being refreshed drop out of the hash ring.
+ */
+@Entity
+@Table(name = "DASHBOARD_NODES")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardNode {
+
+    @Id
+    @Column(name = "NODE_ID", length = 200)
+    private String nodeId;
+
+    @Column(name = "STARTED_AT", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "HEARTBEAT_AT", nullable = false)
+    private Instant heartbeatAt;
+}
@@ -0,0 +1,131 @@
+package com.example.dashboard.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of one remote command: what ran where, how it ended and how long it took.
+ * Callers decide on failureCategory and exitCode; the output is only kept for display
+ * and for status commands whose text has to be interpreted.
+ */
+public class ExecutionResult {
+
+    public enum FailureCategory {
+        NONE,
+        CREDENTIALS,     // no username/password for the host, or the host rejected them
+        UNREACHABLE,     // connection check failed or ansible reported the host unreachable
+        COMMAND_FAILED,  // the command ran and exited non-zero
+        TIMEOUT,         // deadline passed while waiting for a slot or running
+        CANCELLED,       // cancelled through the API or by interrupting the caller
+        INTERNAL_ERROR   // ansible could not be started or failed on our side
+    }
+
+    // Exit code used when ansible did not run to completion
+    public static final int NO_EXIT_CODE = -1;
+
+    private final String host;
+    private final String os;
+    private final String transport;
+    private final String command;
+    private final int exitCode;
+    private final String stdout;
+    private final String stderr;
+    private final long durationMs;
+    private final FailureCategory failureCategory;
+    private final String message;
+
+    public ExecutionResult(String host, String os, String transport, String command, int exitCode,
+                           String stdout, String stderr, long durationMs,
+                           FailureCategory failureCategory, String message) {
+        this.host = host;
+        this.os = os;
+        this.transport = transport;
+        this.command = command;
+        this.exitCode = exitCode;
+        this.stdout = stdout != null ? stdout : "";
+        this.stderr = stderr != null ? stderr : "";
+        this.durationMs = durationMs;
+        this.failureCategory = failureCategory;
+        this.message = message;
+    }
+
+    // Getters
+    public String getHost() {
+        return host;
+    }
+
+    public String getOs() {
+        return os;
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public String getStdout() {
+        return stdout;
+    }
+
+    public String getStderr() {
+        return stderr;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public FailureCategory getFailureCategory() {
+        return failureCategory;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return failureCategory == FailureCategory.NONE;
+    }
+
+    /**
+     * Human-readable report for the UI and logs. Built on demand only.
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(isSuccess() ? "SUCCESS: " : "ERROR: ").append(message);
+        if (!stdout.isEmpty()) {
+            summary.append("\nOutput:\n").append(stdout);
+        }
+        if (!stderr.isEmpty()) {
+            summary.append("\nErrors:\n").append(stderr);
+        }
+        return summary.toString();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("success", isSuccess());
+        map.put("failureCategory", failureCategory.name());
+        map.put("message", message);
+        map.put("host", host);
+        map.put("os", os);
+        map.put("transport", transport);
+        map.put("exitCode", exitCode);
+        map.put("durationMs", durationMs);
+        map.put("stdout", stdout);
+        map.put("stderr", stderr);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return failureCategory + " on " + host + " (exit " + exitCode + ", " + durationMs + " ms): " + message;
+    }
+}
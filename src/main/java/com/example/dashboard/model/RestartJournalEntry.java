@@ -0,0 +1,80 @@
+package com.example.dashboard.model;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One entry of the restart journal: a single restart, a group restart or the summary of an
+ * auto-restart run. seq is assigned by the journal and orders the entries; it is also the
+ * cursor used to page through them.
+ */
+public class RestartJournalEntry {
+    private final long seq;
+    private final String activator;
+    private final String key;
+    private final String action;
+    private final long startedAtMs;
+    private final long endedAtMs;
+    private final String outcome;
+    private final String excerpt;
+
+    public RestartJournalEntry(long seq, String activator, String key, String action, long startedAtMs,
+                               long endedAtMs, String outcome, String excerpt) {
+        this.seq = seq;
+        this.activator = activator;
+        this.key = key;
+        this.action = action;
+        this.startedAtMs = startedAtMs;
+        this.endedAtMs = endedAtMs;
+        this.outcome = outcome;
+        this.excerpt = excerpt;
+    }
+
+    // Getters
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getActivator() {
+        return activator;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public long getStartedAtMs() {
+        return startedAtMs;
+    }
+
+    public long getEndedAtMs() {
+        return endedAtMs;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("seq", seq);
+        map.put("activator", activator);
+        map.put("key", key);
+        map.put("action", action);
+        map.put("startedAt", Instant.ofEpochMilli(startedAtMs).toString());
+        map.put("endedAt", Instant.ofEpochMilli(endedAtMs).toString());
+        map.put("durationMs", endedAtMs - startedAtMs);
+        map.put("outcome", outcome);
+        map.put("excerpt", excerpt);
+        return map;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.dashboard.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How the restart of one service (or one service group) ended. Callers decide on status;
+ * the message is for people. toString() gives the "key -> STATUS: message" line shown in
+ * restart records and rollout logs.
+ */
+public class RestartOutcome {
+
+    public enum Status {
+        SUCCESS,    // restarted, and ready when a readiness check was configured
+        PARTIAL,    // the restart command succeeded but the service did not become ready
+        FAILED,     // a stop or start command failed, or a group member is not running
+        SKIPPED,    // not attempted: circuit open or a dependency is not running
+        THROTTLED,  // not attempted: restart rate limit reached
+        TIMEOUT,    // gave up waiting for the restart
+        ERROR       // misconfiguration or an error on our side
+    }
+
+    private final String key;
+    private final Status status;
+    private final String message;
+
+    public RestartOutcome(String key, Status status, String message) {
+        this.key = key;
+        this.status = status;
+        this.message = message != null ? message : "";
+    }
+
+    public static RestartOutcome success(String key, String message) {
+        return new RestartOutcome(key, Status.SUCCESS, message);
+    }
+
+    public static RestartOutcome failed(String key, String message) {
+        return new RestartOutcome(key, Status.FAILED, message);
+    }
+
+    public static RestartOutcome error(String key, String message) {
+        return new RestartOutcome(key, Status.ERROR, message);
+    }
+
+    // Getters
+    public String getKey() {
+        return key;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    // Same outcome for another key, e.g. a member's result reported under its group
+    public RestartOutcome withKey(String otherKey) {
+        return new RestartOutcome(otherKey, status, message);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("key", key);
+        map.put("status", status.name());
+        map.put("message", message);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return key + " -> " + status + ": " + message;
+    }
+}
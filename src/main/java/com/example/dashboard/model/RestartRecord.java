@@ -0,0 +1,93 @@
+package com.example.dashboard.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One auto-restart run: what was found down, what each restart reported and the status of
+ * the restarted services (and their group peers) when they were checked again afterwards.
+ */
+public class RestartRecord {
+    private final String activator;
+    private final String startedAt;
+    private final long durationMs;
+    private final Map<String, Object> statusSweep;
+    private final List<String> downServices;
+    private final List<String> restartResults;
+    private final Map<String, String> verification;
+    private final long verificationMs;
+
+    public RestartRecord(String activator, String startedAt, long durationMs, Map<String, Object> statusSweep,
+                         List<String> downServices, List<String> restartResults,
+                         Map<String, String> verification, long verificationMs) {
+        this.activator = activator;
+        this.startedAt = startedAt;
+        this.durationMs = durationMs;
+        this.statusSweep = statusSweep;
+        this.downServices = new ArrayList<>(downServices);
+        this.restartResults = new ArrayList<>(restartResults);
+        this.verification = new LinkedHashMap<>(verification);
+        this.verificationMs = verificationMs;
+    }
+
+    // Getters
+    public String getActivator() {
+        return activator;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public Map<String, Object> getStatusSweep() {
+        return statusSweep;
+    }
+
+    public List<String> getDownServices() {
+        return downServices;
+    }
+
+    public List<String> getRestartResults() {
+        return restartResults;
+    }
+
+    public Map<String, String> getVerification() {
+        return verification;
+    }
+
+    public long getVerificationMs() {
+        return verificationMs;
+    }
+
+    // Verified services that are still not up
+    public List<String> getStillDown() {
+        List<String> stillDown = new ArrayList<>();
+        for (Map.Entry<String, String> entry : verification.entrySet()) {
+            if (!"up".equals(entry.getValue())) {
+                stillDown.add(entry.getKey());
+            }
+        }
+        return stillDown;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("activator", activator);
+        map.put("startedAt", startedAt);
+        map.put("durationMs", durationMs);
+        map.put("statusSweep", statusSweep);
+        map.put("downServices", downServices.size());
+        map.put("restartAttempts", restartResults.size());
+        map.put("restartResults", restartResults);
+        map.put("verification", verification);
+        map.put("verificationMs", verificationMs);
+        map.put("stillDown", getStillDown());
+        return map;
+    }
+}
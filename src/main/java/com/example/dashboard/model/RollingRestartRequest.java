@@ -0,0 +1,37 @@
+package com.example.dashboard.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A rolling restart over the services matching app/env/os/type/group (see TopologySelector).
+ * Services are restarted batchSize at a time, never leaving more than maxUnavailable of them
+ * down (default batchSize). With healthGate set, every service of a wave must report up
+ * gateSeconds after its restart before the next wave starts; abortOnFailure stops the rollout
+ * at the first wave that does not pass.
+ */
+@Data
+@NoArgsConstructor
+public class RollingRestartRequest {
+    private String app;
+    private String env;
+    private String os;
+    private String type;
+    private String group;
+
+    private int batchSize = 1;
+    private Integer maxUnavailable;
+    private boolean healthGate = true;
+    private int gateSeconds = 0;
+    private boolean abortOnFailure = true;
+
+    public TopologySelector toSelector() {
+        TopologySelector selector = new TopologySelector();
+        selector.setApp(app);
+        selector.setEnv(env);
+        selector.setOs(os);
+        selector.setType(type);
+        selector.setGroup(group);
+        return selector;
+    }
+}
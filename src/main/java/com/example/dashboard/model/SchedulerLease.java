@@ -0,0 +1,40 @@
+package com.example.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Lease that makes one dashboard instance the leader for the scheduled jobs. The holder
+ * renews it before EXPIRES_AT; every change of holder increments FENCING_TOKEN, so work
+ * started under an older token can be recognised as stale.
+ */
+@Entity
+@Table(name = "SCHEDULER_LEASES")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    @Column(name = "LEASE_NAME", length = 100)
+    private String name;
+
+    @Column(name = "OWNER_ID", nullable = false, length = 200)
+    private String ownerId;
+
+    @Column(name = "FENCING_TOKEN", nullable = false)
+    private Long fencingToken;
+
+    @Column(name = "ACQUIRED_AT", nullable = false)
+    private Instant acquiredAt;
+
+    @Column(name = "RENEWED_AT", nullable = false)
+    private Instant renewedAt;
+
+    @Column(name = "EXPIRES_AT", nullable = false)
+    private Instant expiresAt;
+}
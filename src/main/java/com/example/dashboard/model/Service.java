@@ -3,6 +3,7 @@ package com.example.dashboard.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -17,6 +18,15 @@ public class Service {
     // Group field for coordinated restarts (e.g., "elasticsearch" for master-slave services)
     private String group;
 
+    // Names of services in the same group that must be running before this one starts
+    // (e.g., ["ES-M"] for a slave). Without any dependsOn in a group, "-M" services come first.
+    private List<String> dependsOn;
+
+    // Optional readiness check after a start: an HTTP URL answering 2xx once the service is up
+    // (instead of polling statusCmd), and how long to wait for it (default restart.readiness.timeout-seconds)
+    private String healthUrl;
+    private Integer readyTimeoutSeconds;
+
     // At least one of these should be present
     private String cmd;
     private String startupCmd;
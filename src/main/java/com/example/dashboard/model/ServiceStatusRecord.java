@@ -0,0 +1,49 @@
+package com.example.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Last known status of one service (app|env|server|service key) in the fleet-wide view,
+ * written by the instance that checked it. Times are stored as TIMESTAMP WITH TIME ZONE,
+ * the type ServiceStatusWriter binds them as.
+ */
+@Entity
+@Table(name = "SERVICE_STATUSES", indexes = {
+        @Index(name = "IDX_SERVICE_STATUSES_UPDATED", columnList = "UPDATED_AT"),
+        @Index(name = "IDX_SERVICE_STATUSES_CHECKED", columnList = "CHECKED_AT")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceStatusRecord {
+
+    @Id
+    @Column(name = "SERVICE_KEY", length = 500)
+    private String serviceKey;
+
+    @Column(name = "STATUS", nullable = false, length = 20)
+    private String status;
+
+    @JdbcTypeCode(SqlTypes.TIMESTAMP_UTC)
+    @Column(name = "CHECKED_AT", nullable = false)
+    private Instant checkedAt;
+
+    @Column(name = "CHECKED_BY", nullable = false, length = 200)
+    private String checkedBy;
+
+    // When the row was last written, set by the writer; other instances read rows changed since their last read
+    @JdbcTypeCode(SqlTypes.TIMESTAMP_UTC)
+    @Column(name = "UPDATED_AT")
+    private Instant updatedAt;
+
+    public ServiceStatusRecord(String serviceKey, String status, Instant checkedAt, String checkedBy) {
+        this(serviceKey, status, checkedAt, checkedBy, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.dashboard.model;
+
+/**
+ * Flattened view of one service in the topology together with the application,
+ * environment and server it belongs to.
+ */
+public class TopologyEntry {
+    private final String appName;
+    private final String envName;
+    private final Server server;
+    private final Service service;
+    private final String key;
+
+    public TopologyEntry(String appName, String envName, Server server, Service service, String key) {
+        this.appName = appName;
+        this.envName = envName;
+        this.server = server;
+        this.service = service;
+        this.key = key;
+    }
+
+    // Getters
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getEnvName() {
+        return envName;
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getServerName() {
+        return server.getName();
+    }
+
+    public String getServiceName() {
+        return service.getName();
+    }
+
+    public String getIp() {
+        return server.getIp();
+    }
+
+    public String getOs() {
+        return server.getOs();
+    }
+
+    @Override
+    public String toString() {
+        return "TopologyEntry{" + key + "}";
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.dashboard.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filter over the flattened topology. Every field is optional and matched
+ * case-insensitively; a null field matches everything.
+ */
+@Data
+@NoArgsConstructor
+public class TopologySelector {
+    private String app;
+    private String env;
+    private String os;
+    private String type;
+    private String group;
+    private String status;
+
+    public boolean matches(TopologyEntry entry, String currentStatus) {
+        return matches(app, entry.getAppName())
+                && matches(env, entry.getEnvName())
+                && matches(os, entry.getOs())
+                && matches(type, entry.getService().getType())
+                && matches(group, entry.getService().getGroup())
+                && matches(status, currentStatus != null ? currentStatus : "unknown");
+    }
+
+    private static boolean matches(String expected, String actual) {
+        if (expected == null || expected.isEmpty()) {
+            return true;
+        }
+        return expected.equalsIgnoreCase(actual);
+    }
+}
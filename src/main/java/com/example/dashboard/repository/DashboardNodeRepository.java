@@ -0,0 +1,31 @@
+package com.example.dashboard.repository;
+
+import com.example.dashboard.model.DashboardNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface DashboardNodeRepository extends JpaRepository<DashboardNode, String> {
+
+    // Nodes that have sent a heartbeat since the given time
+    List<DashboardNode> findByHeartbeatAtAfter(Instant since);
+
+    // Returns 0 when the node has no row yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE DashboardNode n SET n.heartbeatAt = :now WHERE n.nodeId = :nodeId")
+    int touch(@Param("nodeId") String nodeId, @Param("now") Instant now);
+
+    // Removes the rows of nodes that went away without deregistering
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DashboardNode n WHERE n.heartbeatAt < :before")
+    int deleteStale(@Param("before") Instant before);
+}
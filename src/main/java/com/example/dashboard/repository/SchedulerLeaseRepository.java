@@ -0,0 +1,44 @@
+package com.example.dashboard.repository;
+
+import com.example.dashboard.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Lease updates are single conditional UPDATE statements, so two instances racing for the
+ * same lease cannot both succeed: each returns the number of rows changed (0 or 1).
+ */
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Takes over an expired lease with the next fencing token
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.ownerId = :owner, l.fencingToken = l.fencingToken + 1, "
+            + "l.acquiredAt = :now, l.renewedAt = :now, l.expiresAt = :expiresAt "
+            + "WHERE l.name = :name AND l.expiresAt < :now")
+    int takeOver(@Param("name") String name, @Param("owner") String owner,
+                 @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    // Extends the lease, as long as it is still held under the given token
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.renewedAt = :now, l.expiresAt = :expiresAt "
+            + "WHERE l.name = :name AND l.ownerId = :owner AND l.fencingToken = :token")
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("token") Long token,
+              @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    // Lets the lease expire right away so another instance can take over without waiting
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :now "
+            + "WHERE l.name = :name AND l.ownerId = :owner AND l.fencingToken = :token")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("token") Long token,
+                @Param("now") Instant now);
+}
@@ -0,0 +1,25 @@
+package com.example.dashboard.repository;
+
+import com.example.dashboard.model.ServiceStatusRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ServiceStatusRepository extends JpaRepository<ServiceStatusRecord, String>, ServiceStatusWriter {
+
+    // Rows written by other instances since the given time
+    List<ServiceStatusRecord> findByUpdatedAtAfterAndCheckedByNot(Instant since, String nodeId);
+
+    // Removes the rows of services nobody has checked since the given time, e.g. removed from the topology
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ServiceStatusRecord r WHERE r.checkedAt < :before")
+    int deleteCheckedBefore(@Param("before") Instant before);
+}
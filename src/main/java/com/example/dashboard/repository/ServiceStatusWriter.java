@@ -0,0 +1,13 @@
+package com.example.dashboard.repository;
+
+import com.example.dashboard.model.ServiceStatusRecord;
+
+import java.time.Instant;
+import java.util.List;
+
+// Bulk writes for SERVICE_STATUSES, which saveAll would do as a select and an upsert per record
+public interface ServiceStatusWriter {
+
+    // Inserts or updates the records in JDBC batches, stamping UPDATED_AT with the given time
+    void upsertAll(List<ServiceStatusRecord> records, Instant updatedAt);
+}
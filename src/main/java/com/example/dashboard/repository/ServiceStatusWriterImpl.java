@@ -0,0 +1,48 @@
+package com.example.dashboard.repository;
+
+import com.example.dashboard.model.ServiceStatusRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+// Picked up by Spring Data as the implementation of the ServiceStatusWriter fragment
+public class ServiceStatusWriterImpl implements ServiceStatusWriter {
+
+    // One statement per record, sent batch-size at a time; the casts type the parameters for Oracle and H2 alike
+    private static final String UPSERT =
+            "MERGE INTO SERVICE_STATUSES t"
+            + " USING (SELECT CAST(? AS VARCHAR(500)) AS SERVICE_KEY, CAST(? AS VARCHAR(20)) AS STATUS,"
+            + " CAST(? AS TIMESTAMP WITH TIME ZONE) AS CHECKED_AT, CAST(? AS VARCHAR(200)) AS CHECKED_BY,"
+            + " CAST(? AS TIMESTAMP WITH TIME ZONE) AS UPDATED_AT FROM DUAL) s"
+            + " ON (t.SERVICE_KEY = s.SERVICE_KEY)"
+            + " WHEN MATCHED THEN UPDATE SET t.STATUS = s.STATUS, t.CHECKED_AT = s.CHECKED_AT,"
+            + " t.CHECKED_BY = s.CHECKED_BY, t.UPDATED_AT = s.UPDATED_AT"
+            + " WHEN NOT MATCHED THEN INSERT (SERVICE_KEY, STATUS, CHECKED_AT, CHECKED_BY, UPDATED_AT)"
+            + " VALUES (s.SERVICE_KEY, s.STATUS, s.CHECKED_AT, s.CHECKED_BY, s.UPDATED_AT)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${probe.sharding.write-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public void upsertAll(List<ServiceStatusRecord> records, Instant updatedAt) {
+        // Instants are stored as TIMESTAMP WITH TIME ZONE, bound in UTC like Hibernate does
+        OffsetDateTime updated = updatedAt.atOffset(ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(UPSERT, records, Math.max(1, batchSize), (statement, record) -> {
+            statement.setString(1, record.getServiceKey());
+            statement.setString(2, record.getStatus());
+            statement.setObject(3, record.getCheckedAt().atOffset(ZoneOffset.UTC));
+            statement.setString(4, record.getCheckedBy());
+            statement.setObject(5, updated);
+        });
+    }
+}
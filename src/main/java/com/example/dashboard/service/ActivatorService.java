@@ -5,14 +5,15 @@ import com.example.dashboard.model.Environment;
 import com.example.dashboard.model.Server;
 import com.example.dashboard.model.Service;
 import com.example.dashboard.model.GroupedService;
+import com.example.dashboard.model.RestartOutcome;
+import com.example.dashboard.model.RestartRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
-import jakarta.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.*;
 import java.time.LocalDateTime;
 import java.time.DayOfWeek;
-import jakarta.annotation.PreDestroy;
 
 @org.springframework.stereotype.Service
 public class ActivatorService {
@@ -21,23 +22,60 @@ public class ActivatorService {
     private YamlParserService yamlParserService;
 
     @Autowired
-    private AnsibleExecutionService ansibleExecutionService;
+    private ServiceStatusMonitor serviceStatusMonitor;
 
     @Autowired
-    private ServiceStatusMonitor serviceStatusMonitor;
+    private DependencyRestartEngine dependencyRestartEngine;
+
+    @Autowired
+    private ServiceRestarter serviceRestarter;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private RestartJournal restartJournal;
+
+    @Autowired
+    private LeaderElection leaderElection;
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
-    private final List<String> restartLog = new ArrayList<>();
+    @Autowired
+    private RestartGuard restartGuard;
+
+    @Value("${restart.group.timeout-minutes:30}")
+    private long groupTimeoutMinutes;
+
+    private volatile RestartRecord lastRecord;
 
     // Key format: app|env|server|service
     private String makeKey(String app, String env, String server, String service) {
         return app + "|" + env + "|" + server + "|" + service;
     }
 
-    @PostConstruct
+    // Scheduled (and startup) runs happen only on the leader instance
     @Scheduled(cron = "0 52 16 * * THU") // Every Thursday at 4:30 PM
+    public void autoRestartIfLeader() {
+        Long fencingToken = leaderElection.getFencingToken();
+        if (fencingToken == null) {
+            System.out.println("=== Skipping auto-restart: this instance is not the scheduler leader ===");
+            return;
+        }
+        autoRestartDownServices(fencingToken);
+    }
+
     public void autoRestartDownServices() {
+        autoRestartDownServices(null);
+    }
+
+    // Whether a leader-only run has lost the scheduler lease it started under (checked in the database)
+    private boolean leaseLost(Long fencingToken) {
+        return fencingToken != null && !leaderElection.holdsLease(fencingToken);
+    }
+
+    // fencingToken is set for leader-only runs, which stop if leadership moves on during the sweep
+    private void autoRestartDownServices(Long fencingToken) {
         System.out.println("=== Starting Auto-Restart Service Check (Thursday 4:30 PM) ===");
+        long runStart = System.nanoTime();
         LocalDateTime now = LocalDateTime.now();
         System.out.println("Current time: " + now);
         
@@ -47,15 +85,19 @@ public class ActivatorService {
             return;
         }
 
-        // First, update all service statuses
-        serviceStatusMonitor.checkAllServices();
-        
-        // Wait a bit for status updates to complete
+        // First, update all service statuses and wait for the sweep to finish
         try {
-            Thread.sleep(5000);
+            serviceStatusMonitor.runStatusSweep().get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return;
+        } catch (ExecutionException e) {
+            System.err.println("Status sweep failed: " + e.getCause().getMessage());
+        }
+
+        if (leaseLost(fencingToken)) {
+            System.out.println("Scheduler lease lost during the status sweep, leaving restarts to the new leader");
+            return;
         }
 
         // Get current statuses
@@ -67,7 +109,8 @@ public class ActivatorService {
         // Group services by their group tag
         Map<String, List<GroupedService>> groupedServices = groupServicesByGroup(applications, currentStatuses);
         
-        // Handle grouped services first
+        // Dispatch grouped restarts on the group lane, concurrently with the services below
+        Map<String, Future<RestartOutcome>> groupFutures = new LinkedHashMap<>();
         for (Map.Entry<String, List<GroupedService>> entry : groupedServices.entrySet()) {
             String groupName = entry.getKey();
             List<GroupedService> groupServices = entry.getValue();
@@ -77,14 +120,18 @@ public class ActivatorService {
                 .anyMatch(gs -> "down".equals(gs.getStatus()));
             
             if (hasDownService) {
-                System.out.println("=== Group '" + groupName + "' has down services. Performing coordinated restart ===");
-                String result = restartGroupedServices(groupServices);
-                restartAttempts.add("Group " + groupName + ": " + result);
+                if (leaseLost(fencingToken)) {
+                    restartAttempts.add("Group " + groupName + " -> SKIPPED: scheduler lease lost before the restart was dispatched");
+                    continue;
+                }
+                System.out.println("=== Group '" + groupName + "' has down services. Scheduling coordinated restart ===");
+                groupFutures.put(groupName, restartGroup(groupName, groupServices, fencingToken));
             }
         }
+        long groupDeadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(groupTimeoutMinutes);
 
         // Handle non-grouped services (existing logic)
-        List<Future<String>> futures = new ArrayList<>();
+        Map<String, Future<RestartOutcome>> futures = new LinkedHashMap<>();
 
         for (Application app : applications) {
             if (app.getEnvironments() == null) continue;
@@ -103,22 +150,13 @@ public class ActivatorService {
                         
                         if ("down".equals(status)) {
                             downServices.add(key);
-                            
-                            // Submit restart task to thread pool for parallel execution
-                            Future<String> future = executor.submit(() -> {
-                                try {
-                                    System.out.println("Thread " + Thread.currentThread().getName() + " starting restart for: " + key);
-                                    String result = restartService(app.getName(), env.getName(), server.getName(), service.getName(), server, service);
-                                    System.out.println("Thread " + Thread.currentThread().getName() + " completed restart for: " + key + " -> " + result);
-                                    return key + " -> " + result;
-                                } catch (Exception e) {
-                                    String errorMsg = "ERROR: " + e.getMessage();
-                                    System.err.println("Thread " + Thread.currentThread().getName() + " failed restart for: " + key + " -> " + errorMsg);
-                                    return key + " -> " + errorMsg;
-                                }
-                            });
-                            
-                            futures.add(future);
+                            if (leaseLost(fencingToken)) {
+                                restartAttempts.add(key + " -> SKIPPED: scheduler lease lost before the restart was dispatched");
+                                continue;
+                            }
+
+                            // Restart on the restart lane for parallel execution
+                            futures.put(key, restartService(key, app.getName(), server, service, fencingToken));
                         }
                     }
                 }
@@ -126,118 +164,71 @@ public class ActivatorService {
         }
         
         // Wait for all restart tasks to complete
-        System.out.println("Waiting for " + futures.size() + " restart tasks to complete...");
-        for (Future<String> future : futures) {
+        System.out.println("Waiting for " + groupFutures.size() + " group restarts and " + futures.size() + " restart tasks to complete...");
+        for (RestartOutcome outcome : serviceRestarter.awaitAll(futures)) {
+            restartAttempts.add(outcome.toString());
+        }
+        // The groups ran alongside the services above; all of them share one deadline from their dispatch
+        for (Map.Entry<String, Future<RestartOutcome>> entry : groupFutures.entrySet()) {
             try {
-                String result = future.get(5, TimeUnit.MINUTES); // 5 minute timeout per service
-                restartAttempts.add(result);
+                restartAttempts.add("Group " + entry.getValue().get(Math.max(0, groupDeadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS));
             } catch (TimeoutException e) {
-                String timeoutMsg = "TIMEOUT: Service restart timed out after 5 minutes";
-                System.err.println(timeoutMsg);
-                restartAttempts.add("UNKNOWN -> " + timeoutMsg);
-            } catch (Exception e) {
-                String errorMsg = "ERROR: " + e.getMessage();
-                System.err.println(errorMsg);
-                restartAttempts.add("UNKNOWN -> " + errorMsg);
+                // Stops the wait; the step in progress still ends at its own command deadline
+                entry.getValue().cancel(true);
+                restartAttempts.add("Group " + entry.getKey() + ": TIMEOUT: not finished within " + groupTimeoutMinutes + " minutes");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                restartAttempts.add("Group " + entry.getKey() + ": ERROR: interrupted");
+                break;
+            } catch (ExecutionException e) {
+                restartAttempts.add("Group " + entry.getKey() + ": ERROR: " + e.getCause().getMessage());
             }
         }
 
-        // Log the results
-        String logEntry = String.format("[%s] Auto-restart check completed. Down services found: %d, Restart attempts: %d", 
-            now, downServices.size(), restartAttempts.size());
-        restartLog.add(logEntry);
-        
-        if (!downServices.isEmpty()) {
-            restartLog.add("Down services: " + String.join(", ", downServices));
-        }
-        if (!restartAttempts.isEmpty()) {
-            restartLog.add("Restart results: " + String.join("; ", restartAttempts));
-        }
-        
-        // Keep only last 100 log entries
-        if (restartLog.size() > 100) {
-            restartLog.subList(0, restartLog.size() - 100).clear();
-        }
-        
-        System.out.println(logEntry);
-        
-        // IMMEDIATE STATUS REFRESH: Update all service statuses after auto-restart
-        if (!downServices.isEmpty() || !groupedServices.isEmpty()) {
-            System.out.println("=== Refreshing service statuses after auto-restart ===");
-            try {
-                // Wait a bit for services to fully start up
-                Thread.sleep(15000); // 15 seconds wait
-                
-                // Trigger immediate status check for all services
-                serviceStatusMonitor.checkAllServices();
-                
-                // Wait for status updates to complete
-                Thread.sleep(5000);
-                
-                System.out.println("=== Service statuses refreshed after auto-restart ===");
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                System.err.println("Status refresh interrupted: " + e.getMessage());
-            } catch (Exception e) {
-                System.err.println("Error refreshing statuses: " + e.getMessage());
+        // Verify exactly what was restarted, plus the peers of restarted groups; the restarts
+        // already waited for readiness, so the check runs right away
+        Set<String> restartedKeys = new LinkedHashSet<>(downServices);
+        for (String groupName : groupFutures.keySet()) {
+            for (GroupedService member : groupedServices.get(groupName)) {
+                restartedKeys.add(member.getKey());
             }
         }
+        long verifyStart = System.nanoTime();
+        Map<String, String> verification = serviceRestarter.verify(restartedKeys);
+        long verificationMs = (System.nanoTime() - verifyStart) / 1_000_000;
+
+        RestartRecord record = new RestartRecord("linux", now.toString(), (System.nanoTime() - runStart) / 1_000_000,
+                serviceStatusMonitor.getLastSweep(), downServices, restartAttempts, verification, verificationMs);
+        lastRecord = record;
+
+        // Journal the run; each restart was journaled when it finished
+        List<String> stillDown = record.getStillDown();
+        String summary = String.format("Auto-restart check completed in %d ms. Down services found: %d, Restart attempts: %d, Still down after restart: %d",
+            record.getDurationMs(), downServices.size(), restartAttempts.size(), stillDown.size());
+        restartJournal.record("linux", "*", "auto-restart", System.currentTimeMillis() - record.getDurationMs(),
+                (stillDown.isEmpty() ? "SUCCESS: " : "PARTIAL: ") + summary,
+                stillDown.isEmpty() ? null : "Still down: " + String.join(", ", stillDown));
+
+        System.out.println("[" + now + "] " + summary);
         
         System.out.println("=== Auto-Restart Service Check Completed ===");
     }
 
-    private String restartService(String appName, String envName, String serverName, String serviceName, 
-                                 Server server, Service service) {
-        try {
-            String os = server.getOs();
-            String ip = server.getIp();
-            String application = appName;
-            
-            String restartCmd = service.getStartupCmd();
-            if (restartCmd == null) {
-                return "ERROR: No startup command configured";
-            }
-
-            // Prepend sudo for Linux commands
-            if (os != null && !os.equalsIgnoreCase("windows") && !restartCmd.startsWith("sudo ")) {
-                restartCmd = "sudo " + restartCmd;
-            }
-
-            System.out.println("Attempting to restart service: " + serviceName + " on " + serverName);
-            String result = ansibleExecutionService.executeCommand(application, ip, restartCmd, os);
-            
-            if (result.startsWith("SUCCESS")) {
-                // Wait a bit for service to start
-                Thread.sleep(10000);
-                
-                // Check if service is now up
-                String statusCmd = service.getStatusCmd();
-                if (statusCmd != null) {
-                    if (os != null && !os.equalsIgnoreCase("windows") && !statusCmd.startsWith("sudo ")) {
-                        statusCmd = "sudo " + statusCmd;
-                    }
-                    String statusResult = ansibleExecutionService.executeCommand(application, ip, statusCmd, os);
-                    if (statusResult.toLowerCase().contains("running") || statusResult.toLowerCase().contains("active")) {
-                        return "SUCCESS: Service restarted and is now running";
-                    } else {
-                        return "PARTIAL: Service restarted but status unclear";
-                    }
-                }
-                return "SUCCESS: Service restart command executed";
-            } else {
-                return "FAILED: " + result;
-            }
-        } catch (Exception e) {
-            return "ERROR: " + e.getMessage();
-        }
+    // Linux servers need sudo for both the start and the status command
+    private Future<RestartOutcome> restartService(String key, String appName, Server server, Service service,
+                                                  Long fencingToken) {
+        String restartCmd = ServiceRestarter.withSudo(service.getStartupCmd(), server.getOs());
+        String statusCmd = ServiceRestarter.withSudo(service.getStatusCmd(), server.getOs());
+        return serviceRestarter.submit("linux", key, appName, server, service, null, restartCmd, statusCmd, fencingToken);
     }
 
     // Manual trigger method for testing
     public String triggerManualRestart() {
         System.out.println("=== Manual Auto-Restart Triggered ===");
         
-        // Run the auto-restart logic in a separate thread to avoid blocking
-        executor.submit(() -> {
+        // Run the auto-restart logic on the interactive lane to avoid blocking
+        executionRuntime.executor(ExecutionRuntime.Lane.INTERACTIVE).submit(() -> {
             try {
                 autoRestartDownServices();
             } catch (Exception e) {
@@ -248,9 +239,10 @@ public class ActivatorService {
         return "Manual auto-restart initiated. Check logs for details.";
     }
 
-    // Get restart logs
-    public List<String> getRestartLogs() {
-        return new ArrayList<>(restartLog);
+    // Last auto-restart run, including the verification of what it restarted
+    public Map<String, Object> getLastRestartRecord() {
+        RestartRecord record = lastRecord;
+        return record != null ? record.toMap() : Collections.emptyMap();
     }
 
     // Get current down services
@@ -292,11 +284,8 @@ public class ActivatorService {
     public void refreshServiceStatuses() {
         System.out.println("=== Manual service status refresh triggered ===");
         try {
-            // Trigger immediate status check for all services
-            serviceStatusMonitor.checkAllServices();
-            
-            // Wait for status updates to complete
-            Thread.sleep(5000);
+            // Check all services and wait for the sweep to finish
+            serviceStatusMonitor.runStatusSweep().get();
             
             System.out.println("=== Manual service status refresh completed ===");
         } catch (InterruptedException e) {
@@ -307,20 +296,6 @@ public class ActivatorService {
         }
     }
     
-    @PreDestroy
-    public void shutdown() {
-        System.out.println("Shutting down ActivatorService thread pool...");
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
-
     // Helper class to hold grouped service information
 
 
@@ -355,140 +330,39 @@ public class ActivatorService {
         return groupedServices;
     }
 
-    // Restart grouped services in the correct order
-    private String restartGroupedServices(List<GroupedService> groupServices) {
-        try {
-            System.out.println("=== Starting coordinated restart for group with " + groupServices.size() + " services ===");
-            
-            // Sort services: master first (ES-M), then slaves (ES-1, ES-2, etc.)
-            groupServices.sort((a, b) -> {
-                // If one is master (ends with -M), it should come first
-                boolean aIsMaster = a.getServiceName().endsWith("-M");
-                boolean bIsMaster = b.getServiceName().endsWith("-M");
-                
-                if (aIsMaster && !bIsMaster) return -1;
-                if (!aIsMaster && bIsMaster) return 1;
-                
-                // If both are master or both are slave, sort alphabetically
-                return a.getServiceName().compareTo(b.getServiceName());
-            });
-            
-            System.out.println("Service restart order: " + groupServices.stream()
-                .map(GroupedService::getServiceName)
-                .collect(java.util.stream.Collectors.joining(" -> ")));
-            
-            // Step 1: Stop all services in reverse order (slaves first, then master)
-            System.out.println("=== Step 1: Stopping services in reverse order ===");
-            List<GroupedService> reverseOrder = new ArrayList<>(groupServices);
-            java.util.Collections.reverse(reverseOrder);
-            
-            for (GroupedService gs : reverseOrder) {
-                System.out.println("Stopping service: " + gs.getServiceName());
-                String stopResult = stopService(gs.getAppName(), gs.getEnvName(), gs.getServerName(), 
-                                              gs.getServiceName(), gs.getServer(), gs.getService());
-                System.out.println("Stop result for " + gs.getServiceName() + ": " + stopResult);
-                
-                // Wait a bit between stops
-                Thread.sleep(5000);
-            }
-            
-            // Step 2: Start all services in correct order (master first, then slaves)
-            System.out.println("=== Step 2: Starting services in correct order ===");
-            for (GroupedService gs : groupServices) {
-                System.out.println("Starting service: " + gs.getServiceName());
-                String startResult = startService(gs.getAppName(), gs.getEnvName(), gs.getServerName(), 
-                                                gs.getServiceName(), gs.getServer(), gs.getService());
-                System.out.println("Start result for " + gs.getServiceName() + ": " + startResult);
-                
-                // Wait a bit between starts
-                Thread.sleep(10000);
-            }
-            
-            System.out.println("=== Coordinated restart completed ===");
-            return "SUCCESS: All services in group restarted successfully";
-            
-        } catch (Exception e) {
-            String errorMsg = "ERROR: " + e.getMessage();
-            System.err.println("Coordinated restart failed: " + errorMsg);
-            return errorMsg;
+    /**
+     * Restarts the group on the group lane once RestartGuard admitted it. The group has its
+     * own circuit and takes a rate limit token for every member on the member's host, before
+     * it is handed to the lane. A leader-only run checks its lease once more before the group
+     * starts.
+     */
+    private Future<RestartOutcome> restartGroup(String groupName, List<GroupedService> groupServices, Long fencingToken) {
+        long startedAt = System.currentTimeMillis();
+        String guardKey = "group:" + groupName;
+        List<String> hosts = new ArrayList<>();
+        for (GroupedService member : groupServices) {
+            hosts.add(member.getServer().getIp());
         }
-    }
-
-    // Stop a specific service
-    private String stopService(String appName, String envName, String serverName, String serviceName, 
-                              Server server, Service service) {
-        try {
-            String os = server.getOs();
-            String ip = server.getIp();
-            String application = appName;
-            
-            String stopCmd = service.getStopCmd();
-            if (stopCmd == null) {
-                return "ERROR: No stop command configured";
-            }
-
-            // Prepend sudo for Linux commands
-            if (os != null && !os.equalsIgnoreCase("windows") && !stopCmd.startsWith("sudo ")) {
-                stopCmd = "sudo " + stopCmd;
-            }
-
-            System.out.println("Stopping service: " + serviceName + " on " + serverName);
-            String result = ansibleExecutionService.executeCommand(application, ip, stopCmd, os);
-            
-            if (result.startsWith("SUCCESS")) {
-                return "SUCCESS: Service stopped successfully";
+        return restartGuard.admit(guardKey, hosts).thenApplyAsync(rejection -> {
+            RestartOutcome result;
+            if (rejection == null && leaseLost(fencingToken)) {
+                restartGuard.release(guardKey);
+                result = new RestartOutcome(groupName, RestartOutcome.Status.SKIPPED,
+                        "scheduler lease lost, leaving the restart to the new leader");
+            } else if (rejection == null) {
+                result = restartGroupedServices(groupName, groupServices);
+                restartGuard.recordResult(guardKey, result.isSuccess());
             } else {
-                return "FAILED: " + result;
+                result = rejection.withKey(groupName);
             }
-        } catch (Exception e) {
-            return "ERROR: " + e.getMessage();
-        }
+            restartJournal.record("linux", "group-restart", startedAt, result, null);
+            return result;
+        }, executionRuntime.executor(ExecutionRuntime.Lane.GROUP));
     }
 
-    // Start a specific service
-    private String startService(String appName, String envName, String serverName, String serviceName, 
-                               Server server, Service service) {
-        try {
-            String os = server.getOs();
-            String ip = server.getIp();
-            String application = appName;
-            
-            String startCmd = service.getStartupCmd();
-            if (startCmd == null) {
-                return "ERROR: No startup command configured";
-            }
-
-            // Prepend sudo for Linux commands
-            if (os != null && !os.equalsIgnoreCase("windows") && !startCmd.startsWith("sudo ")) {
-                startCmd = "sudo " + startCmd;
-            }
-
-            System.out.println("Starting service: " + serviceName + " on " + serverName);
-            String result = ansibleExecutionService.executeCommand(application, ip, startCmd, os);
-            
-            if (result.startsWith("SUCCESS")) {
-                // Wait a bit for service to start
-                Thread.sleep(10000);
-                
-                // Check if service is now up
-                String statusCmd = service.getStatusCmd();
-                if (statusCmd != null) {
-                    if (os != null && !os.equalsIgnoreCase("windows") && !statusCmd.startsWith("sudo ")) {
-                        statusCmd = "sudo " + statusCmd;
-                    }
-                    String statusResult = ansibleExecutionService.executeCommand(application, ip, statusCmd, os);
-                    if (statusResult.toLowerCase().contains("running") || statusResult.toLowerCase().contains("active")) {
-                        return "SUCCESS: Service started and is now running";
-                    } else {
-                        return "PARTIAL: Service started but status unclear";
-                    }
-                }
-                return "SUCCESS: Service start command executed";
-            } else {
-                return "FAILED: " + result;
-            }
-        } catch (Exception e) {
-            return "ERROR: " + e.getMessage();
-        }
+    // Restart grouped services along their dependency graph
+    private RestartOutcome restartGroupedServices(String groupName, List<GroupedService> groupServices) {
+        System.out.println("=== Starting coordinated restart for group with " + groupServices.size() + " services ===");
+        return dependencyRestartEngine.restartGroup(groupName, groupServices);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,427 @@
+package com.example.dashboard.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.ExecutionResult.FailureCategory;
+
+/**
+ * Runs commands on real hosts with ansible: a ping to check the connection, then the command
+ * through the shell (Linux) or win_shell (Windows) module, either in a long-lived worker or
+ * as a separate process.
+ */
+@Component
+public class AnsibleCommandExecutor implements CommandExecutor {
+
+    public static final String NAME = "ansible";
+
+    // ansible exit code when a host could not be reached
+    private static final int ANSIBLE_UNREACHABLE = 4;
+
+    // Starts each ansible process as the leader of a process group of its own, see destroyProcessTree
+    private static final String SETSID = findSetsid();
+
+    @Autowired
+    private CyberArkService cyberArkService;
+
+    @Autowired
+    private AnsibleInventoryService ansibleInventoryService;
+
+    @Autowired
+    private AnsibleWorkerPool ansibleWorkerPool;
+
+    // Wrap Linux commands in timeout(1) so the remote side stops at the deadline as well
+    @Value("${remote.deadline.remote-timeout:true}")
+    private boolean remoteTimeout;
+
+    @Value("${remote.output.head-chars:16384}")
+    private int outputHeadChars;
+
+    @Value("${remote.output.tail-chars:16384}")
+    private int outputTailChars;
+
+    @Value("${remote.output.drain-threads:64}")
+    private int drainThreads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Two drain tasks (stdout, stderr) per running ansible process. The execution gate keeps
+    // that well below the cap; past it, drains queue and their processes block on a full pipe.
+    private ExecutorService outputDrainExecutor;
+
+    @PostConstruct
+    public void init() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(drainThreads, drainThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ansible-output-drain");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        outputDrainExecutor = executor;
+    }
+
+    // Targets the host through the managed inventory, which carries the connection settings
+    private List<String> buildAnsibleArgs(String ip, String user, String password, String os, String module, String args)
+            throws JsonProcessingException {
+        return buildAnsibleArgs(ip, user, password, os, module, args, 0);
+    }
+
+    /**
+     * As above; a positive timeoutSeconds lowers the WinRM timeouts of Windows hosts to fit the
+     * command's deadline (they bound each WinRM exchange, not the whole command).
+     */
+    private List<String> buildAnsibleArgs(String ip, String user, String password, String os, String module, String args,
+                                          long timeoutSeconds) throws JsonProcessingException {
+        Path inventory = ansibleInventoryService.getInventory(ip, os);
+        Map<String, Object> extraVars = new HashMap<>();
+        extraVars.put("ansible_password", password);
+        if (timeoutSeconds > 0 && isWindows(os)) {
+            long readTimeout = Math.max(10, Math.min(300, timeoutSeconds));
+            extraVars.put("ansible_winrm_read_timeout_sec", readTimeout);
+            extraVars.put("ansible_winrm_operation_timeout_sec", Math.min(280, readTimeout - 5));
+        }
+        List<String> ansibleArgs = new ArrayList<>(List.of(
+                ip,
+                "-i", inventory.toAbsolutePath().toString(),
+                "-u", user,
+                "--extra-vars", objectMapper.writeValueAsString(extraVars),
+                "-m", module));
+        if (args != null) {
+            ansibleArgs.add("-a");
+            ansibleArgs.add(args);
+        }
+        return ansibleArgs;
+    }
+
+    /**
+     * Runs ansible with the given arguments, on the worker pool when it is enabled and as a
+     * separate process otherwise. A command whose worker died is re-run as a process; the
+     * operations sent here (status checks and service start/stop) are safe to repeat.
+     */
+    private CommandOutput runAnsible(List<String> ansibleArgs, RunningCommand running)
+            throws IOException, InterruptedException, TimeoutException {
+        return runAnsible(ansibleArgs, null, running);
+    }
+
+    /**
+     * As above, passing each output line to the listener as it is read. Workers answer with
+     * the whole output at once, so with the worker pool the lines arrive when the command ends.
+     */
+    private CommandOutput runAnsible(List<String> ansibleArgs, Consumer<String> outputListener, RunningCommand running)
+            throws IOException, InterruptedException, TimeoutException {
+        running.checkNotCancelled();
+        if (ansibleWorkerPool.isEnabled()) {
+            try {
+                CommandOutput output = await(ansibleWorkerPool.submit(ansibleArgs), running);
+                return new CommandOutput(output.getExitCode(), bounded(output.getOutput(), outputListener), "");
+            } catch (ExecutionException e) {
+                System.err.println("Ansible worker failed, running command directly: " + e.getCause().getMessage());
+            }
+        }
+
+        try {
+            return await(runAnsibleProcess(ansibleArgs, outputListener), running);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Waits for the command's current work until its deadline. On timeout or interrupt the
+     * work is cancelled, which kills the ansible process tree or the worker's child.
+     */
+    private CommandOutput await(CompletableFuture<CommandOutput> future, RunningCommand running)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        running.attach(future);
+        try {
+            return future.get(running.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } finally {
+            running.detach();
+        }
+    }
+
+    /**
+     * Starts ansible as a process. Its output is drained on the drain executor into a
+     * bounded capture and the result completes when the process exits. Cancelling the
+     * result kills the process and everything it started (ssh, winrm helpers).
+     */
+    private CompletableFuture<CommandOutput> runAnsibleProcess(List<String> ansibleArgs, Consumer<String> outputListener)
+            throws IOException {
+        List<String> command = new ArrayList<>();
+        if (SETSID != null) {
+            command.add(SETSID);
+        }
+        command.add("ansible");
+        command.addAll(ansibleArgs);
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.environment().put("OBJC_DISABLE_INITIALIZE_FORK_SAFETY", "YES");
+        Process process = processBuilder.start();
+
+        BoundedOutputCapture stdout = new BoundedOutputCapture(outputHeadChars, outputTailChars, outputListener);
+        BoundedOutputCapture stderr = new BoundedOutputCapture(outputHeadChars, outputTailChars, outputListener);
+        CompletableFuture<Void> drained = CompletableFuture.allOf(
+                drainAsync(process.getInputStream(), stdout),
+                drainAsync(process.getErrorStream(), stderr));
+
+        CompletableFuture<CommandOutput> result = process.onExit().thenCombine(drained,
+                (exited, ignored) -> new CommandOutput(exited.exitValue(), stdout.toString(), stderr.toString()));
+        result.whenComplete((output, error) -> {
+            if (error instanceof CancellationException) {
+                destroyProcessTree(process);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Void> drainAsync(InputStream stream, BoundedOutputCapture capture) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                capture.drain(stream);
+            } catch (IOException e) {
+                capture.appendLine("[output stream failed: " + e.getMessage() + "]");
+            }
+        }, outputDrainExecutor);
+    }
+
+    /**
+     * Kills the ansible process and what it started for this command. The ssh ControlPersist
+     * master is shared with later commands to the host and must survive: it leaves ansible's
+     * process group when it backgrounds itself, so with setsid only the group is killed.
+     * Without setsid the descendants are killed except ssh masters (shown as "[mux]").
+     */
+    private void destroyProcessTree(Process process) {
+        if (SETSID != null) {
+            System.out.println("Killing ansible process group " + process.pid());
+            try {
+                Process kill = new ProcessBuilder("kill", "-KILL", "--", "-" + process.pid())
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                if (kill.waitFor(5, TimeUnit.SECONDS) && kill.exitValue() == 0) {
+                    return;
+                }
+            } catch (IOException e) {
+                System.err.println("Could not kill process group " + process.pid() + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            System.out.println("Killing ansible process " + process.pid() + " and its descendants");
+            process.descendants()
+                    .filter(child -> !isSshControlMaster(child))
+                    .forEach(ProcessHandle::destroyForcibly);
+        }
+        process.destroyForcibly();
+    }
+
+    private static boolean isSshControlMaster(ProcessHandle process) {
+        String command = process.info().command().orElse("");
+        String commandLine = process.info().commandLine().orElse("");
+        return (command.endsWith("/ssh") || commandLine.startsWith("ssh")) && commandLine.contains("[mux]");
+    }
+
+    private static String findSetsid() {
+        for (String candidate : List.of("/usr/bin/setsid", "/bin/setsid")) {
+            if (Files.isExecutable(Paths.get(candidate))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private String bounded(String output, Consumer<String> outputListener) {
+        BoundedOutputCapture capture = new BoundedOutputCapture(outputHeadChars, outputTailChars, outputListener);
+        output.lines().forEach(capture::appendLine);
+        return capture.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outputDrainExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ExecutionResult execute(String application, String ip, String command, String os,
+                                   Consumer<String> outputListener, RunningCommand running) {
+        try {
+            Map<String, String> credentials = cyberArkService.getcreds(application, os, ip);
+            String user = credentials.get("username");
+            String password = credentials.get("password");
+
+            if (password == null) {
+                return ExecutionResults.failure(running, FailureCategory.CREDENTIALS, "Could not retrieve password for server: " + ip);
+            }
+
+            if (user == null) {
+                return ExecutionResults.failure(running, FailureCategory.CREDENTIALS, "Could not retrieve username for server: " + ip);
+            }
+
+            // First check connectivity
+            running.setStage("connecting");
+            notify(outputListener, "Checking connection to " + ip + "...");
+            ExecutionResult connection = checkServerConnection(user, password, os, ip, running);
+            if (!connection.isSuccess()) {
+                if (connection.getFailureCategory() == FailureCategory.CREDENTIALS) {
+                    cyberArkService.invalidate(application, os, ip);
+                }
+                return connection;
+            }
+
+            // Prepare the Ansible command
+            String module = isWindows(os) ? "win_shell" : "shell";
+            long remoteSeconds = remoteTimeoutSeconds(running);
+            List<String> ansibleArgs = buildAnsibleArgs(ip, user, password, os, module,
+                    withRemoteTimeout(command, os, remoteSeconds), remoteSeconds);
+
+            // Log command execution
+            System.out.println("Executing Ansible command on " + os + " server: " + ip);
+            running.setStage("running");
+            notify(outputListener, "Running: " + command);
+
+            // Execute the command
+            CommandOutput output = runAnsible(ansibleArgs, outputListener, running);
+            int exitCode = output.getExitCode();
+            System.out.println("Command completed with exit code: " + exitCode);
+
+            if (exitCode == 0) {
+                return ExecutionResults.of(running, output, FailureCategory.NONE, "Command executed successfully on " + os + " server");
+            } else if (exitCode == ANSIBLE_UNREACHABLE) {
+                return ExecutionResults.of(running, output, FailureCategory.UNREACHABLE, "Host " + ip + " became unreachable");
+            } else {
+                return ExecutionResults.of(running, output, FailureCategory.COMMAND_FAILED,
+                        "Command failed with exit code " + exitCode + " on " + os + " server");
+            }
+        } catch (TimeoutException e) {
+            return ExecutionResults.failure(running, FailureCategory.TIMEOUT,
+                    "deadline of " + running.getTimeout().getSeconds() + "s exceeded on " + ip + ", the ansible process was killed");
+        } catch (CancellationException e) {
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED, "command " + running.getId() + " was cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED, "interrupted, the ansible process was killed");
+        } catch (Exception e) {
+            System.err.println("Ansible command execution failed on " + ip + ": " + e);
+            return ExecutionResults.failure(running, FailureCategory.INTERNAL_ERROR, "Ansible command execution failed: " + e.getMessage());
+        }
+    }
+
+    // Remote timeout a little short of the local deadline, so the remote side stops first and reports
+    private long remoteTimeoutSeconds(RunningCommand running) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(running.remainingNanos()) - 5);
+    }
+
+    private String withRemoteTimeout(String command, String os, long seconds) {
+        if (!remoteTimeout || isWindows(os) || command == null) {
+            return command;
+        }
+        return "timeout -k 10 " + seconds + " sh -c '" + command.replace("'", "'\\''") + "'";
+    }
+
+    private boolean isWindows(String os) {
+        return os != null && os.equalsIgnoreCase("windows");
+    }
+
+    private void notify(Consumer<String> outputListener, String message) {
+        if (outputListener != null) {
+            outputListener.accept(message);
+        }
+    }
+
+    private ExecutionResult checkServerConnection(String user, String password, String os, String ip, RunningCommand running) {
+        try {
+            String module = isWindows(os) ? "win_ping" : "ping";
+            List<String> ansibleArgs = buildAnsibleArgs(ip, user, password, os, module, null);
+
+            System.out.println("Testing connection to " + os + " server: " + ip);
+
+            CommandOutput output = runAnsible(ansibleArgs, running);
+            int exitCode = output.getExitCode();
+            System.out.println("Connection test completed with exit code: " + exitCode);
+
+            if (exitCode == 0) {
+                System.out.println("Connection successful to " + os + " server: " + ip);
+                return ExecutionResults.of(running, output, FailureCategory.NONE, "Connection established successfully");
+            }
+            System.err.println("Connection test to " + ip + " failed with exit code " + exitCode);
+            if (isAuthenticationFailure(output)) {
+                return ExecutionResults.of(running, output, FailureCategory.CREDENTIALS,
+                        "Connection test failed: " + ip + " rejected the credentials");
+            }
+            return ExecutionResults.of(running, output, FailureCategory.UNREACHABLE,
+                    "Connection test failed with exit code " + exitCode + ". Check network connectivity to " + ip
+                            + ", the " + (isWindows(os) ? "WinRM" : "SSH") + " service, firewall rules and credentials");
+        } catch (TimeoutException e) {
+            return ExecutionResults.failure(running, FailureCategory.TIMEOUT,
+                    "Connection test failed: deadline of " + running.getTimeout().getSeconds() + "s exceeded");
+        } catch (CancellationException e) {
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED,
+                    "Connection test failed: command " + running.getId() + " was cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED, "Connection test interrupted");
+        } catch (Exception e) {
+            System.err.println("Connection test to " + ip + " failed: " + e);
+            return ExecutionResults.failure(running, FailureCategory.INTERNAL_ERROR, "Connection test failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String ping(String application, String ip, String os, RunningCommand running) throws Exception {
+        Map<String, String> creds = cyberArkService.getcreds(application, os, ip);
+        // The managed inventory already holds the connection settings for this host
+        String module = isWindows(os) ? "win_ping" : "ping";
+        List<String> ansibleArgs = buildAnsibleArgs(ip, creds.get("username"), creds.get("password"), os, module, null);
+        CommandOutput output = runAnsible(ansibleArgs, running);
+        if (output.getExitCode() != 0 && isAuthenticationFailure(output)) {
+            cyberArkService.invalidate(application, os, ip);
+        }
+        return output.getOutput();
+    }
+
+    // sshpass, ssh and pywinrm wording for a rejected user or password
+    private boolean isAuthenticationFailure(CommandOutput output) {
+        String text = (output.getOutput() + "\n" + output.getErrorOutput()).toLowerCase();
+        return text.contains("permission denied")
+                || text.contains("incorrect password")
+                || text.contains("authentication failed")
+                || text.contains("authentication failure")
+                || text.contains("credentials were rejected");
+    }
+}
@@ -1,175 +1,160 @@
 package com.example.dashboard.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import com.example.dashboard.model.CommandRequest;
-
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.ExecutionResult.FailureCategory;
+
+/**
+ * Entry point for remote commands. Applies the per-host and global execution limits, the
+ * deadline for the OS and service type and the running-command registry, then hands the
+ * command to the CommandExecutor selected with execution.backend ("ansible" by default,
+ * "simulated" for the simulated fleet).
+ */
 @Service
 public class AnsibleExecutionService {
 
     @Autowired
-    private CyberArkService cyberArkService;
+    private List<CommandExecutor> commandExecutors;
 
-    public String executeCommand(String application, String ip, String command, String os) {
-        try {
-            Map<String, String> credentials = cyberArkService.getcreds(application, os, ip);
-            String user = credentials.get("username");
-            String password = credentials.get("password");
+    @Autowired
+    private RemoteExecutionGate remoteExecutionGate;
 
-            if (password == null) {
-                return "ERROR: Could not retrieve password for server: " + ip;
-            }
+    @Autowired
+    private RunningCommandRegistry runningCommands;
 
-            if (user == null) {
-                return "ERROR: Could not retrieve username for server: " + ip;
-            }
+    @Autowired
+    private CommandDeadlines commandDeadlines;
 
-            // First check connectivity
-            String connectionStatus = checkServerConnection(user, password, os, ip);
-            if (!connectionStatus.startsWith("SUCCESS")) {
-                return connectionStatus;
-            }
+    @Value("${execution.backend:" + AnsibleCommandExecutor.NAME + "}")
+    private String backend;
+
+    private CommandExecutor commandExecutor;
 
-            // Prepare the Ansible command
-            String ansibleCmd;
-            if (os.equalsIgnoreCase("windows")) {
-                ansibleCmd = String.format(
-                        "ansible all -i '%s,' -u %s --extra-vars \"ansible_password=%s ansible_connection=winrm ansible_winrm_transport=ntlm ansible_port=5986 ansible_winrm_server_cert_validation=ignore ansible_winrm_operation_timeout_sec=280 ansible_winrm_read_timeout_sec=300\" -m win_shell -a '%s'",
-                        ip, user, password, command
-                );
-            } else {
-                ansibleCmd = String.format(
-                        "ansible all -i '%s,' -u %s --extra-vars \"ansible_password=%s\" --ssh-common-args='-o StrictHostKeyChecking=no -o UserKnownHostsFile=/dev/null -o PreferredAuthentications=password -o ConnectTimeout=30' -m shell -a '%s'",
-                        ip, user, password, command
-                );
+    @PostConstruct
+    public void init() {
+        for (CommandExecutor executor : commandExecutors) {
+            if (executor.getName().equalsIgnoreCase(backend)) {
+                commandExecutor = executor;
             }
+        }
+        if (commandExecutor == null) {
+            throw new IllegalStateException("Unknown execution.backend '" + backend + "'");
+        }
+        System.out.println("Remote commands run on the '" + commandExecutor.getName() + "' backend");
+    }
 
-            // Log command execution
-            System.out.println("Executing Ansible command on " + os + " server: " + ip);
+    public String getBackend() {
+        return commandExecutor.getName();
+    }
 
-            // Execute the command
-            ProcessBuilder processBuilder = new ProcessBuilder();
-            if (System.getProperty("os.name").toLowerCase().contains("win")) {
-                processBuilder.command("cmd.exe", "/c", ansibleCmd);
-            } else {
-                processBuilder.command("sh", "-c", ansibleCmd);
-            }
+    public boolean usesCredentials() {
+        return commandExecutor.usesCredentials();
+    }
 
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
+    public ExecutionResult executeCommand(String application, String ip, String command, String os) {
+        return executeCommand(application, ip, command, os, null, null);
+    }
 
-            // Read output silently
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
+    public ExecutionResult executeCommand(String application, String ip, String command, String os, String serviceType) {
+        return executeCommand(application, ip, command, os, serviceType, null);
+    }
 
-            int exitCode = process.waitFor();
-            System.out.println("Command completed with exit code: " + exitCode);
-
-            if (exitCode == 0) {
-                return "SUCCESS: Command executed successfully on " + os + " server.\nOutput: " + output.toString();
-            } else {
-                return "ERROR: Command failed with exit code " + exitCode + " on " + os + " server.\n" +
-                        "Details:\n" + output.toString() + "\n" +
-                        "Please check:\n" +
-                        "1. Command syntax\n" +
-                        "2. User permissions\n" +
-                        "3. Service availability on target machine";
-            }
+    /**
+     * Runs the command under the deadline configured for the OS and service type (see
+     * CommandDeadlines). The deadline covers waiting for a slot, the connection check and
+     * the command itself; the command is listed in RunningCommandRegistry while it runs.
+     * Progress messages and each output line are passed to outputListener when it is not null.
+     */
+    public ExecutionResult executeCommand(String application, String ip, String command, String os, String serviceType,
+                                          Consumer<String> outputListener) {
+        Duration timeout = commandDeadlines.forCommand(os, serviceType);
+        RunningCommand running = runningCommands.start(application, ip, os, serviceType, command, timeout);
+        // Connection check and command share one execution slot on the host; cancelling the
+        // command while it waits for the slot ends the wait
+        try {
+            return remoteExecutionGate.execute(ip, running.remainingNanos(),
+                    () -> commandExecutor.execute(application, ip, command, os, outputListener, running),
+                    running::attach);
+        } catch (TimeoutException e) {
+            return ExecutionResults.failure(running, FailureCategory.TIMEOUT,
+                    "deadline of " + timeout.getSeconds() + "s exceeded while waiting for an execution slot on " + ip);
+        } catch (CancellationException e) {
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED,
+                    "cancelled while waiting for an execution slot on " + ip);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED,
+                    "interrupted while waiting for an execution slot on " + ip);
         } catch (Exception e) {
-            StringWriter sw = new StringWriter();
-            e.printStackTrace(new PrintWriter(sw));
-            return "ERROR: Ansible command execution failed: " + e.getMessage() + "\nStack trace: " + sw.toString();
+            return ExecutionResults.failure(running, FailureCategory.INTERNAL_ERROR,
+                    "Ansible command execution failed: " + e.getMessage());
+        } finally {
+            runningCommands.finish(running);
         }
     }
 
-    private String checkServerConnection(String user, String password, String os, String ip) {
-        try {
-            String ansibleCmd;
-            if (os.equalsIgnoreCase("windows")) {
-                ansibleCmd = String.format(
-                        "ansible all -i '%s,' -u %s --extra-vars \"ansible_password=%s ansible_connection=winrm ansible_winrm_transport=ntlm ansible_port=5986 ansible_winrm_server_cert_validation=ignore ansible_winrm_operation_timeout_sec=280 ansible_winrm_read_timeout_sec=300\" -m win_ping",
-                        ip, user, password
-                );
-            } else {
-                ansibleCmd = String.format(
-                        "ansible all -i '%s,' -u %s --extra-vars \"ansible_password=%s\" --ssh-common-args='-o StrictHostKeyChecking=no -o UserKnownHostsFile=/dev/null -o PreferredAuthentications=password -o ConnectTimeout=30' -m ping",
-                        ip, user, password
-                );
+    /**
+     * Same as executeCommand, for callers on a thread pool: the command waits for its slot in
+     * RemoteExecutionGate's queue for the host and only then runs on the executor, so no pool
+     * thread is held while the host is busy. The future always completes with a result;
+     * failures are reported through its failure category. Cancelling the future cancels the
+     * command, whether it is still queued or already running.
+     */
+    public CompletableFuture<ExecutionResult> submitCommand(String application, String ip, String command, String os,
+                                                            String serviceType, Executor executor) {
+        Duration timeout = commandDeadlines.forCommand(os, serviceType);
+        RunningCommand running = runningCommands.start(application, ip, os, serviceType, command, timeout);
+        CompletableFuture<ExecutionResult> queued = remoteExecutionGate.submit(ip, running.remainingNanos(), executor,
+                () -> commandExecutor.execute(application, ip, command, os, null, running));
+        // Cancelling the command while it is queued takes it out of the queue
+        running.attach(queued);
+        CompletableFuture<ExecutionResult> outcome = queued.handle((result, error) -> {
+            runningCommands.finish(running);
+            if (error == null) {
+                return result;
             }
-
-            System.out.println("Testing connection to " + os + " server: " + ip);
-
-            ProcessBuilder processBuilder = new ProcessBuilder();
-            if (System.getProperty("os.name").toLowerCase().contains("win")) {
-                processBuilder.command("cmd.exe", "/c", ansibleCmd);
-            } else {
-                processBuilder.command("sh", "-c", ansibleCmd);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                return ExecutionResults.failure(running, FailureCategory.TIMEOUT,
+                        "deadline of " + timeout.getSeconds() + "s exceeded while waiting for an execution slot on " + ip);
             }
-
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+            if (cause instanceof CancellationException) {
+                return ExecutionResults.failure(running, FailureCategory.CANCELLED,
+                        "cancelled while waiting for an execution slot on " + ip);
             }
-
-            int exitCode = process.waitFor();
-            System.out.println("Connection test completed with exit code: " + exitCode);
-
-            if (exitCode == 0) {
-                System.out.println("Connection successful to " + os + " server: " + ip);
-                return "SUCCESS: Connection established successfully.";
-            } else {
-                String errorMsg = String.format(
-                        "ERROR: Connection test failed with exit code %d.\n" +
-                                "Server may be unreachable or credentials may be invalid.\n" +
-                                "Error details:\n%s\n" +
-                                "Troubleshooting steps:\n" +
-                                "1. Verify network connectivity to %s\n" +
-                                "2. Check if %s service is running on the server\n" +
-                                "3. Verify firewall rules\n" +
-                                "4. Confirm credentials are valid",
-                        exitCode, output.toString(), ip, os.equalsIgnoreCase("windows") ? "WinRM" : "SSH");
-                System.err.println(errorMsg);
-                return errorMsg;
+            return ExecutionResults.failure(running, FailureCategory.INTERNAL_ERROR,
+                    "Ansible command execution failed: " + cause.getMessage());
+        });
+        outcome.whenComplete((result, error) -> {
+            if (outcome.isCancelled()) {
+                running.cancel();
             }
-        } catch (Exception e) {
-            StringWriter sw = new StringWriter();
-            e.printStackTrace(new PrintWriter(sw));
-            String errorMsg = "ERROR: Connection test failed: " + e.getMessage() +
-                    "\nStack trace: " + sw.toString();
-            System.err.println(errorMsg);
-            return errorMsg;
-        }
+        });
+        return outcome;
     }
 
     // Additional helper methods
-    public String checkServiceStatus(String application, String ip, String statusCommand, String os) {
+    public ExecutionResult checkServiceStatus(String application, String ip, String statusCommand, String os) {
         return executeCommand(application, ip, statusCommand, os);
     }
 
-    public String startService(String application, String ip, String startCommand, String os) {
+    public ExecutionResult startService(String application, String ip, String startCommand, String os) {
         return executeCommand(application, ip, startCommand, os);
     }
 
-    public String stopService(String application, String ip, String stopCommand, String os) {
+    public ExecutionResult stopService(String application, String ip, String stopCommand, String os) {
         return executeCommand(application, ip, stopCommand, os);
     }
 
@@ -178,54 +163,20 @@ public class AnsibleExecutionService {
         String ip = request.getIp();
         String application = request.getApplication();
 
-        Map<String, String> creds = cyberArkService.getcreds(application, os, ip);
-        String username = creds.get("username");
-        String password = creds.get("password");
-
-        String inventoryFile = null;
-        String ansibleCommand = null;
         String output = "";
 
+        RunningCommand running = runningCommands.start(application, ip, os, null, "ping",
+                commandDeadlines.forCommand(os, null));
         try {
-            // Create temporary inventory file
-            File tempInventory = File.createTempFile("ansible_inventory_ping_", ".ini");
-            inventoryFile = tempInventory.getAbsolutePath();
-            String inventoryContent;
-            if (os.equalsIgnoreCase("windows")) {
-                inventoryContent = "[servers]\n" +
-                    ip + " ansible_user=" + username +
-                    " ansible_password=" + password +
-                    " ansible_connection=winrm ansible_port=5986 ansible_winrm_server_cert_validation=ignore ansible_winrm_message_encryption=auto ansible_winrm_transport=ntlm\n";
-                ansibleCommand = "OBJC_DISABLE_INITIALIZE_FORK_SAFETY=YES python3.11 -m ansible adhoc -i " + inventoryFile + " servers -m win_ping";
-            } else {
-                inventoryContent = "[servers]\n" +
-                    ip + " ansible_user=" + username +
-                    " ansible_password=" + password +
-                    " ansible_connection=ssh\n";
-                ansibleCommand = "ansible -i " + inventoryFile + " servers -m ping";
-            }
-            Files.write(tempInventory.toPath(), inventoryContent.getBytes());
-
-            // Run the command
-            ProcessBuilder pb = new ProcessBuilder("bash", "-c", ansibleCommand);
-            pb.environment().put("SSHPASS", password);
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
-            }
-            process.waitFor();
-            output = sb.toString();
-
-            // Clean up
-            tempInventory.delete();
-
+            output = remoteExecutionGate.execute(ip, running.remainingNanos(),
+                    () -> commandExecutor.ping(application, ip, os, running), running::attach);
+        } catch (TimeoutException e) {
+            output = "Error: ping deadline exceeded";
         } catch (Exception e) {
             output = "Error: " + e.getMessage();
+        } finally {
+            runningCommands.finish(running);
         }
         return output;
     }
-} 
\ No newline at end of file
+}
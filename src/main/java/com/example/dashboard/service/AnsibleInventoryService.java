@@ -0,0 +1,145 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.TopologyEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains a generated Ansible inventory with one entry per server IP and the
+ * connection settings as host/group vars. Linux hosts get SSH ControlMaster/ControlPersist
+ * so that consecutive commands to the same host reuse one authenticated connection.
+ * Credentials are never written to the inventory; they are still passed per command.
+ */
+@Service
+public class AnsibleInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnsibleInventoryService.class);
+    private static final String INVENTORY_FILE = "inventory.ini";
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Autowired
+    private YamlParserService yamlParserService;
+
+    @Value("${ansible.inventory.dir:${java.io.tmpdir}/dashboard-ansible}")
+    private String inventoryDir;
+
+    @Value("${ansible.ssh.control-persist:300s}")
+    private String controlPersist;
+
+    // Hosts that are not in the topology but were targeted directly (e.g. ping-server)
+    private final Map<String, String> adHocHosts = new ConcurrentHashMap<>();
+
+    private volatile String generatedVersion;
+    private volatile Path inventoryPath;
+    private volatile Set<String> knownHosts = Set.of();
+
+    /**
+     * Returns the inventory file that contains the given host, regenerating it when the
+     * topology changed or the host is not known yet.
+     */
+    public Path getInventory(String ip, String os) {
+        String topologyVersion = yamlParserService.getTopologyVersion();
+        Path current = inventoryPath;
+        if (current != null && Objects.equals(topologyVersion, generatedVersion) && isKnownHost(ip)) {
+            return current;
+        }
+        return regenerate(ip, os);
+    }
+
+    private synchronized Path regenerate(String ip, String os) {
+        // Read before the hosts: after a concurrent reload the older version is recorded and
+        // the next call regenerates, never the other way round
+        String topologyVersion = yamlParserService.getTopologyVersion();
+        Map<String, String> hosts = collectHosts();
+        if (ip != null && !hosts.containsKey(ip)) {
+            adHocHosts.put(ip, os != null ? os : "linux");
+            hosts.put(ip, adHocHosts.get(ip));
+        }
+        for (Map.Entry<String, String> adHoc : adHocHosts.entrySet()) {
+            hosts.putIfAbsent(adHoc.getKey(), adHoc.getValue());
+        }
+
+        try {
+            Path dir = Paths.get(inventoryDir);
+            Path controlPathDir = dir.resolve("cp");
+            Files.createDirectories(controlPathDir);
+
+            Path file = dir.resolve(INVENTORY_FILE);
+            Path tempFile = Files.createTempFile(dir, INVENTORY_FILE, ".tmp");
+            Files.write(tempFile, renderInventory(hosts, controlPathDir).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            knownHosts = hosts.keySet();
+            generatedVersion = topologyVersion;
+            inventoryPath = file;
+            logger.info("Generated Ansible inventory with {} hosts at {}", hosts.size(), file);
+            return file;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write Ansible inventory: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean isKnownHost(String ip) {
+        return ip == null || knownHosts.contains(ip);
+    }
+
+    // IP -> OS for every server in the topology, first definition wins
+    private Map<String, String> collectHosts() {
+        Map<String, String> hosts = new LinkedHashMap<>();
+        for (TopologyEntry entry : topologyIndex.getEntries()) {
+            if (entry.getIp() == null || entry.getIp().trim().isEmpty()) continue;
+            hosts.putIfAbsent(entry.getIp(), entry.getOs() != null ? entry.getOs() : "linux");
+        }
+        return hosts;
+    }
+
+    private String renderInventory(Map<String, String> hosts, Path controlPathDir) {
+        StringBuilder linux = new StringBuilder("[linux]\n");
+        StringBuilder windows = new StringBuilder("[windows]\n");
+        for (Map.Entry<String, String> host : hosts.entrySet()) {
+            if (host.getValue().equalsIgnoreCase("windows")) {
+                windows.append(host.getKey()).append(" ansible_host=").append(host.getKey()).append('\n');
+            } else {
+                linux.append(host.getKey()).append(" ansible_host=").append(host.getKey()).append('\n');
+            }
+        }
+
+        StringBuilder inventory = new StringBuilder();
+        inventory.append("# Generated by the dashboard, do not edit\n");
+        inventory.append(linux).append('\n');
+        inventory.append(windows).append('\n');
+
+        inventory.append("[linux:vars]\n");
+        inventory.append("ansible_connection=ssh\n");
+        inventory.append("ansible_ssh_args=-C -o ControlMaster=auto -o ControlPersist=").append(controlPersist).append('\n');
+        inventory.append("ansible_control_path_dir=").append(controlPathDir.toAbsolutePath()).append('\n');
+        inventory.append("ansible_ssh_common_args='-o StrictHostKeyChecking=no -o UserKnownHostsFile=/dev/null ")
+                .append("-o PreferredAuthentications=password -o ConnectTimeout=30'\n\n");
+
+        inventory.append("[windows:vars]\n");
+        inventory.append("ansible_connection=winrm\n");
+        inventory.append("ansible_winrm_transport=ntlm\n");
+        inventory.append("ansible_port=5986\n");
+        inventory.append("ansible_winrm_server_cert_validation=ignore\n");
+        inventory.append("ansible_winrm_operation_timeout_sec=280\n");
+        inventory.append("ansible_winrm_read_timeout_sec=300\n");
+        return inventory.toString();
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.dashboard.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pool of long-running ansible worker processes (see ansible-worker.py). Requests are sent
+ * as JSON lines on a worker's stdin and answered on its stdout, so ansible's Python startup
+ * is paid once per worker instead of once per command. Requests are spread over the workers
+ * by number of in-flight requests, and a worker that exits is restarted on the next request.
+ *
+ * The worker command can be replaced with ansible.worker.command, e.g. to run against a
+ * fake worker script that speaks the same protocol.
+ */
+@Component
+public class AnsibleWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnsibleWorkerPool.class);
+    private static final String WORKER_SCRIPT = "ansible-worker.py";
+    // The worker writes the id and rc ahead of the output, so they survive a cut line
+    private static final Pattern RESPONSE_HEAD = Pattern.compile("^\\{\\s*\"id\":\\s*(\\d+),\\s*\"rc\":\\s*(-?\\d+)");
+
+    @Value("${ansible.worker.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ansible.worker.count:4}")
+    private int workerCount;
+
+    @Value("${ansible.worker.command:}")
+    private String workerCommand;
+
+    @Value("${ansible.worker.python:python3}")
+    private String python;
+
+    @Value("${ansible.worker.max-response-chars:1048576}")
+    private int maxResponseChars;
+
+    @Value("${ansible.inventory.dir:${java.io.tmpdir}/dashboard-ansible}")
+    private String workDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requestIds = new AtomicLong();
+    private Worker[] workers;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sends the ansible arguments (without the leading "ansible") to a worker. The future
+     * fails if the worker dies before answering, so callers can fall back to a local process.
+     * Cancelling the future makes the worker kill the request's child process group.
+     */
+    public CompletableFuture<CommandOutput> submit(List<String> ansibleArgs) {
+        Worker worker;
+        try {
+            worker = pickWorker();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long id = requestIds.incrementAndGet();
+        CompletableFuture<CommandOutput> future = worker.send(id, ansibleArgs);
+        future.whenComplete((output, error) -> {
+            if (error instanceof CancellationException) {
+                worker.cancel(id);
+            }
+        });
+        return future;
+    }
+
+    private synchronized Worker pickWorker() throws IOException {
+        if (workers == null) {
+            workers = new Worker[Math.max(1, workerCount)];
+        }
+
+        Worker best = null;
+        IOException lastError = null;
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] == null || !workers[i].alive) {
+                try {
+                    workers[i] = new Worker(i, workerCommandLine());
+                } catch (IOException e) {
+                    lastError = e;
+                    continue;
+                }
+            }
+            if (best == null || workers[i].pending.size() < best.pending.size()) {
+                best = workers[i];
+            }
+        }
+
+        if (best == null) {
+            throw lastError != null ? lastError : new IOException("No ansible worker available");
+        }
+        return best;
+    }
+
+    private List<String> workerCommandLine() throws IOException {
+        if (workerCommand != null && !workerCommand.trim().isEmpty()) {
+            return Arrays.asList(workerCommand.trim().split("\\s+"));
+        }
+
+        // Extract the bundled worker script next to the generated inventory
+        Path dir = Paths.get(workDir);
+        Files.createDirectories(dir);
+        Path script = dir.resolve(WORKER_SCRIPT);
+        try (InputStream input = new ClassPathResource(WORKER_SCRIPT).getInputStream()) {
+            Files.copy(input, script, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        List<String> commandLine = new ArrayList<>();
+        commandLine.add(python);
+        commandLine.add(script.toAbsolutePath().toString());
+        return commandLine;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (workers == null) {
+            return;
+        }
+        System.out.println("Shutting down ansible worker pool...");
+        for (Worker worker : workers) {
+            if (worker != null) {
+                worker.stop();
+            }
+        }
+    }
+
+    private final class Worker {
+        private final int index;
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final Map<Long, CompletableFuture<CommandOutput>> pending = new ConcurrentHashMap<>();
+        private volatile boolean alive = true;
+
+        private Worker(int index, List<String> commandLine) throws IOException {
+            this.index = index;
+            ProcessBuilder processBuilder = new ProcessBuilder(commandLine);
+            processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            this.process = processBuilder.start();
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+            Thread reader = new Thread(this::readResponses, "ansible-worker-" + index);
+            reader.setDaemon(true);
+            reader.start();
+            logger.info("Started ansible worker {} (pid {})", index, process.pid());
+        }
+
+        private CompletableFuture<CommandOutput> send(long id, List<String> ansibleArgs) {
+            CompletableFuture<CommandOutput> future = new CompletableFuture<>();
+            pending.put(id, future);
+            if (!alive) {
+                pending.remove(id);
+                future.completeExceptionally(new IllegalStateException("Ansible worker " + index + " exited"));
+                return future;
+            }
+
+            List<String> args = new ArrayList<>();
+            args.add("ansible");
+            args.addAll(ansibleArgs);
+            Map<String, Object> request = new HashMap<>();
+            request.put("id", id);
+            request.put("args", args);
+
+            try {
+                write(request);
+            } catch (IOException e) {
+                pending.remove(id);
+                future.completeExceptionally(e);
+                alive = false;
+            }
+            return future;
+        }
+
+        private void cancel(long id) {
+            pending.remove(id);
+            if (!alive) {
+                return;
+            }
+            Map<String, Object> request = new HashMap<>();
+            request.put("cancel", id);
+            try {
+                write(request);
+            } catch (IOException e) {
+                logger.warn("Could not cancel request {} on ansible worker {}: {}", id, index, e.getMessage());
+            }
+        }
+
+        private void write(Map<String, Object> request) throws IOException {
+            String line = objectMapper.writeValueAsString(request);
+            synchronized (stdin) {
+                stdin.write(line);
+                stdin.newLine();
+                stdin.flush();
+            }
+        }
+
+        private void readResponses() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                StringBuilder buffer = new StringBuilder();
+                long length;
+                while ((length = readLine(reader, buffer, maxResponseChars)) >= 0) {
+                    if (length > maxResponseChars) {
+                        completeOversized(buffer, length);
+                        continue;
+                    }
+                    String line = buffer.toString();
+                    JsonNode response;
+                    try {
+                        response = objectMapper.readTree(line);
+                    } catch (IOException e) {
+                        // Something in the worker printed to stdout; the protocol lines are still intact
+                        logger.warn("Ignoring unparsable line from ansible worker {}: {}", index,
+                                line.length() > 200 ? line.substring(0, 200) + "..." : line);
+                        continue;
+                    }
+                    JsonNode id = response.get("id");
+                    if (id == null || id.isNull()) {
+                        continue; // readiness or protocol message
+                    }
+                    CompletableFuture<CommandOutput> future = pending.remove(id.asLong());
+                    if (future != null) {
+                        future.complete(new CommandOutput(response.path("rc").asInt(250), response.path("output").asText("")));
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Ansible worker {} stream failed: {}", index, e.getMessage());
+            } finally {
+                alive = false;
+                // The process may still be running when only its stdout failed; never leave it behind
+                process.destroy();
+                IllegalStateException exited = new IllegalStateException("Ansible worker " + index + " exited");
+                pending.values().forEach(future -> future.completeExceptionally(exited));
+                pending.clear();
+                logger.warn("Ansible worker {} exited, it will be restarted on the next request", index);
+            }
+        }
+
+        /**
+         * A response line longer than ansible.worker.max-response-chars is not parsed; its
+         * request still gets its exit code, with a note instead of the dropped output.
+         */
+        private void completeOversized(StringBuilder head, long length) {
+            Matcher matcher = RESPONSE_HEAD.matcher(head);
+            if (!matcher.find()) {
+                logger.warn("Ignoring {} character line from ansible worker {}", length, index);
+                return;
+            }
+            CompletableFuture<CommandOutput> future = pending.remove(Long.parseLong(matcher.group(1)));
+            if (future != null) {
+                future.complete(new CommandOutput(Integer.parseInt(matcher.group(2)),
+                        "... [worker response of " + length + " characters exceeded ansible.worker.max-response-chars, output dropped] ..."));
+            }
+        }
+
+        private void stop() {
+            alive = false;
+            try {
+                stdin.close();
+            } catch (IOException ignored) {
+                // worker is being destroyed anyway
+            }
+            process.destroy();
+        }
+    }
+
+    /**
+     * Reads one line into line, keeping at most maxChars of it and discarding the rest.
+     * Returns the full length of the line, or -1 at the end of the stream.
+     */
+    static long readLine(BufferedReader reader, StringBuilder line, int maxChars) throws IOException {
+        line.setLength(0);
+        long length = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                return length;
+            }
+            if (length < maxChars) {
+                line.append((char) c);
+            }
+            length++;
+        }
+        return length > 0 ? length : -1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.dashboard.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-size capture of command output. The first headChars characters and the last
+ * tailChars characters (whole lines) are kept; everything in between is dropped and only
+ * counted, so a chatty or runaway command costs at most headChars + tailChars of heap.
+ * Single lines longer than MAX_LINE_CHARS are cut.
+ *
+ * An optional line listener sees every line as it is read, including the ones that are
+ * not kept, e.g. to forward output to live subscribers.
+ */
+public class BoundedOutputCapture {
+
+    private static final int MAX_LINE_CHARS = 4096;
+
+    private final int headChars;
+    private final int tailChars;
+    private final StringBuilder head = new StringBuilder();
+    private final Deque<String> tail = new ArrayDeque<>();
+    private int tailSize;
+    private long droppedLines;
+    private long droppedChars;
+    private boolean headFull;
+    private final Consumer<String> lineListener;
+
+    public BoundedOutputCapture(int headChars, int tailChars) {
+        this(headChars, tailChars, null);
+    }
+
+    public BoundedOutputCapture(int headChars, int tailChars, Consumer<String> lineListener) {
+        this.headChars = headChars;
+        this.tailChars = tailChars;
+        this.lineListener = lineListener;
+    }
+
+    /**
+     * Reads the stream to the end, splitting it into lines without ever holding more than
+     * one (capped) line in memory.
+     */
+    public void drain(InputStream input) throws IOException {
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            StringBuilder line = new StringBuilder();
+            boolean lineCut = false;
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (c == '\n') {
+                        appendLine(lineCut ? line.append(" ...[line truncated]").toString() : line.toString());
+                        line.setLength(0);
+                        lineCut = false;
+                    } else if (c != '\r') {
+                        if (line.length() < MAX_LINE_CHARS) {
+                            line.append(c);
+                        } else {
+                            lineCut = true;
+                        }
+                    }
+                }
+            }
+            if (line.length() > 0) {
+                appendLine(lineCut ? line.append(" ...[line truncated]").toString() : line.toString());
+            }
+        }
+    }
+
+    public synchronized void appendLine(String line) {
+        if (lineListener != null) {
+            lineListener.accept(line);
+        }
+        if (!headFull && head.length() + line.length() + 1 <= headChars) {
+            head.append(line).append('\n');
+            return;
+        }
+        headFull = true;
+
+        tail.addLast(line);
+        tailSize += line.length() + 1;
+        while (tailSize > tailChars && !tail.isEmpty()) {
+            String dropped = tail.removeFirst();
+            tailSize -= dropped.length() + 1;
+            droppedLines++;
+            droppedChars += dropped.length() + 1;
+        }
+    }
+
+    public synchronized boolean isTruncated() {
+        return droppedLines > 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder output = new StringBuilder(head.length() + tailSize + 64);
+        output.append(head);
+        if (droppedLines > 0) {
+            output.append("... [").append(droppedLines).append(" lines, ")
+                    .append(droppedChars).append(" characters truncated] ...\n");
+        }
+        for (String line : tail) {
+            output.append(line).append('\n');
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.BulkOperationRequest;
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.Service;
+import com.example.dashboard.model.TopologyEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs one operation on many services in parallel for POST /api/service-operation/bulk, with
+ * the same commands /api/service-operation runs for a single service.
+ *
+ * Every command waits for its host in RemoteExecutionGate's queues, so the gate's per-host
+ * and global limits apply; status checks run on the probe lane, starts, stops and restarts on
+ * the restart lane. Operator-initiated commands are not auto-remediation: RestartGuard's
+ * circuit breaker and rate limits do not apply to them, and their results do not count
+ * towards its breaker. Starts, stops and restarts are journaled, as they are for
+ * /api/service-operation. A request that sets a lower
+ * perHostLimit than remote.execution.per-host-limit has its further services held back per
+ * server. Results are passed on as each service finishes, sent outside the run's lock so that
+ * a slow client does not hold up finishing services. When the run's timeout passes, services
+ * that have not started are skipped, running ones are cancelled and the summary follows right
+ * away.
+ */
+@org.springframework.stereotype.Service
+public class BulkOperationService {
+
+    private static final Set<String> OPERATIONS = Set.of("status", "start", "stop", "restart");
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    @Autowired
+    private AnsibleExecutionService ansibleExecutionService;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private RestartJournal restartJournal;
+
+    @Value("${remote.execution.per-host-limit:2}")
+    private int gatePerHostLimit;
+
+    @Value("${bulk-operation.max-services:5000}")
+    private int maxServices;
+
+    @Value("${bulk-operation.default-timeout-seconds:600}")
+    private long defaultTimeoutSeconds;
+
+    @Value("${bulk-operation.max-timeout-seconds:3600}")
+    private long maxTimeoutSeconds;
+
+    private final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-operation-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Validates the request and resolves its services. Throws IllegalArgumentException when
+     * the request is invalid or selects nothing; keys that are not in the topology are
+     * reported as NOT_FOUND items instead.
+     */
+    public Run prepare(BulkOperationRequest request) {
+        String operation = request.getOperation() != null ? request.getOperation().trim().toLowerCase(Locale.ROOT) : "";
+        if (!OPERATIONS.contains(operation)) {
+            throw new IllegalArgumentException("operation must be one of status, start, stop, restart");
+        }
+        long timeoutSeconds = request.getTimeoutSeconds() != null ? request.getTimeoutSeconds() : defaultTimeoutSeconds;
+        if (timeoutSeconds < 1 || timeoutSeconds > maxTimeoutSeconds) {
+            throw new IllegalArgumentException("timeoutSeconds must be between 1 and " + maxTimeoutSeconds);
+        }
+        int perHostLimit = request.getPerHostLimit() != null ? request.getPerHostLimit() : gatePerHostLimit;
+        if (perHostLimit < 1) {
+            throw new IllegalArgumentException("perHostLimit must be at least 1");
+        }
+
+        List<TopologyEntry> targets = new ArrayList<>();
+        List<String> unknownKeys = new ArrayList<>();
+        if (request.getKeys() != null && !request.getKeys().isEmpty()) {
+            for (String key : new LinkedHashSet<>(request.getKeys())) {
+                TopologyEntry entry = topologyIndex.findByKey(key);
+                if (entry != null) {
+                    targets.add(entry);
+                } else {
+                    unknownKeys.add(key);
+                }
+            }
+        } else if (request.hasSelector()) {
+            targets = topologyIndex.select(request.toSelector(), serviceStatusMonitor.getAllStatuses());
+            if (targets.isEmpty()) {
+                throw new IllegalArgumentException("No services match the selection");
+            }
+        } else {
+            throw new IllegalArgumentException("Give the service keys or at least one of app, env, os, type, group, status");
+        }
+        if (targets.size() + unknownKeys.size() > maxServices) {
+            throw new IllegalArgumentException("At most " + maxServices + " services per request");
+        }
+        // Without a lower limit of its own the run hands every service to the gate right away
+        return new Run(UUID.randomUUID().toString(), operation, targets, unknownKeys, timeoutSeconds,
+                perHostLimit < gatePerHostLimit ? perHostLimit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Starts the run in the background. The sink gets a "plan" map, one "item" map per
+     * service as it finishes and finally a "summary" map; it is called by one thread at a
+     * time. An exception from the sink (the client went away) cancels the run.
+     */
+    public void execute(Run run, Consumer<Map<String, Object>> sink) {
+        run.start(sink);
+    }
+
+    /**
+     * Submits the service's operation; the first future yields its item and never fails, the
+     * second is the work to cancel at the timeout.
+     */
+    private Submitted submit(String operation, TopologyEntry entry, String command) {
+        String key = entry.getKey();
+        long startedAt = System.currentTimeMillis();
+        boolean status = "status".equals(operation);
+        CompletableFuture<ExecutionResult> execution = ansibleExecutionService.submitCommand(entry.getAppName(),
+                entry.getIp(), command, entry.getOs(), entry.getService().getType(),
+                executionRuntime.executor(status ? ExecutionRuntime.Lane.PROBE : ExecutionRuntime.Lane.RESTART));
+        return new Submitted(execution.thenApply(result -> {
+            Map<String, Object> item = item(key, result.isSuccess() ? "SUCCESS" : result.getFailureCategory().name(),
+                    result.getMessage(), result);
+            if (status) {
+                item.put("serviceStatus", serviceStatusMonitor.parseStatus(result));
+            } else {
+                restartJournal.record("bulk", key, operation, startedAt, result);
+            }
+            return item;
+        }).exceptionally(error -> errorItem(key, error)), execution);
+    }
+
+    private static Map<String, Object> errorItem(String key, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return item(key, "ERROR", cause.getClass().getSimpleName() + ": " + cause.getMessage(), null);
+    }
+
+    // As in ServiceController: Windows services only use the *Cmd fields, restart runs the start command
+    private static String commandFor(String operation, Service service, String os) {
+        boolean windows = os != null && os.equalsIgnoreCase("windows");
+        switch (operation) {
+            case "status":
+                return windows ? service.getStatusCmd() : firstOf(service.getStatusCmd(), service.getStatusScript());
+            case "stop":
+                return ServiceRestarter.withSudo(windows ? service.getStopCmd()
+                        : firstOf(service.getStopCmd(), service.getStopScript()), os);
+            default:
+                return ServiceRestarter.withSudo(windows ? service.getStartupCmd()
+                        : firstOf(service.getStartupCmd(), service.getStartScript()), os);
+        }
+    }
+
+    private static String firstOf(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static Map<String, Object> item(String key, String outcome, String message, ExecutionResult result) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("type", "item");
+        item.put("key", key);
+        item.put("outcome", outcome);
+        item.put("message", message);
+        if (result != null) {
+            item.put("durationMs", result.getDurationMs());
+            item.put("result", result.toMap());
+        }
+        return item;
+    }
+
+    // A submitted service: its report line, and the work behind it to cancel
+    private static final class Submitted {
+        private final CompletableFuture<Map<String, Object>> item;
+        private final Future<?> work;
+
+        private Submitted(CompletableFuture<Map<String, Object>> item, Future<?> work) {
+            this.item = item;
+            this.work = work;
+        }
+    }
+
+    public final class Run {
+        private final String id;
+        private final String operation;
+        private final List<TopologyEntry> targets;
+        private final List<String> unknownKeys;
+        private final long timeoutSeconds;
+        private final int perHostLimit;
+
+        // Guarded by this run
+        private final Map<String, Deque<TopologyEntry>> waiting = new LinkedHashMap<>();
+        private final Map<String, Integer> runningPerHost = new HashMap<>();
+        private final Map<String, Future<?>> running = new LinkedHashMap<>();
+        private final Map<String, Integer> outcomes = new TreeMap<>();
+        private final List<String> changedKeys = new ArrayList<>();
+        // Lines waiting to be sent; one thread at a time sends them, without holding the lock
+        private final Deque<Map<String, Object>> outbox = new ArrayDeque<>();
+        private boolean sending;
+        private Consumer<Map<String, Object>> sink;
+        private ScheduledFuture<?> timeout;
+        private long startNanos;
+        private int remaining;
+        private boolean finished;
+
+        private Run(String id, String operation, List<TopologyEntry> targets, List<String> unknownKeys,
+                    long timeoutSeconds, int perHostLimit) {
+            this.id = id;
+            this.operation = operation;
+            this.targets = targets;
+            this.unknownKeys = unknownKeys;
+            this.timeoutSeconds = timeoutSeconds;
+            this.perHostLimit = perHostLimit;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        private void start(Consumer<Map<String, Object>> sink) {
+            List<TopologyEntry> ready = new ArrayList<>();
+            synchronized (this) {
+                this.sink = sink;
+                startNanos = System.nanoTime();
+                remaining = targets.size() + unknownKeys.size();
+                List<TopologyEntry> noCommand = new ArrayList<>();
+                for (TopologyEntry entry : targets) {
+                    String command = commandFor(operation, entry.getService(), entry.getOs());
+                    if (command == null || command.isEmpty()) {
+                        noCommand.add(entry);
+                    } else {
+                        waiting.computeIfAbsent(String.valueOf(entry.getIp()), ip -> new ArrayDeque<>()).add(entry);
+                    }
+                }
+
+                Map<String, Object> plan = new LinkedHashMap<>();
+                plan.put("type", "plan");
+                plan.put("id", id);
+                plan.put("operation", operation);
+                plan.put("total", remaining);
+                plan.put("servers", waiting.size());
+                plan.put("perHostLimit", Math.min(perHostLimit, gatePerHostLimit));
+                plan.put("timeoutSeconds", timeoutSeconds);
+                outbox.add(plan);
+                for (String key : unknownKeys) {
+                    report(item(key, "NOT_FOUND", "No service with this key in the topology", null));
+                }
+                for (TopologyEntry entry : noCommand) {
+                    report(item(entry.getKey(), "SKIPPED", "No " + operation + " command configured", null));
+                }
+                if (remaining == 0) {
+                    finish(false);
+                } else {
+                    timeout = timeoutScheduler.schedule(this::timedOut, timeoutSeconds, TimeUnit.SECONDS);
+                    for (String host : waiting.keySet()) {
+                        takeNext(host, ready);
+                    }
+                }
+            }
+            launch(ready);
+            drain();
+        }
+
+        // Moves the host's next services to ready, up to perHostLimit running at a time
+        private void takeNext(String host, List<TopologyEntry> ready) {
+            Deque<TopologyEntry> queue = waiting.get(host);
+            while (!finished && !queue.isEmpty() && runningPerHost.getOrDefault(host, 0) < perHostLimit) {
+                ready.add(queue.poll());
+                runningPerHost.merge(host, 1, Integer::sum);
+            }
+        }
+
+        // Submits the services outside the lock; ones that are done right away are handled in this loop
+        private void launch(List<TopologyEntry> ready) {
+            Deque<TopologyEntry> pending = new ArrayDeque<>(ready);
+            while (!pending.isEmpty()) {
+                TopologyEntry entry = pending.poll();
+                Submitted submitted;
+                try {
+                    submitted = submit(operation, entry, commandFor(operation, entry.getService(), entry.getOs()));
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        pending.addAll(reportAndTakeNext(entry, errorItem(entry.getKey(), e)));
+                    }
+                    continue;
+                }
+                synchronized (this) {
+                    if (finished) {
+                        submitted.work.cancel(true);
+                        continue;
+                    }
+                    running.put(entry.getKey(), submitted.work);
+                }
+                if (submitted.item.isDone()) {
+                    pending.addAll(done(entry, submitted.item.join()));
+                } else {
+                    submitted.item.thenAccept(item -> {
+                        launch(done(entry, item));
+                        drain();
+                    });
+                }
+            }
+        }
+
+        // Reports the service's item and returns the host's next services to launch
+        private synchronized List<TopologyEntry> done(TopologyEntry entry, Map<String, Object> item) {
+            // A service that was cancelled at the timeout has been reported already
+            if (running.remove(entry.getKey()) == null) {
+                return Collections.emptyList();
+            }
+            return reportAndTakeNext(entry, item);
+        }
+
+        private List<TopologyEntry> reportAndTakeNext(TopologyEntry entry, Map<String, Object> item) {
+            List<TopologyEntry> ready = new ArrayList<>();
+            if (finished) {
+                return ready;
+            }
+            String host = String.valueOf(entry.getIp());
+            runningPerHost.merge(host, -1, Integer::sum);
+            report(item);
+            if (remaining == 0) {
+                finish(false);
+            } else {
+                takeNext(host, ready);
+            }
+            return ready;
+        }
+
+        private void timedOut() {
+            List<Future<?>> cancelled;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                for (Deque<TopologyEntry> queue : waiting.values()) {
+                    for (TopologyEntry entry : queue) {
+                        report(item(entry.getKey(), "SKIPPED", "Timeout of " + timeoutSeconds + "s reached before it started", null));
+                    }
+                    queue.clear();
+                }
+                for (String key : running.keySet()) {
+                    report(item(key, "TIMEOUT", "Cancelled at the timeout of " + timeoutSeconds + "s", null));
+                }
+                cancelled = new ArrayList<>(running.values());
+                running.clear();
+                finish(true);
+            }
+            cancelled.forEach(work -> work.cancel(true));
+            drain();
+        }
+
+        private void report(Map<String, Object> item) {
+            String outcome = (String) item.get("outcome");
+            outcomes.merge(outcome, 1, Integer::sum);
+            if ("SUCCESS".equals(outcome) && !"status".equals(operation)) {
+                changedKeys.add((String) item.get("key"));
+            }
+            remaining--;
+            outbox.add(item);
+        }
+
+        private void finish(boolean timedOut) {
+            finished = true;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("type", "summary");
+            summary.put("id", id);
+            summary.put("operation", operation);
+            summary.put("total", targets.size() + unknownKeys.size());
+            summary.put("succeeded", outcomes.getOrDefault("SUCCESS", 0));
+            summary.put("outcomes", new TreeMap<>(outcomes));
+            summary.put("timedOut", timedOut);
+            summary.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            summary.put("finishedAt", Instant.now().toString());
+            outbox.add(summary);
+
+            // Started and stopped services show their new status without waiting for the next sweep
+            if (!changedKeys.isEmpty()) {
+                serviceStatusMonitor.checkServices(new ArrayList<>(changedKeys));
+            }
+        }
+
+        // Sends the queued lines in order; a sink failure (the client went away) cancels the run
+        private void drain() {
+            while (true) {
+                Map<String, Object> line;
+                synchronized (this) {
+                    if (sending || outbox.isEmpty()) {
+                        return;
+                    }
+                    sending = true;
+                    line = outbox.poll();
+                }
+                try {
+                    sink.accept(line);
+                } catch (RuntimeException e) {
+                    System.out.println("Bulk operation " + id + " cancelled, its results could not be sent: " + e.getMessage());
+                    cancel();
+                    return;
+                } finally {
+                    synchronized (this) {
+                        sending = false;
+                    }
+                }
+            }
+        }
+
+        private void cancel() {
+            List<Future<?>> cancelled;
+            synchronized (this) {
+                finished = true;
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                cancelled = new ArrayList<>(running.values());
+                running.clear();
+                waiting.clear();
+                outbox.clear();
+            }
+            cancelled.forEach(work -> work.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.dashboard.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Deadline for one remote operation, looked up from the most specific property that is set:
+ *
+ *   remote.deadline.seconds.{os}.{serviceType}   e.g. remote.deadline.seconds.linux.wildfly=600
+ *   remote.deadline.seconds.{serviceType}        e.g. remote.deadline.seconds.tomcat=240
+ *   remote.deadline.seconds.{os}                 e.g. remote.deadline.seconds.windows=300
+ *   remote.deadline.seconds                      default for everything else
+ *
+ * OS and service type are matched in lower case.
+ */
+@Component
+public class CommandDeadlines {
+
+    private static final String PREFIX = "remote.deadline.seconds";
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${remote.deadline.seconds:300}")
+    private long defaultSeconds;
+
+    public Duration forCommand(String os, String serviceType) {
+        String osKey = normalize(os);
+        String typeKey = normalize(serviceType);
+
+        Long seconds = null;
+        if (osKey != null && typeKey != null) {
+            seconds = environment.getProperty(PREFIX + "." + osKey + "." + typeKey, Long.class);
+        }
+        if (seconds == null && typeKey != null) {
+            seconds = environment.getProperty(PREFIX + "." + typeKey, Long.class);
+        }
+        if (seconds == null && osKey != null) {
+            seconds = environment.getProperty(PREFIX + "." + osKey, Long.class);
+        }
+        return Duration.ofSeconds(seconds != null ? seconds : defaultSeconds);
+    }
+
+    private String normalize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+
+import java.util.function.Consumer;
+
+/**
+ * Backend that actually runs commands on hosts. AnsibleExecutionService selects one with
+ * execution.backend and calls it with the execution slot for the host already held, so
+ * implementations only have to run the command and honour the RunningCommand's deadline
+ * and cancellation.
+ */
+public interface CommandExecutor {
+
+    /**
+     * Name matched against the execution.backend property.
+     */
+    String getName();
+
+    /**
+     * Checks the connection to the host and runs the command, passing progress messages and
+     * output lines to outputListener when it is not null.
+     */
+    ExecutionResult execute(String application, String ip, String command, String os,
+                            Consumer<String> outputListener, RunningCommand running);
+
+    /**
+     * Connection check only; returns the raw output for the ping-server API.
+     */
+    String ping(String application, String ip, String os, RunningCommand running) throws Exception;
+
+    /**
+     * Whether commands fetch host credentials from CyberArkService, i.e. whether prefetching
+     * them before a sweep is worth it.
+     */
+    default boolean usesCredentials() {
+        return true;
+    }
+}
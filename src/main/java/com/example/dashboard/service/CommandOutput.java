@@ -0,0 +1,33 @@
+package com.example.dashboard.service;
+
+/**
+ * Exit code and output of one ansible invocation. Worker responses carry stdout and
+ * stderr combined in output, with errorOutput empty.
+ */
+public class CommandOutput {
+    private final int exitCode;
+    private final String output;
+    private final String errorOutput;
+
+    public CommandOutput(int exitCode, String output) {
+        this(exitCode, output, "");
+    }
+
+    public CommandOutput(int exitCode, String output, String errorOutput) {
+        this.exitCode = exitCode;
+        this.output = output;
+        this.errorOutput = errorOutput;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public String getErrorOutput() {
+        return errorOutput;
+    }
+}
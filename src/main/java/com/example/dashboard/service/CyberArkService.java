@@ -1,17 +1,323 @@
 package com.example.dashboard.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Credentials for remote hosts, cached per application/os/ip.
+ *
+ * Entries live for cyberark.cache.ttl-seconds. Once an entry is within refresh-ahead-seconds
+ * of expiring, the next caller still gets it but starts a background lookup, so busy hosts
+ * never wait on the vault. Concurrent misses for the same key share one lookup. Callers
+ * that see the host reject the credentials call {@link #invalidate} so the next command
+ * fetches them again; a lookup that was already running when the entry was invalidated
+ * still answers its callers but is not cached.
+ *
+ * With cyberark.url set, lookups are HTTP GETs to that URL (application, os and address as
+ * query parameters) answered with JSON carrying UserName/Content or username/password;
+ * without it the built-in placeholder credentials are used.
+ */
 @Service
 public class CyberArkService {
 
+    @Value("${cyberark.url:}")
+    private String vaultUrl;
+
+    @Value("${cyberark.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    @Value("${cyberark.cache.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${cyberark.cache.refresh-ahead-seconds:120}")
+    private long refreshAheadSeconds;
+
+    @Value("${cyberark.prefetch.parallelism:8}")
+    private int prefetchParallelism;
+
+    @Value("${cyberark.prefetch.timeout-seconds:60}")
+    private long prefetchTimeoutSeconds;
+
+    private final Map<String, CachedCredentials> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Map<String, String>>> inFlight = new ConcurrentHashMap<>();
+    // Bumped by invalidate; a lookup only caches its result if the key's generation did not change
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong staleLookups = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong lookupFailures = new AtomicLong();
+    private final AtomicLong lookupNanos = new AtomicLong();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final ExecutorService lookupExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cyberark-lookup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Returns username and password for the host, or an empty map when the lookup failed.
+     */
     public Map<String, String> getcreds(String application, String os, String ip) {
+        String key = cacheKey(application, os, ip);
+        CachedCredentials cached = cache.get(key);
+        long now = System.nanoTime();
+
+        if (cached != null && now < cached.expiresAt) {
+            hits.incrementAndGet();
+            if (now >= cached.refreshAt && !inFlight.containsKey(key)) {
+                refreshes.incrementAndGet();
+                lookup(key, application, os, ip);
+            }
+            return cached.credentials;
+        }
+
+        misses.incrementAndGet();
+        try {
+            return lookup(key, application, os, ip).get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new HashMap<>();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Credential lookup for " + ip + " failed: " + e);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Drops the cached credentials of a host, e.g. after it rejected them.
+     */
+    public void invalidate(String application, String os, String ip) {
+        if (drop(cacheKey(application, os, ip))) {
+            invalidations.incrementAndGet();
+            System.out.println("Dropped cached credentials for " + ip + " (" + application + ", " + os + ")");
+        }
+    }
+
+    public void invalidateAll() {
+        for (String key : generations.keySet()) {
+            if (drop(key)) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    // Removes the cached entry and makes a running lookup for the key stale; true if an entry was cached
+    private boolean drop(String key) {
+        boolean[] removed = new boolean[1];
+        generations.compute(key, (k, generation) -> {
+            removed[0] = cache.remove(key) != null;
+            inFlight.remove(key);
+            return generation != null ? generation + 1 : 1L;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Fetches the credentials of every host that has no cached entry, or one due for refresh,
+     * with at most cyberark.prefetch.parallelism lookups outstanding, and waits for them up
+     * to cyberark.prefetch.timeout-seconds. Called before a sweep so its probes find the
+     * credentials cached instead of each waiting on the vault. Failed hosts are simply
+     * looked up again by their command.
+     */
+    public Map<String, Object> prefetch(Collection<CredentialKey> hosts) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(prefetchTimeoutSeconds);
+        Semaphore permits = new Semaphore(Math.max(1, prefetchParallelism));
+        List<CompletableFuture<Map<String, String>>> started = new ArrayList<>();
+        int alreadyCached = 0;
+        boolean interrupted = false;
+
+        for (CredentialKey host : hosts) {
+            String key = cacheKey(host.application, host.os, host.ip);
+            CachedCredentials cached = cache.get(key);
+            if (cached != null && System.nanoTime() < cached.refreshAt) {
+                alreadyCached++;
+                continue;
+            }
+            try {
+                if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                break;
+            }
+            CompletableFuture<Map<String, String>> lookup = lookup(key, host.application, host.os, host.ip);
+            lookup.whenComplete((credentials, error) -> permits.release());
+            started.add(lookup);
+        }
+
+        int failed = 0;
+        int pending = 0;
+        for (CompletableFuture<Map<String, String>> lookup : started) {
+            try {
+                lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                pending++;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                pending++;
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("hosts", hosts.size());
+        result.put("alreadyCached", alreadyCached);
+        result.put("fetched", started.size() - failed - pending);
+        result.put("failed", failed);
+        result.put("notFinished", hosts.size() - alreadyCached - started.size() + pending);
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    /**
+     * As prefetch, on a lookup thread, so a sweep can dispatch its probes alongside it. A
+     * probe reaching a host whose lookup is still running waits for that lookup instead of
+     * starting another one.
+     */
+    public CompletableFuture<Map<String, Object>> prefetchAsync(Collection<CredentialKey> hosts) {
+        return CompletableFuture.supplyAsync(() -> prefetch(hosts), lookupExecutor);
+    }
+
+    // Vault (or placeholder) lookups made since startup
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    public Map<String, Object> getStats() {
+        long count = lookups.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("source", vaultUrl.isBlank() ? "placeholder" : vaultUrl);
+        stats.put("cached", cache.size());
+        stats.put("inFlight", inFlight.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("staleLookups", staleLookups.get());
+        stats.put("lookups", count);
+        stats.put("lookupFailures", lookupFailures.get());
+        stats.put("meanLookupMs", count > 0 ? TimeUnit.NANOSECONDS.toMillis(lookupNanos.get() / count) : 0);
+        return stats;
+    }
+
+    // Starts a lookup for the key unless one is already running, and returns the running one
+    private CompletableFuture<Map<String, String>> lookup(String key, String application, String os, String ip) {
+        CompletableFuture<Map<String, String>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        long generation = generations.compute(key, (k, current) -> current != null ? current : 0L);
+
+        lookupExecutor.execute(() -> {
+            long start = System.nanoTime();
+            lookups.incrementAndGet();
+            try {
+                Map<String, String> credentials = Collections.unmodifiableMap(fetch(application, os, ip));
+                long fetchedAt = System.nanoTime();
+                generations.compute(key, (k, current) -> {
+                    if (current != null && current == generation) {
+                        cache.put(key, new CachedCredentials(credentials,
+                                fetchedAt + TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds - refreshAheadSeconds)),
+                                fetchedAt + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+                    } else {
+                        // Invalidated while the lookup ran: these may be the credentials the host rejected
+                        staleLookups.incrementAndGet();
+                    }
+                    return current;
+                });
+                created.complete(credentials);
+            } catch (Exception e) {
+                lookupFailures.incrementAndGet();
+                created.completeExceptionally(e);
+            } finally {
+                lookupNanos.addAndGet(System.nanoTime() - start);
+                // Only after the cache holds the result, so no caller starts a second lookup
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    private Map<String, String> fetch(String application, String os, String ip) throws Exception {
+        if (vaultUrl.isBlank()) {
+            return placeholderCredentials(os, ip);
+        }
+
+        String url = vaultUrl + (vaultUrl.contains("?") ? "&" : "?")
+                + "application=" + URLEncoder.encode(application != null ? application : "", StandardCharsets.UTF_8)
+                + "&os=" + URLEncoder.encode(os != null ? os : "", StandardCharsets.UTF_8)
+                + "&address=" + URLEncoder.encode(ip, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("vault answered HTTP " + response.statusCode() + " for " + ip);
+        }
+
+        Map<?, ?> body = objectMapper.readValue(response.body(), Map.class);
+        Object username = body.get("UserName") != null ? body.get("UserName") : body.get("username");
+        Object password = body.get("Content") != null ? body.get("Content") : body.get("password");
+        if (username == null || password == null) {
+            throw new IllegalStateException("vault response for " + ip + " has no username or password");
+        }
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username.toString());
+        credentials.put("password", password.toString());
+        return credentials;
+    }
+
+    private Map<String, String> placeholderCredentials(String os, String ip) {
         // This is a placeholder implementation
         // In a real implementation, this would connect to CyberArk to retrieve credentials
         Map<String, String> credentials = new HashMap<>();
-        
+
         // Linux server credentials (35.200.187.236)
         if (ip.equals("35.200.187.236") && os.equalsIgnoreCase("linux")) {
             credentials.put("username", "aditya2219jain");
@@ -27,10 +333,19 @@ public class CyberArkService {
             credentials.put("username", "admin");
             credentials.put("password", "password");
         }
-        
+
         return credentials;
     }
 
+    private String cacheKey(String application, String os, String ip) {
+        return application + "|" + (os != null ? os.toLowerCase() : "") + "|" + ip;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
     public String getUsername(String application, String os, String ip) {
         // Linux server credentials (35.200.187.236)
         if (ip.equals("35.200.187.236") && os.equalsIgnoreCase("linux")) {
@@ -56,4 +371,44 @@ public class CyberArkService {
         // Default credentials
         return "password";
     }
-} 
\ No newline at end of file
+
+    /**
+     * Host whose credentials are looked up: the application it belongs to, its os and ip.
+     */
+    public static final class CredentialKey {
+        private final String application;
+        private final String os;
+        private final String ip;
+
+        public CredentialKey(String application, String os, String ip) {
+            this.application = application;
+            this.os = os;
+            this.ip = ip;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof CredentialKey)) return false;
+            CredentialKey key = (CredentialKey) other;
+            return Objects.equals(application, key.application) && Objects.equals(os, key.os) && Objects.equals(ip, key.ip);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(application, os, ip);
+        }
+    }
+
+    private static final class CachedCredentials {
+        private final Map<String, String> credentials;
+        private final long refreshAt;
+        private final long expiresAt;
+
+        private CachedCredentials(Map<String, String> credentials, long refreshAt, long expiresAt) {
+            this.credentials = credentials;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.GroupedService;
+import com.example.dashboard.model.RestartOutcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coordinated restart of a service group along its dependency graph.
+ *
+ * Edges come from the services' dependsOn lists (names of other members of the group);
+ * a group without any dependsOn falls back to the naming convention, where every
+ * service depends on the "-M" masters. Services are stopped dependents-first and started
+ * dependencies-first. Nodes whose predecessors are done run concurrently, at most
+ * restart.dag.width at a time, and a started service only releases its dependents once
+ * ReadinessWaiter reports it up, instead of after a fixed sleep. The steps run on the
+ * runtime's restart lane, which only ever holds the nodes that are allowed to run.
+ */
+@Component
+public class DependencyRestartEngine {
+
+    @Autowired
+    private AnsibleExecutionService ansibleExecutionService;
+
+    @Autowired
+    private ReadinessWaiter readinessWaiter;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Value("${restart.dag.width:4}")
+    private int width;
+
+    /**
+     * Stops and starts every member of the group and returns the group's outcome under the
+     * group name. Members whose dependencies did not come up are not started.
+     */
+    public RestartOutcome restartGroup(String groupName, List<GroupedService> members) {
+        Map<GroupedService, List<GroupedService>> dependencies = buildDependencies(members);
+        List<GroupedService> cycle = findCycle(dependencies);
+        if (!cycle.isEmpty()) {
+            String path = cycle.stream().map(GroupedService::getServiceName)
+                    .collect(java.util.stream.Collectors.joining(" -> "));
+            System.err.println("Dependency cycle in group " + groupName + ": " + path);
+            return RestartOutcome.error(groupName, "Dependency cycle in group " + groupName + ": " + path);
+        }
+
+        for (Map.Entry<GroupedService, List<GroupedService>> entry : dependencies.entrySet()) {
+            System.out.println("Group " + groupName + ": " + entry.getKey().getServiceName() + " depends on "
+                    + entry.getValue().stream().map(GroupedService::getServiceName).toList());
+        }
+
+        long start = System.nanoTime();
+        // Stop: a service goes down only after everything depending on it is down
+        System.out.println("=== Group " + groupName + ": stopping " + members.size() + " services (width " + width + ") ===");
+        Map<GroupedService, RestartOutcome> stopResults = runGraph(reverse(dependencies), this::stop, false);
+
+        // Start: a service starts only after its dependencies are running again
+        System.out.println("=== Group " + groupName + ": starting " + members.size() + " services (width " + width + ") ===");
+        Map<GroupedService, RestartOutcome> startResults = runGraph(dependencies, this::startAndAwaitReady, true);
+
+        List<String> failed = new ArrayList<>();
+        for (GroupedService member : members) {
+            RestartOutcome result = startResults.get(member);
+            System.out.println("Group " + groupName + ": " + member.getServiceName() + " stop -> "
+                    + stopResults.get(member).getStatus() + ", start -> " + result.getStatus() + ": " + result.getMessage());
+            if (!result.isSuccess()) {
+                failed.add(member.getServiceName() + " (" + result.getStatus() + ": " + result.getMessage() + ")");
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("=== Group " + groupName + ": restart finished in " + elapsedMs + " ms ===");
+
+        if (failed.isEmpty()) {
+            return RestartOutcome.success(groupName, "All services in group restarted successfully in " + elapsedMs + " ms");
+        }
+        return RestartOutcome.failed(groupName, failed.size() + " of " + members.size() + " services not running: "
+                + String.join(", ", failed));
+    }
+
+    // member -> members it depends on
+    private Map<GroupedService, List<GroupedService>> buildDependencies(List<GroupedService> members) {
+        Map<String, List<GroupedService>> byName = new HashMap<>();
+        boolean declared = false;
+        for (GroupedService member : members) {
+            byName.computeIfAbsent(member.getServiceName(), name -> new ArrayList<>()).add(member);
+            List<String> dependsOn = member.getService().getDependsOn();
+            declared |= dependsOn != null && !dependsOn.isEmpty();
+        }
+
+        Map<GroupedService, List<GroupedService>> dependencies = new LinkedHashMap<>();
+        for (GroupedService member : members) {
+            List<GroupedService> predecessors = new ArrayList<>();
+            if (declared) {
+                List<String> dependsOn = member.getService().getDependsOn();
+                if (dependsOn != null) {
+                    for (String name : dependsOn) {
+                        List<GroupedService> targets = byName.get(name);
+                        if (targets == null) {
+                            System.err.println("Ignoring unknown dependency '" + name + "' of " + member.getKey()
+                                    + ": not a member of group " + member.getGroupName());
+                            continue;
+                        }
+                        predecessors.addAll(targets);
+                    }
+                }
+            } else if (!member.getServiceName().endsWith("-M")) {
+                for (GroupedService other : members) {
+                    if (other.getServiceName().endsWith("-M")) {
+                        predecessors.add(other);
+                    }
+                }
+            }
+            predecessors.remove(member);
+            dependencies.put(member, predecessors);
+        }
+        return dependencies;
+    }
+
+    private Map<GroupedService, List<GroupedService>> reverse(Map<GroupedService, List<GroupedService>> dependencies) {
+        Map<GroupedService, List<GroupedService>> reversed = new LinkedHashMap<>();
+        for (GroupedService member : dependencies.keySet()) {
+            reversed.put(member, new ArrayList<>());
+        }
+        for (Map.Entry<GroupedService, List<GroupedService>> entry : dependencies.entrySet()) {
+            for (GroupedService predecessor : entry.getValue()) {
+                reversed.get(predecessor).add(entry.getKey());
+            }
+        }
+        return reversed;
+    }
+
+    // Returns the members of one cycle, or an empty list when the graph is acyclic
+    private List<GroupedService> findCycle(Map<GroupedService, List<GroupedService>> dependencies) {
+        Set<GroupedService> done = new HashSet<>();
+        for (GroupedService member : dependencies.keySet()) {
+            List<GroupedService> path = new ArrayList<>();
+            if (visit(member, dependencies, done, path)) {
+                return path;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private boolean visit(GroupedService member, Map<GroupedService, List<GroupedService>> dependencies,
+                          Set<GroupedService> done, List<GroupedService> path) {
+        if (path.contains(member)) {
+            path.subList(0, path.indexOf(member)).clear();
+            path.add(member);
+            return true;
+        }
+        if (done.contains(member)) {
+            return false;
+        }
+        path.add(member);
+        for (GroupedService predecessor : dependencies.get(member)) {
+            if (visit(predecessor, dependencies, done, path)) {
+                return true;
+            }
+        }
+        path.remove(path.size() - 1);
+        done.add(member);
+        return false;
+    }
+
+    /**
+     * Runs the action for every node once all its predecessors have finished, with at most
+     * width actions at a time. With gated set, a node whose predecessor did not succeed is
+     * skipped; otherwise predecessors only order the nodes.
+     */
+    private Map<GroupedService, RestartOutcome> runGraph(Map<GroupedService, List<GroupedService>> predecessors,
+                                                         Function<GroupedService, RestartOutcome> action, boolean gated) {
+        return new GraphRun(predecessors, action, gated).run();
+    }
+
+    /**
+     * One pass over the graph. Nodes become ready when their last predecessor finishes and
+     * are handed to the restart lane only while fewer than width are running, so lane
+     * threads never wait for a slot; the caller waits for the last node.
+     */
+    private final class GraphRun {
+        private final Map<GroupedService, List<GroupedService>> predecessors;
+        private final Map<GroupedService, List<GroupedService>> dependents;
+        private final Function<GroupedService, RestartOutcome> action;
+        private final boolean gated;
+
+        // Guarded by this
+        private final Map<GroupedService, Integer> unfinishedPredecessors = new HashMap<>();
+        private final ArrayDeque<GroupedService> ready = new ArrayDeque<>();
+        private final Map<GroupedService, RestartOutcome> results = new HashMap<>();
+        private int running;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private GraphRun(Map<GroupedService, List<GroupedService>> predecessors,
+                         Function<GroupedService, RestartOutcome> action, boolean gated) {
+            this.predecessors = predecessors;
+            this.dependents = reverse(predecessors);
+            this.action = action;
+            this.gated = gated;
+            for (Map.Entry<GroupedService, List<GroupedService>> entry : predecessors.entrySet()) {
+                unfinishedPredecessors.put(entry.getKey(), entry.getValue().size());
+                if (entry.getValue().isEmpty()) {
+                    ready.add(entry.getKey());
+                }
+            }
+        }
+
+        private Map<GroupedService, RestartOutcome> run() {
+            dispatch();
+            done.join();
+            Map<GroupedService, RestartOutcome> ordered = new LinkedHashMap<>();
+            synchronized (this) {
+                for (GroupedService node : predecessors.keySet()) {
+                    ordered.put(node, results.get(node));
+                }
+            }
+            return ordered;
+        }
+
+        // Starts ready nodes while slots are free; the lane is only called outside the lock
+        private void dispatch() {
+            List<GroupedService> launch = new ArrayList<>();
+            synchronized (this) {
+                while (running < Math.max(1, width) && !ready.isEmpty()) {
+                    GroupedService node = ready.poll();
+                    RestartOutcome skipped = gated ? blockedBy(node) : null;
+                    if (skipped != null) {
+                        finish(node, skipped);
+                        continue;
+                    }
+                    running++;
+                    launch.add(node);
+                }
+                if (results.size() == predecessors.size()) {
+                    done.complete(null);
+                }
+            }
+
+            for (GroupedService node : launch) {
+                try {
+                    CompletableFuture.supplyAsync(() -> apply(node), executionRuntime.executor(ExecutionRuntime.Lane.RESTART))
+                            .whenComplete((outcome, error) -> completed(node, outcome != null ? outcome
+                                    : RestartOutcome.error(node.getKey(), String.valueOf(error))));
+                } catch (RejectedExecutionException e) {
+                    completed(node, RestartOutcome.error(node.getKey(), "restart lane is shut down"));
+                }
+            }
+        }
+
+        private RestartOutcome apply(GroupedService node) {
+            try {
+                return action.apply(node);
+            } catch (Exception e) {
+                return RestartOutcome.error(node.getKey(), e.getMessage());
+            }
+        }
+
+        private void completed(GroupedService node, RestartOutcome outcome) {
+            synchronized (this) {
+                running--;
+                finish(node, outcome);
+            }
+            dispatch();
+        }
+
+        // Records the node's outcome and readies the dependents that were only waiting for it
+        private void finish(GroupedService node, RestartOutcome outcome) {
+            results.put(node, outcome);
+            for (GroupedService dependent : dependents.get(node)) {
+                if (unfinishedPredecessors.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        private RestartOutcome blockedBy(GroupedService node) {
+            for (GroupedService predecessor : predecessors.get(node)) {
+                if (!results.get(predecessor).isSuccess()) {
+                    return new RestartOutcome(node.getKey(), RestartOutcome.Status.SKIPPED, "dependency "
+                            + predecessor.getServiceName() + " is not running");
+                }
+            }
+            return null;
+        }
+    }
+
+    private RestartOutcome stop(GroupedService member) {
+        String stopCmd = member.getService().getStopCmd();
+        if (stopCmd == null) {
+            return RestartOutcome.error(member.getKey(), "No stop command configured");
+        }
+        System.out.println("Stopping service: " + member.getServiceName() + " on " + member.getServerName());
+        ExecutionResult result = execute(member, stopCmd);
+        return result.isSuccess() ? RestartOutcome.success(member.getKey(), "Service stopped successfully")
+                : RestartOutcome.failed(member.getKey(), result.getMessage());
+    }
+
+    private RestartOutcome startAndAwaitReady(GroupedService member) {
+        String startCmd = member.getService().getStartupCmd();
+        if (startCmd == null) {
+            return RestartOutcome.error(member.getKey(), "No startup command configured");
+        }
+        System.out.println("Starting service: " + member.getServiceName() + " on " + member.getServerName());
+        ExecutionResult result = execute(member, startCmd);
+        if (!result.isSuccess()) {
+            return RestartOutcome.failed(member.getKey(), result.getMessage());
+        }
+        return awaitReady(member);
+    }
+
+    private RestartOutcome awaitReady(GroupedService member) {
+        String statusCmd = member.getService().getStatusCmd();
+        if (statusCmd != null) {
+            statusCmd = ServiceRestarter.withSudo(statusCmd, member.getServer().getOs());
+        }
+        try {
+            ReadinessWaiter.Result ready = readinessWaiter.await(member.getAppName(), member.getServer(),
+                    member.getService(), statusCmd);
+            if (ready.isReady()) {
+                return RestartOutcome.success(member.getKey(), "Service started and is now running (ready after "
+                        + ready.getTimeToReadyMs() + " ms)");
+            }
+            return RestartOutcome.failed(member.getKey(), "Service started but not running after "
+                    + ready.getTimeToReadyMs() / 1000 + "s (status " + ready.getLastStatus() + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RestartOutcome.error(member.getKey(), "interrupted while waiting for the service to start");
+        }
+    }
+
+    private ExecutionResult execute(GroupedService member, String command) {
+        String os = member.getServer().getOs();
+        return ansibleExecutionService.executeCommand(member.getAppName(), member.getServer().getIp(),
+                ServiceRestarter.withSudo(command, os), os, member.getService().getType());
+    }
+}
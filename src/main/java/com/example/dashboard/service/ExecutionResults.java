@@ -0,0 +1,29 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.ExecutionResult.FailureCategory;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Builds ExecutionResults for a RunningCommand, shared by the executors and the execution
+ * service so that host, transport and duration are filled in the same way everywhere.
+ */
+final class ExecutionResults {
+
+    private ExecutionResults() {
+    }
+
+    static ExecutionResult of(RunningCommand running, CommandOutput output, FailureCategory category, String message) {
+        String os = running.getOs();
+        boolean windows = os != null && os.equalsIgnoreCase("windows");
+        return new ExecutionResult(running.getHost(), os, windows ? "winrm" : "ssh",
+                running.getCommand(), output.getExitCode(), output.getOutput(), output.getErrorOutput(),
+                Duration.between(running.getStartedAt(), Instant.now()).toMillis(), category, message);
+    }
+
+    static ExecutionResult failure(RunningCommand running, FailureCategory category, String message) {
+        return of(running, new CommandOutput(ExecutionResult.NO_EXIT_CODE, "", ""), category, message);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.dashboard.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The application's worker threads, split into lanes so that one kind of work cannot take
+ * the threads of another:
+ *
+ *   probe        status checks (sweeps, verification after restarts)
+ *   restart      individual service restarts and the steps of group restarts
+ *   group        coordinators of group restarts, which mostly wait on restart steps
+ *   interactive  work started from the UI or API, e.g. a manual auto-restart run
+ *   rollout      rolling restarts, one thread each for as long as they run; further
+ *                rollouts queue until one finishes
+ *
+ * Each lane is a fixed pool of runtime.lanes.{lane}.threads named threads with an unbounded
+ * queue. Active and queued tasks are exposed as runtime.lane.active / runtime.lane.queued
+ * gauges and the time tasks wait in the queue as the runtime.lane.queue.wait timer.
+ */
+@Component
+public class ExecutionRuntime {
+
+    public enum Lane {
+        PROBE, RESTART, GROUP, INTERACTIVE, ROLLOUT
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${runtime.lanes.probe.threads:10}")
+    private int probeThreads;
+
+    @Value("${runtime.lanes.restart.threads:10}")
+    private int restartThreads;
+
+    @Value("${runtime.lanes.group.threads:${restart.group.parallelism:3}}")
+    private int groupThreads;
+
+    @Value("${runtime.lanes.interactive.threads:4}")
+    private int interactiveThreads;
+
+    @Value("${runtime.lanes.rollout.threads:2}")
+    private int rolloutThreads;
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+
+    @PostConstruct
+    public void init() {
+        lanes.put(Lane.PROBE, createLane(Lane.PROBE, probeThreads));
+        lanes.put(Lane.RESTART, createLane(Lane.RESTART, restartThreads));
+        lanes.put(Lane.GROUP, createLane(Lane.GROUP, groupThreads));
+        lanes.put(Lane.INTERACTIVE, createLane(Lane.INTERACTIVE, interactiveThreads));
+        lanes.put(Lane.ROLLOUT, createLane(Lane.ROLLOUT, rolloutThreads));
+    }
+
+    public ExecutorService executor(Lane lane) {
+        return lanes.get(lane);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Map.Entry<Lane, LaneExecutor> entry : lanes.entrySet()) {
+            LaneExecutor executor = entry.getValue();
+            Map<String, Object> lane = new LinkedHashMap<>();
+            lane.put("threads", executor.getMaximumPoolSize());
+            lane.put("active", executor.getActiveCount());
+            lane.put("queued", executor.getQueue().size());
+            lane.put("completed", executor.getCompletedTaskCount());
+            lane.put("queueWaitMeanMs", executor.queueWait.mean(TimeUnit.MILLISECONDS));
+            lane.put("queueWaitMaxMs", executor.queueWait.max(TimeUnit.MILLISECONDS));
+            stats.put(entry.getKey().name().toLowerCase(Locale.ROOT), lane);
+        }
+        return stats;
+    }
+
+    private LaneExecutor createLane(Lane lane, int threads) {
+        String name = lane.name().toLowerCase(Locale.ROOT);
+        Timer queueWait = Timer.builder("runtime.lane.queue.wait")
+                .tag("lane", name)
+                .description("Time tasks spent queued before a lane thread picked them up")
+                .register(meterRegistry);
+        LaneExecutor executor = new LaneExecutor(name, Math.max(1, threads), queueWait);
+        Gauge.builder("runtime.lane.active", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("lane", name)
+                .register(meterRegistry);
+        Gauge.builder("runtime.lane.queued", executor, e -> e.getQueue().size())
+                .tag("lane", name)
+                .register(meterRegistry);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        System.out.println("Shutting down execution runtime lanes...");
+        for (LaneExecutor executor : lanes.values()) {
+            executor.shutdown();
+        }
+        for (LaneExecutor executor : lanes.values()) {
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class LaneExecutor extends ThreadPoolExecutor {
+        private final Timer queueWait;
+
+        private LaneExecutor(String name, int threads, Timer queueWait) {
+            super(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new LaneThreadFactory(name));
+            this.queueWait = queueWait;
+        }
+
+        // Every task, including the FutureTasks of submit(), passes through here
+        @Override
+        public void execute(Runnable task) {
+            long queuedAt = System.nanoTime();
+            super.execute(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            });
+        }
+    }
+
+    private static final class LaneThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private LaneThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "lane-" + name + "-" + count.incrementAndGet());
+        }
+    }
+}
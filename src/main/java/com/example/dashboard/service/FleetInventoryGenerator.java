@@ -0,0 +1,120 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import com.example.dashboard.model.Environment;
+import com.example.dashboard.model.Server;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic topology of simulation.inventory.services services, used instead of
+ * the YAML files when that property is above zero. Meant for the simulated backend: every
+ * server gets a 10.x.y.z address and services-per-server services with systemctl commands
+ * (Get-Service/Start-Service/Stop-Service on the windows-fraction of servers).
+ *
+ * The generated hosts do not exist, so the application refuses to start when the inventory
+ * is enabled with any other execution.backend.
+ */
+@Component
+public class FleetInventoryGenerator {
+
+    @Value("${simulation.inventory.services:0}")
+    private int services;
+
+    @Value("${simulation.inventory.services-per-server:5}")
+    private int servicesPerServer;
+
+    @Value("${simulation.inventory.servers-per-environment:20}")
+    private int serversPerEnvironment;
+
+    @Value("${simulation.inventory.environments-per-application:2}")
+    private int environmentsPerApplication;
+
+    @Value("${simulation.inventory.windows-fraction:0.1}")
+    private double windowsFraction;
+
+    @Value("${simulation.seed:42}")
+    private long seed;
+
+    @Value("${execution.backend:" + AnsibleCommandExecutor.NAME + "}")
+    private String backend;
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled() && !SimulatedFleetExecutor.NAME.equalsIgnoreCase(backend)) {
+            throw new IllegalStateException("simulation.inventory.services is set but execution.backend is '" + backend
+                    + "'; the generated inventory only works with the " + SimulatedFleetExecutor.NAME + " backend");
+        }
+    }
+
+    public boolean isEnabled() {
+        return services > 0;
+    }
+
+    // Same settings always produce the same topology, so the version is derived from them
+    public String getVersion() {
+        return "simulated-" + services + "-" + servicesPerServer + "-" + serversPerEnvironment + "-"
+                + environmentsPerApplication + "-" + seed;
+    }
+
+    public List<Application> generate() {
+        Random random = new Random(seed);
+        int perServer = Math.max(1, servicesPerServer);
+        int perEnvironment = Math.max(1, serversPerEnvironment);
+        int perApplication = Math.max(1, environmentsPerApplication);
+
+        List<Application> applications = new ArrayList<>();
+        Application application = null;
+        Environment environment = null;
+        int serverCount = 0;
+        int remaining = services;
+
+        while (remaining > 0) {
+            if (environment == null || environment.getServers().size() == perEnvironment) {
+                if (application == null || application.getEnvironments().size() == perApplication) {
+                    application = new Application();
+                    application.setName("sim-app-" + (applications.size() + 1));
+                    application.setEnvironments(new ArrayList<>());
+                    applications.add(application);
+                }
+                environment = new Environment();
+                environment.setName("env-" + (application.getEnvironments().size() + 1));
+                environment.setServers(new ArrayList<>());
+                application.getEnvironments().add(environment);
+            }
+
+            serverCount++;
+            Server server = new Server();
+            server.setName(application.getName() + "-" + environment.getName() + "-srv-" + (environment.getServers().size() + 1));
+            server.setIp("10." + ((serverCount >> 16) & 0xff) + "." + ((serverCount >> 8) & 0xff) + "." + (serverCount & 0xff));
+            server.setOs(random.nextDouble() < windowsFraction ? "windows" : "linux");
+            server.setServices(new ArrayList<>());
+            for (int i = 1; i <= perServer && remaining > 0; i++, remaining--) {
+                server.getServices().add(service("svc-" + i, server.getOs()));
+            }
+            environment.getServers().add(server);
+        }
+        return applications;
+    }
+
+    private com.example.dashboard.model.Service service(String name, String os) {
+        com.example.dashboard.model.Service service = new com.example.dashboard.model.Service();
+        service.setName(name);
+        service.setType("app");
+        if ("windows".equals(os)) {
+            service.setStatusCmd("Get-Service -Name " + name);
+            service.setStartupCmd("Start-Service -Name " + name);
+            service.setStopCmd("Stop-Service -Name " + name);
+        } else {
+            service.setStatusCmd("systemctl status " + name);
+            service.setStartupCmd("sudo systemctl restart " + name);
+            service.setStopCmd("sudo systemctl stop " + name);
+        }
+        return service;
+    }
+}
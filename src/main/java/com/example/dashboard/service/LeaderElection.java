@@ -0,0 +1,214 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.SchedulerLease;
+import com.example.dashboard.repository.SchedulerLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects one leader among the dashboard instances sharing a database, so that only the
+ * leader runs the scheduled status sweeps and auto-restarts while every instance serves
+ * the UI.
+ *
+ * Leadership is a row in SCHEDULER_LEASES held for leader.lease-seconds and renewed every
+ * leader.heartbeat-seconds from a thread of its own, so a long restart run cannot starve the
+ * heartbeat. Any instance takes over a lease that has expired, which increments the fencing
+ * token. An instance counts itself leader only until its own last successful renewal plus
+ * the lease time, measured on its monotonic clock, and before acting on a long-running job
+ * it checks the database that the lease is still held under the token it started with.
+ *
+ * Instance clocks are compared through EXPIRES_AT, so they should be kept in sync (NTP) to
+ * well within the lease time. With leader.election.enabled=false every instance is leader.
+ */
+@Component
+public class LeaderElection {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderElection.class);
+
+    static final String LEASE_NAME = "scheduled-jobs";
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Value("${leader.election.enabled:true}")
+    private boolean enabled;
+
+    @Value("${leader.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${leader.heartbeat-seconds:10}")
+    private long heartbeatSeconds;
+
+    @Value("${leader.instance-id:}")
+    private String configuredInstanceId;
+
+    private String instanceId;
+    private volatile Long fencingToken;
+    private volatile long leaderUntilNanos;
+    private volatile String lastError;
+
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "leader-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        instanceId = configuredInstanceId != null && !configuredInstanceId.isBlank()
+                ? configuredInstanceId : defaultInstanceId();
+        if (!enabled) {
+            logger.info("Leader election disabled, instance {} runs all scheduled jobs", instanceId);
+            return;
+        }
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public boolean isLeader() {
+        return !enabled || (fencingToken != null && System.nanoTime() < leaderUntilNanos);
+    }
+
+    // The fencing token while this instance is leader (0 with election disabled), else null
+    public Long getFencingToken() {
+        if (!enabled) {
+            return 0L;
+        }
+        Long token = fencingToken;
+        return token != null && isLeader() ? token : null;
+    }
+
+    /**
+     * Checks in the database that the lease is still held by this instance under the given
+     * token, i.e. that no other instance has taken over since the job started.
+     */
+    public boolean holdsLease(Long token) {
+        if (!enabled) {
+            return true;
+        }
+        if (token == null || !token.equals(getFencingToken())) {
+            return false;
+        }
+        try {
+            SchedulerLease lease = leaseRepository.findById(LEASE_NAME).orElse(null);
+            return lease != null && instanceId.equals(lease.getOwnerId()) && token.equals(lease.getFencingToken())
+                    && lease.getExpiresAt().isAfter(Instant.now());
+        } catch (Exception e) {
+            logger.warn("Could not verify scheduler lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    void heartbeat() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusSeconds(leaseSeconds);
+        try {
+            Long token = fencingToken;
+            if (token != null) {
+                if (leaseRepository.renew(LEASE_NAME, instanceId, token, now, expiresAt) == 1) {
+                    leaderUntilNanos = start + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                    lastError = null;
+                    return;
+                }
+                lose("lease was taken over by another instance");
+            }
+
+            if (leaseRepository.takeOver(LEASE_NAME, instanceId, now, expiresAt) == 1 || create(now, expiresAt)) {
+                SchedulerLease lease = leaseRepository.findById(LEASE_NAME).orElse(null);
+                if (lease != null && instanceId.equals(lease.getOwnerId())) {
+                    leaderUntilNanos = start + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                    fencingToken = lease.getFencingToken();
+                    logger.info("Instance {} is now leader for scheduled jobs (fencing token {})", instanceId,
+                            lease.getFencingToken());
+                }
+            }
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Scheduler lease heartbeat failed: {}", e.getMessage());
+            // Without renewals the lease runs out on its own; stop acting as leader when it does
+            if (fencingToken != null && System.nanoTime() >= leaderUntilNanos) {
+                lose("lease could not be renewed");
+            }
+        }
+    }
+
+    // Inserts the lease row on first use; false when another instance created it first
+    private boolean create(Instant now, Instant expiresAt) {
+        if (leaseRepository.findById(LEASE_NAME).isPresent()) {
+            return false;
+        }
+        try {
+            leaseRepository.saveAndFlush(new SchedulerLease(LEASE_NAME, instanceId, 1L, now, now, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void lose(String reason) {
+        logger.warn("Instance {} is no longer leader for scheduled jobs: {}", instanceId, reason);
+        fencingToken = null;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("instanceId", instanceId);
+        status.put("leader", isLeader());
+        status.put("fencingToken", getFencingToken());
+        if (enabled) {
+            try {
+                SchedulerLease lease = leaseRepository.findById(LEASE_NAME).orElse(null);
+                if (lease != null) {
+                    status.put("leaseOwner", lease.getOwnerId());
+                    status.put("leaseToken", lease.getFencingToken());
+                    status.put("leaseExpiresAt", lease.getExpiresAt().toString());
+                }
+            } catch (Exception e) {
+                status.put("leaseError", e.getMessage());
+            }
+            status.put("lastHeartbeatError", lastError);
+        }
+        return status;
+    }
+
+    // pid@host, plus a random part that keeps two instances in one JVM (or a restarted one) apart
+    private static String defaultInstanceId() {
+        return ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        Long token = fencingToken;
+        if (enabled && token != null) {
+            try {
+                leaseRepository.release(LEASE_NAME, instanceId, token, Instant.now());
+                logger.info("Instance {} released the scheduler lease", instanceId);
+            } catch (Exception e) {
+                logger.warn("Could not release scheduler lease: {}", e.getMessage());
+            }
+            fencingToken = null;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.dashboard.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live output of service operations, published line by line while the remote command runs
+ * and delivered to browsers as server-sent events.
+ *
+ * A stream exists only once the operation was opened with open(), and it belongs to the user
+ * who opened it: only that user can subscribe to it, and lines published for an id that was
+ * never opened are dropped.
+ *
+ * Each operation keeps the last operations.stream.replay-lines lines so a subscriber that
+ * connects late (or reconnects with Last-Event-ID) is caught up first. Every subscriber has
+ * its own bounded queue flushed on the sender executor: the thread reading the process
+ * output never blocks on a slow browser, and a subscriber that falls behind loses lines
+ * (and is told how many) instead of growing memory.
+ */
+@Component
+public class OperationOutputHub {
+
+    @Value("${operations.stream.replay-lines:500}")
+    private int replayLines;
+
+    @Value("${operations.stream.subscriber-buffer:1000}")
+    private int subscriberBuffer;
+
+    @Value("${operations.stream.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${operations.stream.retention-seconds:120}")
+    private long retentionSeconds;
+
+    private final Map<String, OperationStream> streams = new ConcurrentHashMap<>();
+
+    private final ExecutorService senderExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "operation-stream-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "operation-stream-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        cleanupExecutor.scheduleWithFixedDelay(this::removeExpired, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a stream for a new operation of the given user and returns its id. The dashboard
+     * opens one and subscribes to it before sending the operation request, so that no line is
+     * missed.
+     */
+    public String open(String owner) {
+        String operationId = UUID.randomUUID().toString();
+        open(operationId, owner);
+        return operationId;
+    }
+
+    // For operations that have an id of their own, e.g. rolling restarts
+    public void open(String operationId, String owner) {
+        if (streams.putIfAbsent(operationId, new OperationStream(owner)) != null) {
+            throw new IllegalArgumentException("Operation " + operationId + " already exists");
+        }
+    }
+
+    public boolean isOwner(String operationId, String user) {
+        OperationStream stream = streams.get(operationId);
+        return stream != null && Objects.equals(stream.owner, user);
+    }
+
+    public void publish(String operationId, String line) {
+        OperationStream stream = streams.get(operationId);
+        if (stream != null) {
+            stream.append("line", line);
+        }
+    }
+
+    /**
+     * Marks the operation as finished. Subscribers receive a final "done" event and are
+     * closed; the replay buffer stays available for retention-seconds.
+     */
+    public void complete(String operationId, String status) {
+        OperationStream stream = streams.get(operationId);
+        if (stream == null) {
+            return;
+        }
+        stream.append("done", status);
+        stream.finish();
+    }
+
+    /**
+     * Subscribes the user to an opened operation, which need not have started yet. Returns
+     * null when there is no such operation or it belongs to another user.
+     */
+    public SseEmitter subscribe(String operationId, String user, Long lastEventId) {
+        OperationStream stream = streams.get(operationId);
+        if (stream == null || !Objects.equals(stream.owner, user)) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        stream.subscribe(new Subscriber(emitter), lastEventId != null ? lastEventId : 0);
+        return emitter;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int subscribers = 0;
+        int running = 0;
+        for (OperationStream stream : streams.values()) {
+            subscribers += stream.subscribers.size();
+            if (!stream.finished) running++;
+        }
+        stats.put("operations", streams.size());
+        stats.put("running", running);
+        stats.put("subscribers", subscribers);
+        return stats;
+    }
+
+    // Finished operations are kept for late subscribers; abandoned ones time out like an emitter
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        streams.entrySet().removeIf(entry -> {
+            OperationStream stream = entry.getValue();
+            long idleMs = now - stream.lastActivity;
+            return stream.finished ? idleMs > retentionSeconds * 1000 : idleMs > emitterTimeoutMs;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdownNow();
+        // Close the subscribers first; their last flush still needs the sender executor
+        streams.values().forEach(OperationStream::finish);
+        senderExecutor.shutdown();
+    }
+
+    private static final class Event {
+        private final long id;
+        private final String name;
+        private final String data;
+
+        private Event(long id, String name, String data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private final class OperationStream {
+        private final String owner;
+        private final Deque<Event> replay = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private long nextId = 1;
+        private volatile boolean finished;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        private OperationStream(String owner) {
+            this.owner = owner;
+        }
+
+        private synchronized void append(String name, String data) {
+            Event event = new Event(nextId++, name, data);
+            replay.addLast(event);
+            if (replay.size() > replayLines) {
+                replay.removeFirst();
+            }
+            lastActivity = System.currentTimeMillis();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+
+        // Replay and registration happen under the stream lock, so nothing is sent twice or lost
+        private synchronized void subscribe(Subscriber subscriber, long afterId) {
+            for (Event event : replay) {
+                if (event.id > afterId) {
+                    subscriber.offer(event);
+                }
+            }
+            if (finished) {
+                subscriber.closeAfterFlush();
+                return;
+            }
+            subscribers.add(subscriber);
+            subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+            subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+            subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        }
+
+        private synchronized void finish() {
+            finished = true;
+            lastActivity = System.currentTimeMillis();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.closeAfterFlush();
+            }
+            subscribers.clear();
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(Math.max(1, subscriberBuffer));
+        private final AtomicBoolean flushing = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closing;
+        private volatile boolean gone;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+            if (gone) return;
+            // The final event must get through, so it takes the place of the oldest queued line
+            while (!queue.offer(event)) {
+                if (!"done".equals(event.name)) {
+                    dropped.incrementAndGet();
+                    break;
+                }
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            scheduleFlush();
+        }
+
+        private void closeAfterFlush() {
+            closing = true;
+            scheduleFlush();
+        }
+
+        private void scheduleFlush() {
+            if (flushing.compareAndSet(false, true)) {
+                senderExecutor.execute(this::flush);
+            }
+        }
+
+        private void flush() {
+            try {
+                Event event;
+                while (!gone && (event = queue.poll()) != null) {
+                    long skipped = dropped.getAndSet(0);
+                    if (skipped > 0) {
+                        emitter.send(SseEmitter.event().name("line")
+                                .data("... [" + skipped + " lines skipped, output arrived faster than it could be sent] ..."));
+                    }
+                    emitter.send(SseEmitter.event().id(String.valueOf(event.id)).name(event.name).data(event.data));
+                }
+                if (closing && !gone && queue.isEmpty()) {
+                    gone = true;
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Browser went away; stop queueing for it
+                gone = true;
+                queue.clear();
+            } finally {
+                flushing.set(false);
+            }
+            // Events offered while the flag was still set would otherwise wait for the next line
+            if (!gone && (!queue.isEmpty() || closing)) {
+                scheduleFlush();
+            }
+        }
+    }
+}
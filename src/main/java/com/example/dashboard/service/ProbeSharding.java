@@ -0,0 +1,308 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.DashboardNode;
+import com.example.dashboard.model.ServiceStatusRecord;
+import com.example.dashboard.repository.DashboardNodeRepository;
+import com.example.dashboard.repository.ServiceStatusRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the status probes between the dashboard instances sharing a database, so that
+ * sweep capacity grows with the number of instances.
+ *
+ * Every instance registers in DASHBOARD_NODES and refreshes its row every
+ * probe.sharding.heartbeat-seconds; instances seen within node-timeout-seconds are the
+ * members. Server IPs are placed on a consistent hash ring of the members (virtual-nodes
+ * points each), and an instance probes only the servers that map to it. When an instance
+ * joins or leaves, only the servers between its points move, and the next sweep of each
+ * instance picks up its new share.
+ *
+ * Each instance writes the statuses it checked to SERVICE_STATUSES in JDBC batches. Every
+ * refresh-seconds it reads back only the rows other instances wrote since its previous read
+ * (with some overlap for clock skew and late commits), and the whole table every
+ * full-refresh-minutes; the leader then also deletes rows nobody has checked for
+ * status-retention-minutes, such as those of services removed from the topology. The
+ * fleet-wide view takes the most recently checked status per service of the current
+ * topology from the local and the shared results. An instance that has no current view of
+ * the members (database unreachable) probes every server rather than leave some unchecked.
+ */
+@Component
+public class ProbeSharding {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProbeSharding.class);
+
+    @Autowired
+    private DashboardNodeRepository nodeRepository;
+
+    @Autowired
+    private ServiceStatusRepository statusRepository;
+
+    @Autowired
+    private LeaderElection leaderElection;
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Value("${probe.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${probe.sharding.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${probe.sharding.heartbeat-seconds:10}")
+    private long heartbeatSeconds;
+
+    @Value("${probe.sharding.node-timeout-seconds:30}")
+    private long nodeTimeoutSeconds;
+
+    @Value("${probe.sharding.refresh-seconds:15}")
+    private long refreshSeconds;
+
+    @Value("${probe.sharding.full-refresh-minutes:10}")
+    private long fullRefreshMinutes;
+
+    @Value("${probe.sharding.status-retention-minutes:60}")
+    private long statusRetentionMinutes;
+
+    // Incremental reads go back this far before the previous read, for clock skew and late commits
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
+
+    private String nodeId;
+    private volatile List<String> members = Collections.emptyList();
+    private volatile NavigableMap<Long, String> ring = Collections.emptyNavigableMap();
+    private volatile long membershipUntilNanos;
+    private volatile Map<String, ServiceStatusRecord> sharedStatuses = new ConcurrentHashMap<>();
+    // Start of the last successful read and of the last full read; only used on the sync thread
+    private Instant lastRefreshAt;
+    private long lastFullRefreshNanos;
+    private volatile String lastError;
+
+    // Membership has a thread of its own so that a large status write cannot delay the heartbeat
+    private final ScheduledExecutorService membershipExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "probe-shard-membership");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "probe-shard-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        nodeId = leaderElection.getInstanceId();
+        if (!enabled) {
+            return;
+        }
+        membershipExecutor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatSeconds, TimeUnit.SECONDS);
+        syncExecutor.scheduleWithFixedDelay(this::refreshSharedStatuses, 0, refreshSeconds, TimeUnit.SECONDS);
+        logger.info("Probe sharding enabled for node {}", nodeId);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Whether this instance should probe the server with the given IP
+    public boolean owns(String ip) {
+        if (!enabled) {
+            return true;
+        }
+        // Without a current view of the members, probe everything rather than leave servers unchecked
+        if (System.nanoTime() >= membershipUntilNanos) {
+            return true;
+        }
+        return nodeId.equals(ownerOf(ip));
+    }
+
+    String ownerOf(String ip) {
+        NavigableMap<Long, String> current = ring;
+        if (current.isEmpty()) {
+            return nodeId;
+        }
+        Map.Entry<Long, String> entry = current.ceilingEntry(hash(String.valueOf(ip)));
+        return entry != null ? entry.getValue() : current.firstEntry().getValue();
+    }
+
+    void heartbeat() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        try {
+            if (nodeRepository.touch(nodeId, now) == 0) {
+                nodeRepository.save(new DashboardNode(nodeId, now, now));
+                logger.info("Node {} joined probe sharding", nodeId);
+            }
+            nodeRepository.deleteStale(now.minusSeconds(nodeTimeoutSeconds * 10));
+
+            List<String> live = new ArrayList<>();
+            for (DashboardNode node : nodeRepository.findByHeartbeatAtAfter(now.minusSeconds(nodeTimeoutSeconds))) {
+                live.add(node.getNodeId());
+            }
+            if (!live.contains(nodeId)) {
+                live.add(nodeId);
+            }
+            Collections.sort(live);
+            if (!live.equals(members)) {
+                logger.info("Probe shard members changed from {} to {}", members, live);
+                ring = buildRing(live);
+                members = Collections.unmodifiableList(live);
+            }
+            membershipUntilNanos = start + TimeUnit.SECONDS.toNanos(nodeTimeoutSeconds);
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Probe shard heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private NavigableMap<Long, String> buildRing(List<String> nodes) {
+        NavigableMap<Long, String> points = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+        return points;
+    }
+
+    // First 8 bytes of the MD5 digest: the same on every instance, and spread evenly
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    // Writes statuses checked by this instance to the shared view, off the caller's thread
+    public void publish(List<ServiceStatusRecord> records) {
+        if (!enabled || records.isEmpty()) {
+            return;
+        }
+        syncExecutor.execute(() -> {
+            try {
+                statusRepository.upsertAll(records, Instant.now());
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                logger.warn("Could not publish {} service statuses: {}", records.size(), e.getMessage());
+            }
+        });
+    }
+
+    void refreshSharedStatuses() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        try {
+            if (lastRefreshAt == null || start - lastFullRefreshNanos >= TimeUnit.MINUTES.toNanos(fullRefreshMinutes)) {
+                if (leaderElection.isLeader()) {
+                    int pruned = statusRepository.deleteCheckedBefore(now.minus(statusRetentionMinutes, ChronoUnit.MINUTES));
+                    if (pruned > 0) {
+                        logger.info("Pruned {} service statuses not checked for {} minutes", pruned, statusRetentionMinutes);
+                    }
+                }
+                // A fresh map also drops rows deleted since the last full read
+                Map<String, ServiceStatusRecord> statuses = new ConcurrentHashMap<>();
+                for (ServiceStatusRecord record : statusRepository.findAll()) {
+                    statuses.put(record.getServiceKey(), record);
+                }
+                sharedStatuses = statuses;
+                lastFullRefreshNanos = start;
+            } else {
+                Map<String, ServiceStatusRecord> statuses = sharedStatuses;
+                for (ServiceStatusRecord record : statusRepository.findByUpdatedAtAfterAndCheckedByNot(
+                        lastRefreshAt.minusSeconds(REFRESH_OVERLAP_SECONDS), nodeId)) {
+                    statuses.merge(record.getServiceKey(), record,
+                            (known, read) -> read.getCheckedAt().isBefore(known.getCheckedAt()) ? known : read);
+                }
+            }
+            lastRefreshAt = now;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Could not read shared service statuses: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The fleet-wide view: for each service, the local or shared status, whichever was
+     * checked last. checkedAtMs holds the check times of the local statuses. Shared rows of
+     * services that are not in the current topology are left out.
+     */
+    public Map<String, String> merge(Map<String, String> local, Map<String, Long> checkedAtMs) {
+        Map<String, String> merged = new HashMap<>(local);
+        Set<String> topologyKeys = topologyIndex.getKeys();
+        for (ServiceStatusRecord record : sharedStatuses.values()) {
+            if (!topologyKeys.contains(record.getServiceKey())) {
+                continue;
+            }
+            Long localCheckedAt = checkedAtMs.get(record.getServiceKey());
+            if (localCheckedAt == null || record.getCheckedAt().toEpochMilli() > localCheckedAt) {
+                merged.put(record.getServiceKey(), record.getStatus());
+            }
+        }
+        return merged;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("nodeId", nodeId);
+        if (enabled) {
+            status.put("members", members);
+            status.put("membershipCurrent", System.nanoTime() < membershipUntilNanos);
+            status.put("virtualNodes", virtualNodes);
+            status.put("sharedStatuses", sharedStatuses.size());
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        membershipExecutor.shutdownNow();
+        syncExecutor.shutdown();
+        if (enabled) {
+            try {
+                // Lets the other instances take over this node's servers at their next heartbeat
+                nodeRepository.deleteById(nodeId);
+            } catch (Exception e) {
+                logger.warn("Could not deregister node {}: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+}
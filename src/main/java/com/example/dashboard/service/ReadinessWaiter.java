@@ -0,0 +1,164 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for a freshly started service to come up. The service's healthUrl is polled when it
+ * declares one (any 2xx answer means ready), otherwise its status command. Polls start
+ * restart.readiness.initial-interval-ms after the start command and back off exponentially
+ * up to max-interval-ms, until the service's readyTimeoutSeconds (or the default
+ * restart.readiness.timeout-seconds) has passed.
+ *
+ * Time-to-ready is recorded per application and service as the service.time.to.ready timer,
+ * tagged with the outcome.
+ */
+@Component
+public class ReadinessWaiter {
+
+    @Autowired
+    private AnsibleExecutionService ansibleExecutionService;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${restart.readiness.timeout-seconds:180}")
+    private long defaultTimeoutSeconds;
+
+    @Value("${restart.readiness.initial-interval-ms:1000}")
+    private long initialIntervalMs;
+
+    @Value("${restart.readiness.max-interval-ms:15000}")
+    private long maxIntervalMs;
+
+    @Value("${restart.readiness.multiplier:2.0}")
+    private double multiplier;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * Outcome of one wait: whether the service came up, after how long and how many polls.
+     */
+    public static final class Result {
+        private final boolean ready;
+        private final long timeToReadyMs;
+        private final int attempts;
+        private final String lastStatus;
+
+        private Result(boolean ready, long timeToReadyMs, int attempts, String lastStatus) {
+            this.ready = ready;
+            this.timeToReadyMs = timeToReadyMs;
+            this.attempts = attempts;
+            this.lastStatus = lastStatus;
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public long getTimeToReadyMs() {
+            return timeToReadyMs;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getLastStatus() {
+            return lastStatus;
+        }
+
+        @Override
+        public String toString() {
+            return (ready ? "ready after " : "not ready after ") + timeToReadyMs + " ms, " + attempts
+                    + " checks, last status " + lastStatus;
+        }
+    }
+
+    /**
+     * Blocks until the service is up or its deadline passes. statusCommand is the command
+     * to poll when the service has no healthUrl, already adjusted for the OS by the caller
+     * (null to rely on healthUrl only, in which case a service without one counts as ready).
+     */
+    public Result await(String application, Server server, Service service, String statusCommand)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long timeoutSeconds = service.getReadyTimeoutSeconds() != null ? service.getReadyTimeoutSeconds() : defaultTimeoutSeconds;
+        long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        long interval = Math.max(1, initialIntervalMs);
+        boolean useHealthUrl = service.getHealthUrl() != null && !service.getHealthUrl().isBlank();
+
+        if (!useHealthUrl && statusCommand == null) {
+            return record(application, service, new Result(true, 0, 0, "no status check configured"));
+        }
+
+        int attempts = 0;
+        String status = "unknown";
+        while (true) {
+            // Give the service a moment before the first check, and back off between checks
+            long sleepMs = Math.min(interval, Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            Thread.sleep(sleepMs);
+
+            attempts++;
+            status = useHealthUrl ? checkHealthUrl(service.getHealthUrl()) : checkStatus(application, server, service, statusCommand);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if ("up".equals(status)) {
+                return record(application, service, new Result(true, elapsedMs, attempts, status));
+            }
+            if (System.nanoTime() >= deadline) {
+                return record(application, service, new Result(false, elapsedMs, attempts, status));
+            }
+            interval = Math.min(maxIntervalMs, Math.max(interval + 1, (long) (interval * multiplier)));
+        }
+    }
+
+    private String checkStatus(String application, Server server, Service service, String statusCommand) {
+        return serviceStatusMonitor.parseStatus(ansibleExecutionService.executeCommand(application, server.getIp(),
+                statusCommand, server.getOs(), service.getType()));
+    }
+
+    private String checkHealthUrl(String healthUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            int code = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return code >= 200 && code < 300 ? "up" : "HTTP " + code;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } catch (Exception e) {
+            return "unreachable (" + e.getMessage() + ")";
+        }
+    }
+
+    private Result record(String application, Service service, Result result) {
+        Timer.builder("service.time.to.ready")
+                .description("Time from a service's start command until it reported ready")
+                .tag("application", String.valueOf(application))
+                .tag("service", String.valueOf(service.getName()))
+                .tag("outcome", result.isReady() ? "ready" : "timeout")
+                .register(meterRegistry)
+                .record(result.getTimeToReadyMs(), TimeUnit.MILLISECONDS);
+        System.out.println("Service " + service.getName() + " on " + application + ": " + result);
+        return result;
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.dashboard.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Central limit on remote command execution: at most remote.execution.per-host-limit
+ * concurrent commands per host and remote.execution.global-limit in flight overall,
+ * whichever thread pool or request thread they come from.
+ *
+ * Work waits in a FIFO queue per host instead of on a thread. When a slot frees, the next
+ * queued item is admitted: hosts with queued work and a free host slot take turns for the
+ * global budget, so a busy host never holds a global slot for work that cannot start and
+ * other hosts keep being served. Work submitted with submit() only reaches its executor
+ * once admitted, so a server with many services does not park the threads of a lane.
+ */
+@Component
+public class RemoteExecutionGate {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${remote.execution.per-host-limit:2}")
+    private int perHostLimit;
+
+    @Value("${remote.execution.global-limit:20}")
+    private int globalLimit;
+
+    // Guarded by this
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+    // Hosts with queued work and a free host slot, in the order they get the global budget
+    private final ArrayDeque<HostQueue> readyHosts = new ArrayDeque<>();
+    private int admitted;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private Timer waitTimer;
+    private ScheduledThreadPoolExecutor timeouts;
+
+    @PostConstruct
+    public void init() {
+        waitTimer = Timer.builder("remote.execution.wait")
+                .description("Time spent queued for a per-host slot and the global execution budget")
+                .register(meterRegistry);
+        Gauge.builder("remote.execution.in_flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("remote.execution.waiting", waiting, AtomicInteger::get).register(meterRegistry);
+
+        timeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "remote-gate-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timeouts.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeouts.shutdownNow();
+    }
+
+    /**
+     * Runs the action on the calling thread once a slot for the host and one from the global
+     * budget are held.
+     */
+    public <T> T execute(String host, Callable<T> action) throws Exception {
+        return execute(host, Long.MAX_VALUE, action);
+    }
+
+    /**
+     * As above, giving up with a TimeoutException if no slot is free within timeoutNanos.
+     * Meant for request threads and steps that must run in sequence; pool threads should use
+     * submit() so they are not held while the host is busy.
+     */
+    public <T> T execute(String host, long timeoutNanos, Callable<T> action) throws Exception {
+        return execute(host, timeoutNanos, action, null);
+    }
+
+    /**
+     * As above; onQueued (when not null) is given the caller's place in the queue. Cancelling
+     * that future ends the wait with a CancellationException, e.g. when the command is cancelled
+     * while its host is busy.
+     */
+    public <T> T execute(String host, long timeoutNanos, Callable<T> action, Consumer<Future<?>> onQueued)
+            throws Exception {
+        CompletableFuture<Void> turn = new CompletableFuture<>();
+        Ticket ticket = new Ticket();
+        ticket.start = () -> turn.complete(null);
+        enqueue(host, ticket);
+        try {
+            if (onQueued != null) {
+                onQueued.accept(turn);
+            }
+            if (timeoutNanos == Long.MAX_VALUE) {
+                turn.get();
+            } else {
+                turn.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException | InterruptedException | CancellationException e) {
+            if (withdraw(ticket)) {
+                if (e instanceof TimeoutException) {
+                    throw new TimeoutException("No execution slot on " + host + " became free in time");
+                }
+                throw e;
+            }
+            // Admitted just as the wait ended: the slot is ours, so give it back
+            release(ticket);
+            throw e;
+        }
+
+        inFlight.incrementAndGet();
+        try {
+            return action.call();
+        } finally {
+            inFlight.decrementAndGet();
+            release(ticket);
+        }
+    }
+
+    /**
+     * Queues the action for the host and runs it on the executor once admitted; no thread is
+     * held while it waits. The future fails with a TimeoutException if the action was not
+     * admitted within timeoutNanos. Cancelling the future while the action is still queued
+     * removes it from the queue.
+     */
+    public <T> CompletableFuture<T> submit(String host, long timeoutNanos, Executor executor, Callable<T> action) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Ticket ticket = new Ticket();
+        Runnable task = () -> {
+            if (future.isDone()) {
+                release(ticket); // cancelled after it was admitted
+                return;
+            }
+            T result = null;
+            Throwable failure = null;
+            inFlight.incrementAndGet();
+            try {
+                result = action.call();
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                inFlight.decrementAndGet();
+                // Before completing, so the host's next item is not held up by what the caller chains on
+                release(ticket);
+            }
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        };
+        ticket.start = () -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                release(ticket);
+                future.completeExceptionally(e);
+            }
+        };
+        enqueue(host, ticket);
+
+        if (timeoutNanos != Long.MAX_VALUE) {
+            ScheduledFuture<?> timeout = timeouts.schedule(() -> {
+                if (withdraw(ticket)) {
+                    future.completeExceptionally(new TimeoutException("No execution slot on " + host + " became free in time"));
+                }
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
+            future.whenComplete((result, error) -> timeout.cancel(false));
+        }
+        future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                withdraw(ticket);
+            }
+        });
+        return future;
+    }
+
+    private void enqueue(String host, Ticket ticket) {
+        List<Ticket> admittedNow;
+        synchronized (this) {
+            HostQueue hostQueue = hosts.computeIfAbsent(String.valueOf(host), HostQueue::new);
+            ticket.hostQueue = hostQueue;
+            ticket.queuedAt = System.nanoTime();
+            hostQueue.queued.add(ticket);
+            waiting.incrementAndGet();
+            markReady(hostQueue);
+            admittedNow = admit();
+        }
+        startAll(admittedNow);
+    }
+
+    // Removes a ticket that is still queued; false if it was admitted already
+    private boolean withdraw(Ticket ticket) {
+        synchronized (this) {
+            if (ticket.admitted || !ticket.hostQueue.queued.remove(ticket)) {
+                return false;
+            }
+            waiting.decrementAndGet();
+            forgetIfIdle(ticket.hostQueue);
+            return true;
+        }
+    }
+
+    private void release(Ticket ticket) {
+        List<Ticket> admittedNow;
+        synchronized (this) {
+            if (ticket.released) {
+                return;
+            }
+            ticket.released = true;
+            HostQueue hostQueue = ticket.hostQueue;
+            hostQueue.running--;
+            admitted--;
+            markReady(hostQueue);
+            admittedNow = admit();
+            forgetIfIdle(hostQueue);
+        }
+        startAll(admittedNow);
+    }
+
+    // Takes one ticket from each ready host in turn while the global budget lasts
+    private List<Ticket> admit() {
+        List<Ticket> admittedNow = new ArrayList<>();
+        while (admitted < globalLimit && !readyHosts.isEmpty()) {
+            HostQueue hostQueue = readyHosts.poll();
+            hostQueue.ready = false;
+            Ticket ticket = hostQueue.queued.poll();
+            if (ticket == null) {
+                continue; // its queued work was withdrawn
+            }
+            ticket.admitted = true;
+            hostQueue.running++;
+            admitted++;
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - ticket.queuedAt, TimeUnit.NANOSECONDS);
+            admittedNow.add(ticket);
+            markReady(hostQueue);
+        }
+        return admittedNow;
+    }
+
+    private void markReady(HostQueue hostQueue) {
+        if (!hostQueue.ready && hostQueue.running < perHostLimit && !hostQueue.queued.isEmpty()) {
+            hostQueue.ready = true;
+            readyHosts.add(hostQueue);
+        }
+    }
+
+    private void forgetIfIdle(HostQueue hostQueue) {
+        if (hostQueue.running == 0 && hostQueue.queued.isEmpty() && !hostQueue.ready) {
+            hosts.remove(hostQueue.host);
+        }
+    }
+
+    // Outside the lock: starting may run on this thread or hand over to an executor
+    private static void startAll(List<Ticket> tickets) {
+        for (Ticket ticket : tickets) {
+            ticket.start.run();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("perHostLimit", perHostLimit);
+        stats.put("globalLimit", globalLimit);
+        stats.put("inFlight", inFlight.get());
+        stats.put("waiting", waiting.get());
+        stats.put("waitMeanMs", waitTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("waitMaxMs", waitTimer.max(TimeUnit.MILLISECONDS));
+
+        Map<String, Map<String, Integer>> busyHosts = new HashMap<>();
+        synchronized (this) {
+            stats.put("admitted", admitted);
+            hosts.forEach((host, hostQueue) -> {
+                Map<String, Integer> usage = new HashMap<>();
+                usage.put("running", hostQueue.running);
+                usage.put("queued", hostQueue.queued.size());
+                busyHosts.put(host, usage);
+            });
+        }
+        stats.put("busyHosts", busyHosts);
+        return stats;
+    }
+
+    private static final class HostQueue {
+        private final String host;
+        private final ArrayDeque<Ticket> queued = new ArrayDeque<>();
+        private int running;
+        private boolean ready;
+
+        private HostQueue(String host) {
+            this.host = host;
+        }
+    }
+
+    // hostQueue, queuedAt, admitted and released are guarded by the gate
+    private static final class Ticket {
+        private Runnable start;
+        private HostQueue hostQueue;
+        private long queuedAt;
+        private boolean admitted;
+        private boolean released;
+    }
+}
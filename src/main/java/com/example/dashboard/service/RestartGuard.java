@@ -0,0 +1,381 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.RestartOutcome;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps automatic remediation from turning into a restart storm.
+ *
+ * Circuit breaker per service key: after restart.breaker.failure-threshold failed restarts
+ * within window-minutes the circuit opens and the service is not restarted for open-minutes.
+ * Then a single trial restart is let through (half-open); it closes the circuit when it
+ * succeeds and opens it again when it fails.
+ *
+ * Rate limits: every restart takes a token from its host's bucket (restart.rate.per-host
+ * per minute) and from the global bucket (restart.rate.global per minute); a group restart
+ * takes one for every member, on the member's host. Buckets hold at most one minute's worth
+ * of tokens. A restart waits up to restart.rate.max-wait-seconds for its tokens and is
+ * throttled after that. The wait happens before the restart is handed to a lane: admission
+ * is retried on a timer, so no lane thread sleeps on a bucket.
+ *
+ * RemoteExecutionGate still limits how many commands run at once; these limits are on how
+ * often restarts are started.
+ */
+@Component
+public class RestartGuard {
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${restart.breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${restart.breaker.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${restart.breaker.open-minutes:30}")
+    private long openMinutes;
+
+    @Value("${restart.rate.per-host:5}")
+    private int perHostPerMinute;
+
+    @Value("${restart.rate.global:60}")
+    private int globalPerMinute;
+
+    @Value("${restart.rate.max-wait-seconds:30}")
+    private long maxWaitSeconds;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> hostBuckets = new ConcurrentHashMap<>();
+    private TokenBucket globalBucket;
+
+    private final AtomicLong rejectedByBreaker = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "restart-guard-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        globalBucket = new TokenBucket(globalPerMinute);
+        Gauge.builder("restart.breaker.open", circuits, c -> countNotClosed()).register(meterRegistry);
+        Gauge.builder("restart.breaker.rejected", rejectedByBreaker, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("restart.rate.throttled", throttled, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Decides whether the service may be restarted. The future completes with null once it
+     * may, after waiting for rate limit tokens if needed, otherwise with a SKIPPED or
+     * THROTTLED outcome. A restart that was let through must be reported back with
+     * recordResult, or with release when it does not happen after all. hosts has one entry
+     * per restart the admission covers: the service's host, or every member's host for a
+     * group. Cancelling the future gives up the wait.
+     */
+    public CompletableFuture<RestartOutcome> admit(String key, List<String> hosts) {
+        Circuit circuit = circuits.computeIfAbsent(key, k -> new Circuit());
+        String rejection = circuit.tryEnter(System.currentTimeMillis());
+        if (rejection != null) {
+            rejectedByBreaker.incrementAndGet();
+            return CompletableFuture.completedFuture(
+                    new RestartOutcome(key, RestartOutcome.Status.SKIPPED, "circuit open, " + rejection));
+        }
+
+        // Host buckets first, so a busy host does not hold global tokens while waiting
+        Map<TokenBucket, Integer> tokens = new LinkedHashMap<>();
+        for (String host : hosts) {
+            if (host != null) {
+                tokens.merge(hostBuckets.computeIfAbsent(host, h -> new TokenBucket(perHostPerMinute)), 1, Integer::sum);
+            }
+        }
+        tokens.put(globalBucket, Math.max(1, hosts.size()));
+
+        CompletableFuture<RestartOutcome> admission = new CompletableFuture<>();
+        admission.whenComplete((outcome, error) -> {
+            if (admission.isCancelled()) {
+                circuit.leave();
+            }
+        });
+        tryAdmit(admission, key, hosts, circuit, tokens, System.nanoTime() + TimeUnit.SECONDS.toNanos(maxWaitSeconds));
+        return admission;
+    }
+
+    private void tryAdmit(CompletableFuture<RestartOutcome> admission, String key, List<String> hosts, Circuit circuit,
+                          Map<TokenBucket, Integer> tokens, long deadline) {
+        if (admission.isDone()) {
+            return;
+        }
+        if (takeAll(tokens)) {
+            if (!admission.complete(null)) {
+                giveBackAll(tokens, tokens.size());
+            }
+            return;
+        }
+        long waitNanos = 0;
+        for (Map.Entry<TokenBucket, Integer> entry : tokens.entrySet()) {
+            waitNanos = Math.max(waitNanos, entry.getKey().nanosUntilTokens(entry.getValue()));
+        }
+        if (System.nanoTime() + waitNanos > deadline) {
+            circuit.leave();
+            throttled.incrementAndGet();
+            admission.complete(new RestartOutcome(key, RestartOutcome.Status.THROTTLED, "restart rate limit reached"
+                    + (hosts.size() == 1 && hosts.get(0) != null ? " for " + hosts.get(0) : "") + " ("
+                    + perHostPerMinute + "/min per host, " + globalPerMinute + "/min overall)"));
+            return;
+        }
+        try {
+            retryTimer.schedule(() -> tryAdmit(admission, key, hosts, circuit, tokens, deadline),
+                    Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            circuit.leave();
+            admission.complete(RestartOutcome.error(key, "shutting down"));
+        }
+    }
+
+    // Takes the tokens from every bucket, or from none
+    private boolean takeAll(Map<TokenBucket, Integer> tokens) {
+        int taken = 0;
+        for (Map.Entry<TokenBucket, Integer> entry : tokens.entrySet()) {
+            if (!entry.getKey().tryTake(entry.getValue())) {
+                giveBackAll(tokens, taken);
+                return false;
+            }
+            taken++;
+        }
+        return true;
+    }
+
+    // Returns the tokens of the first count buckets
+    private void giveBackAll(Map<TokenBucket, Integer> tokens, int count) {
+        int index = 0;
+        for (Map.Entry<TokenBucket, Integer> entry : tokens.entrySet()) {
+            if (index++ == count) {
+                break;
+            }
+            entry.getKey().giveBack(entry.getValue());
+        }
+    }
+
+    // The admitted restart did not happen after all, e.g. it was cancelled before it started
+    public void release(String key) {
+        Circuit circuit = circuits.get(key);
+        if (circuit != null) {
+            circuit.leave();
+        }
+    }
+
+    public void recordResult(String key, boolean success) {
+        Circuit circuit = circuits.get(key);
+        if (circuit != null && circuit.record(success, System.currentTimeMillis())) {
+            // Nothing to remember about a healthy service
+            circuits.remove(key, circuit);
+        }
+    }
+
+    // Closes the circuit of one service, or of all services when key is null
+    public int reset(String key) {
+        if (key == null) {
+            int count = circuits.size();
+            circuits.clear();
+            return count;
+        }
+        return circuits.remove(key) != null ? 1 : 0;
+    }
+
+    public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> open = new TreeMap<>();
+        for (Map.Entry<String, Circuit> entry : circuits.entrySet()) {
+            Map<String, Object> circuit = entry.getValue().toMap(now);
+            if (circuit != null) {
+                open.put(entry.getKey(), circuit);
+            }
+        }
+        Map<String, Object> hosts = new TreeMap<>();
+        for (Map.Entry<String, TokenBucket> entry : hostBuckets.entrySet()) {
+            double available = entry.getValue().available();
+            if (available < perHostPerMinute) {
+                hosts.put(entry.getKey(), Math.floor(available * 10) / 10);
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("failureThreshold", failureThreshold);
+        stats.put("windowMinutes", windowMinutes);
+        stats.put("openMinutes", openMinutes);
+        stats.put("circuits", open);
+        stats.put("rejectedByBreaker", rejectedByBreaker.get());
+        stats.put("perHostPerMinute", perHostPerMinute);
+        stats.put("globalPerMinute", globalPerMinute);
+        stats.put("globalTokens", Math.floor(globalBucket.available() * 10) / 10);
+        stats.put("hostTokens", hosts);
+        stats.put("throttled", throttled.get());
+        return stats;
+    }
+
+    private int countNotClosed() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Circuit circuit : circuits.values()) {
+            if (circuit.state(now) != CircuitState.CLOSED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private final class Circuit {
+        // Times of failed restarts within the window, oldest first
+        private final Deque<Long> failures = new ArrayDeque<>();
+        private long openedAt;
+        private boolean open;
+        private boolean trialRunning;
+
+        synchronized CircuitState state(long now) {
+            if (!open) {
+                return CircuitState.CLOSED;
+            }
+            return now - openedAt >= TimeUnit.MINUTES.toMillis(openMinutes) ? CircuitState.HALF_OPEN : CircuitState.OPEN;
+        }
+
+        // Null when a restart may go ahead, otherwise why not
+        synchronized String tryEnter(long now) {
+            CircuitState state = state(now);
+            if (state == CircuitState.OPEN) {
+                return failures.size() + " failed restarts, next attempt after "
+                        + Instant.ofEpochMilli(openedAt + TimeUnit.MINUTES.toMillis(openMinutes));
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (trialRunning) {
+                    return "trial restart in progress";
+                }
+                trialRunning = true;
+            }
+            return null;
+        }
+
+        // The admitted restart did not happen after all
+        synchronized void leave() {
+            trialRunning = false;
+        }
+
+        // Returns true when the circuit is closed without any failures left
+        synchronized boolean record(boolean success, long now) {
+            boolean trial = trialRunning;
+            trialRunning = false;
+            if (success) {
+                if (trial || !open) {
+                    open = false;
+                    failures.clear();
+                }
+                return !open;
+            }
+            failures.addLast(now);
+            while (!failures.isEmpty() && now - failures.peekFirst() > TimeUnit.MINUTES.toMillis(windowMinutes)) {
+                failures.pollFirst();
+            }
+            if (trial || failures.size() >= Math.max(1, failureThreshold)) {
+                open = true;
+                openedAt = now;
+            }
+            return false;
+        }
+
+        // Null while closed
+        synchronized Map<String, Object> toMap(long now) {
+            CircuitState state = state(now);
+            if (state == CircuitState.CLOSED) {
+                return null;
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("state", state);
+            map.put("failures", failures.size());
+            map.put("openedAt", Instant.ofEpochMilli(openedAt).toString());
+            map.put("retryAfter", Instant.ofEpochMilli(openedAt + TimeUnit.MINUTES.toMillis(openMinutes)).toString());
+            List<String> times = new ArrayList<>();
+            for (Long failure : failures) {
+                times.add(Instant.ofEpochMilli(failure).toString());
+            }
+            map.put("failureTimes", times);
+            return map;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+    }
+
+    // Refills perMinute tokens a minute, holding at most perMinute; asking for more takes them all
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(int perMinute) {
+            this.capacity = Math.max(1, perMinute);
+            this.tokensPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryTake(int count) {
+            refill();
+            double wanted = Math.min(count, capacity);
+            if (tokens >= wanted) {
+                tokens -= wanted;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void giveBack(int count) {
+            tokens = Math.min(capacity, tokens + Math.min(count, capacity));
+        }
+
+        synchronized long nanosUntilTokens(int count) {
+            refill();
+            double wanted = Math.min(count, capacity);
+            return tokens >= wanted ? 0 : (long) Math.ceil((wanted - tokens) / tokensPerNano);
+        }
+
+        synchronized double available() {
+            refill();
+            return tokens;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
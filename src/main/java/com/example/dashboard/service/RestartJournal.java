@@ -0,0 +1,420 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.RestartJournalEntry;
+import com.example.dashboard.model.RestartOutcome;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Journal of restarts done by the activators.
+ *
+ * Recent entries live in a fixed-size ring that restart threads append to without locking:
+ * a sequence number is claimed with one atomic increment and the entry is stored in its slot,
+ * overwriting the entry restart.journal.capacity places older. Readers check the sequence
+ * number of every slot they read, so an entry that is overwritten mid-read is never returned.
+ *
+ * Every entry is also queued for a single writer thread that appends it, in sequence order,
+ * as one JSON line to the current segment file under restart.journal.dir, at most
+ * flush-interval-ms later. Segment files are named after their first sequence number. A
+ * segment is closed at segment-bytes and only the newest max-segments are kept. On startup
+ * the ring is refilled from the segments, and pages older than the ring are read from them
+ * on the writer thread, after a flush, together with the entries it is still holding back,
+ * so an entry that left the ring before it reached a file is not missing from the page.
+ */
+@Component
+public class RestartJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestartJournal.class);
+
+    private static final String SEGMENT_PREFIX = "restart-journal-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    @Value("${restart.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${restart.journal.dir:data/restart-journal}")
+    private String journalDir;
+
+    @Value("${restart.journal.capacity:1024}")
+    private int capacity;
+
+    @Value("${restart.journal.segment-bytes:1048576}")
+    private long segmentBytes;
+
+    @Value("${restart.journal.max-segments:20}")
+    private int maxSegments;
+
+    @Value("${restart.journal.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${restart.journal.excerpt-chars:500}")
+    private int excerptChars;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    private final ConcurrentLinkedQueue<RestartJournalEntry> unwritten = new ConcurrentLinkedQueue<>();
+
+    private AtomicReferenceArray<RestartJournalEntry> ring;
+    private int mask;
+    // Oldest sequence number the ring was filled from on startup
+    private volatile long ringFloor = 1;
+
+    // Only touched by the writer thread (and by shutdown once it has stopped)
+    private BufferedWriter segmentWriter;
+    private long segmentSize;
+    private long nextToWrite = 1;
+    // Entries that reached the writer before an older one, held back so files stay in sequence order
+    private final TreeMap<Long, RestartJournalEntry> heldBack = new TreeMap<>();
+
+    private final ScheduledExecutorService writerExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "restart-journal-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        if (!enabled) {
+            return;
+        }
+        recover();
+        writerExecutor.scheduleWithFixedDelay(() -> flush(false), flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a finished run or other action. result is an "OUTCOME: message" string; output
+     * is the command output, if any, of which only the tail is kept.
+     */
+    public RestartJournalEntry record(String activator, String key, String action, long startedAtMs,
+                                      String result, String output) {
+        String outcome = result;
+        String message = "";
+        int colon = result != null ? result.indexOf(':') : -1;
+        if (colon > 0) {
+            outcome = result.substring(0, colon).trim();
+            message = result.substring(colon + 1).trim();
+        }
+        if (output != null && !output.isBlank()) {
+            message = message.isEmpty() ? output.trim() : message + " | " + output.trim();
+        }
+        return append(activator, key, action, startedAtMs, System.currentTimeMillis(), outcome, excerpt(message));
+    }
+
+    /**
+     * Records a finished restart with its outcome; output is the command output, if any, of
+     * which only the tail is kept.
+     */
+    public RestartJournalEntry record(String activator, String action, long startedAtMs, RestartOutcome outcome,
+                                      String output) {
+        String message = outcome.getMessage();
+        if (output != null && !output.isBlank()) {
+            message = message.isEmpty() ? output.trim() : message + " | " + output.trim();
+        }
+        return append(activator, outcome.getKey(), action, startedAtMs, System.currentTimeMillis(),
+                outcome.getStatus().name(), excerpt(message));
+    }
+
+    /**
+     * Records an operator's start, stop or restart command (/api/service-operation and its
+     * bulk form) with its result; only the tail of its output is kept.
+     */
+    public RestartJournalEntry record(String activator, String key, String action, long startedAtMs,
+                                      ExecutionResult result) {
+        String outcome = result.isSuccess() ? "SUCCESS" : result.getFailureCategory().name();
+        String output = result.getStderr() != null && !result.getStderr().isBlank() ? result.getStderr() : result.getStdout();
+        return record(activator, key, action, startedAtMs, outcome + ": " + result.getMessage(), output);
+    }
+
+    private RestartJournalEntry append(String activator, String key, String action, long startedAtMs,
+                                       long endedAtMs, String outcome, String excerpt) {
+        long seq = nextSeq.getAndIncrement();
+        RestartJournalEntry entry = new RestartJournalEntry(seq, activator, key, action, startedAtMs, endedAtMs,
+                outcome, excerpt);
+        ring.set(slot(seq), entry);
+        if (enabled) {
+            unwritten.offer(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns up to limit entries older than cursor, newest first (cursor null: the newest
+     * entries). nextCursor is the cursor for the following page, or null after the oldest entry.
+     */
+    public Map<String, Object> page(Long cursor, int limit) {
+        limit = Math.max(1, Math.min(limit, 500));
+        long latest = nextSeq.get() - 1;
+        long from = cursor == null ? latest : Math.min(cursor - 1, latest);
+
+        List<RestartJournalEntry> entries = new ArrayList<>();
+        long oldestInRing = Math.max(ringFloor, latest - ring.length() + 1);
+        long seq = from;
+        for (; seq >= oldestInRing && entries.size() < limit; seq--) {
+            RestartJournalEntry entry = ring.get(slot(seq));
+            if (entry != null && entry.getSeq() == seq) {
+                entries.add(entry);
+            } else if (entry != null && entry.getSeq() > seq) {
+                // Overwritten while reading: older entries are only on disk
+                break;
+            }
+            // Otherwise the sequence is claimed but its entry not stored yet; skip it
+        }
+        if (entries.size() < limit && seq >= 1 && enabled) {
+            entries.addAll(readOlder(seq + 1, limit - entries.size()));
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (RestartJournalEntry entry : entries) {
+            items.add(entry.toMap());
+        }
+        Long nextCursor = null;
+        if (!entries.isEmpty() && entries.get(entries.size() - 1).getSeq() > 1 && entries.size() == limit) {
+            nextCursor = entries.get(entries.size() - 1).getSeq();
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("entries", items);
+        page.put("count", items.size());
+        page.put("nextCursor", nextCursor);
+        page.put("total", latest);
+        return page;
+    }
+
+    // Number of entries recorded so far, including those only kept on disk
+    public long getTotal() {
+        return nextSeq.get() - 1;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq & mask);
+    }
+
+    private String excerpt(String text) {
+        if (text.length() <= excerptChars) {
+            return text;
+        }
+        return "..." + text.substring(text.length() - excerptChars);
+    }
+
+    // With all set, held back entries are written too (on shutdown)
+    private void flush(boolean all) {
+        try {
+            RestartJournalEntry entry;
+            while ((entry = unwritten.poll()) != null) {
+                heldBack.put(entry.getSeq(), entry);
+            }
+            boolean wrote = false;
+            while (!heldBack.isEmpty()) {
+                // A thread that claimed nextToWrite has not queued its entry yet; wait for it,
+                // unless so many entries piled up behind it that it is not coming
+                if (!all && heldBack.firstKey() != nextToWrite && heldBack.size() <= ring.length()) {
+                    break;
+                }
+                entry = heldBack.pollFirstEntry().getValue();
+                nextToWrite = entry.getSeq() + 1;
+                if (segmentWriter == null || segmentSize >= segmentBytes) {
+                    openSegment(entry.getSeq());
+                }
+                String line = objectMapper.writeValueAsString(entry.toMap()) + "\n";
+                segmentWriter.write(line);
+                segmentSize += line.getBytes(StandardCharsets.UTF_8).length;
+                wrote = true;
+            }
+            if (wrote) {
+                segmentWriter.flush();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not write restart journal to {}: {}", journalDir, e.getMessage());
+            closeSegment();
+        }
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        closeSegment();
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        segmentWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        segmentSize = Files.size(file);
+
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size() - Math.max(1, maxSegments); i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void closeSegment() {
+        if (segmentWriter != null) {
+            try {
+                segmentWriter.close();
+            } catch (IOException e) {
+                logger.warn("Could not close restart journal segment: {}", e.getMessage());
+            }
+            segmentWriter = null;
+        }
+    }
+
+    // Segment files, oldest first
+    private List<Path> listSegments() {
+        List<Path> segments = new ArrayList<>();
+        Path dir = Paths.get(journalDir);
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list restart journal segments in {}: {}", dir, e.getMessage());
+        }
+        // The zero-padded first sequence number makes name order the append order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Entries below before that are no longer in the ring, newest first: written or not yet written
+    private List<RestartJournalEntry> readOlder(long before, int limit) {
+        try {
+            return writerExecutor.submit(() -> {
+                flush(false);
+                List<RestartJournalEntry> older = new ArrayList<>(readSegments(before, limit));
+                older.addAll(heldBack.headMap(before).values());
+                older.sort((a, b) -> Long.compare(b.getSeq(), a.getSeq()));
+                return older.size() > limit ? new ArrayList<>(older.subList(0, limit)) : older;
+            }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException | ExecutionException | TimeoutException e) {
+            // Shutting down (shutdown writes everything) or the writer is stuck: files only
+            logger.warn("Reading the restart journal without the writer: {}", e.toString());
+        }
+        return readSegments(before, limit);
+    }
+
+    // Entries with a sequence number below before, newest first
+    private List<RestartJournalEntry> readSegments(long before, int limit) {
+        List<RestartJournalEntry> result = new ArrayList<>();
+        List<Path> segments = listSegments();
+        for (int i = segments.size() - 1; i >= 0 && result.size() < limit; i--) {
+            if (firstSeq(segments.get(i)) >= before) {
+                continue;
+            }
+            List<RestartJournalEntry> entries = readSegment(segments.get(i));
+            for (int j = entries.size() - 1; j >= 0 && result.size() < limit; j--) {
+                if (entries.get(j).getSeq() < before) {
+                    result.add(entries.get(j));
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<RestartJournalEntry> readSegment(Path segment) {
+        List<RestartJournalEntry> entries = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                RestartJournalEntry entry = parse(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read restart journal segment {}: {}", segment, e.getMessage());
+        }
+        return entries;
+    }
+
+    private RestartJournalEntry parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return new RestartJournalEntry(node.path("seq").asLong(), node.path("activator").asText(null),
+                    node.path("key").asText(null), node.path("action").asText(null),
+                    Instant.parse(node.path("startedAt").asText()).toEpochMilli(),
+                    Instant.parse(node.path("endedAt").asText()).toEpochMilli(),
+                    node.path("outcome").asText(null), node.path("excerpt").asText(""));
+        } catch (Exception e) {
+            // A line cut short by a crash while it was being written
+            return null;
+        }
+    }
+
+    // Refills the ring with the newest entries on disk and continues their numbering
+    private void recover() {
+        List<RestartJournalEntry> recent = readSegments(Long.MAX_VALUE, ring.length());
+        if (recent.isEmpty()) {
+            return;
+        }
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            RestartJournalEntry entry = recent.get(i);
+            ring.set(slot(entry.getSeq()), entry);
+        }
+        ringFloor = recent.get(recent.size() - 1).getSeq();
+        nextSeq.set(recent.get(0).getSeq() + 1);
+        nextToWrite = nextSeq.get();
+        logger.info("Restart journal recovered {} entries from {}, continuing at {}", recent.size(), journalDir,
+                nextSeq.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writerExecutor.shutdown();
+        try {
+            writerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (enabled) {
+            flush(true);
+            closeSegment();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.RestartOutcome;
+import com.example.dashboard.model.RollingRestartRequest;
+import com.example.dashboard.model.TopologyEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling restarts of a fleet of services, e.g. Tomcat on every app server of an environment.
+ *
+ * The matching services are restarted in waves of at most batchSize, services that are
+ * already down first. A wave only takes as many services as keeps the number of unavailable
+ * services in the selection (down before the wave, or in it) at or below maxUnavailable.
+ * Each restart stops the service, starts it and waits until it is ready; with the health
+ * gate, the wave's services are checked again after gateSeconds and all must be up. A wave
+ * that fails aborts the rollout when abortOnFailure is set; its remaining services are skipped.
+ *
+ * Rollouts run on their own lane, so a long rollout cannot take the threads of UI or API
+ * work; when all its threads are busy a new rollout stays QUEUED until one finishes. Their
+ * restarts run on the restart lane. Progress lines
+ * are published to /api/operations/{id}/stream under the rollout id, for the user who
+ * started the rollout.
+ */
+@org.springframework.stereotype.Service
+public class RollingRestartService {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, ABORTED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    @Autowired
+    private ServiceRestarter serviceRestarter;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private OperationOutputHub operationOutputHub;
+
+    // Finished rollouts kept for GET /api/rolling-restarts
+    @Value("${rolling-restart.history:50}")
+    private int history;
+
+    private final Map<String, Rollout> rollouts = new ConcurrentHashMap<>();
+
+    /**
+     * Validates the request, selects the services and starts the rollout in the background.
+     * Its output stream belongs to startedBy. Throws IllegalArgumentException when the request
+     * is invalid or selects nothing.
+     */
+    public Map<String, Object> start(RollingRestartRequest request, String startedBy) {
+        if (request.getBatchSize() < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        if (request.getMaxUnavailable() != null && request.getMaxUnavailable() < 1) {
+            throw new IllegalArgumentException("maxUnavailable must be at least 1");
+        }
+        if (request.getGateSeconds() < 0) {
+            throw new IllegalArgumentException("gateSeconds must not be negative");
+        }
+        List<TopologyEntry> targets = topologyIndex.select(request.toSelector(), serviceStatusMonitor.getAllStatuses());
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("No services match the selection");
+        }
+
+        Rollout rollout = new Rollout(UUID.randomUUID().toString(), request, targets);
+        operationOutputHub.open(rollout.id, startedBy);
+        rollouts.put(rollout.id, rollout);
+        prune();
+        executionRuntime.executor(ExecutionRuntime.Lane.ROLLOUT).submit(() -> run(rollout));
+        return rollout.toMap();
+    }
+
+    public Map<String, Object> get(String id) {
+        Rollout rollout = rollouts.get(id);
+        return rollout != null ? rollout.toMap() : null;
+    }
+
+    // Newest first, without the per-wave details
+    public List<Map<String, Object>> list() {
+        List<Rollout> all = new ArrayList<>(rollouts.values());
+        all.sort((a, b) -> b.startedAt.compareTo(a.startedAt));
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Rollout rollout : all) {
+            Map<String, Object> summary = rollout.toMap();
+            summary.remove("waves");
+            result.add(summary);
+        }
+        return result;
+    }
+
+    // Stops the rollout before its next wave (or before its first, when queued); the running wave is finished
+    public boolean abort(String id) {
+        Rollout rollout = rollouts.get(id);
+        if (rollout == null || rollout.state.isFinished()) {
+            return false;
+        }
+        rollout.abortRequested = true;
+        return true;
+    }
+
+    private void run(Rollout rollout) {
+        rollout.state = State.RUNNING;
+        RollingRestartRequest request = rollout.request;
+        int maxUnavailable = request.getMaxUnavailable() != null ? request.getMaxUnavailable() : request.getBatchSize();
+        log(rollout, "Rolling restart of " + rollout.targets.size() + " services, batch size " + request.getBatchSize()
+                + ", max unavailable " + maxUnavailable);
+
+        // Services that are down anyway go first, they cannot get any less available
+        Map<String, String> statuses = serviceStatusMonitor.getAllStatuses();
+        Deque<TopologyEntry> remaining = new ArrayDeque<>();
+        for (TopologyEntry entry : rollout.targets) {
+            if (!"up".equals(statuses.get(entry.getKey()))) {
+                remaining.add(entry);
+            }
+        }
+        for (TopologyEntry entry : rollout.targets) {
+            if ("up".equals(statuses.get(entry.getKey()))) {
+                remaining.add(entry);
+            }
+        }
+
+        try {
+            while (!remaining.isEmpty()) {
+                if (rollout.abortRequested) {
+                    finish(rollout, State.ABORTED, "Aborted on request", remaining);
+                    return;
+                }
+                List<TopologyEntry> wave = nextWave(remaining, rollout.targets, request.getBatchSize(), maxUnavailable);
+                if (wave.isEmpty()) {
+                    finish(rollout, State.ABORTED, "More than " + maxUnavailable + " services would be unavailable",
+                            remaining);
+                    return;
+                }
+                for (int i = 0; i < wave.size(); i++) {
+                    remaining.poll();
+                }
+
+                Wave done = runWave(rollout, wave);
+                rollout.waves.add(done);
+                if (!done.failed.isEmpty()) {
+                    rollout.failedServices.addAll(done.failed);
+                    if (request.isAbortOnFailure()) {
+                        finish(rollout, State.ABORTED, "Wave " + done.number + " failed: "
+                                + String.join(", ", done.failed), remaining);
+                        return;
+                    }
+                }
+            }
+            finish(rollout, rollout.failedServices.isEmpty() ? State.SUCCEEDED : State.FAILED,
+                    rollout.failedServices.isEmpty() ? "All services restarted"
+                            : rollout.failedServices.size() + " services failed", remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(rollout, State.ABORTED, "Interrupted", remaining);
+        } catch (Exception e) {
+            finish(rollout, State.FAILED, "ERROR: " + e.getMessage(), remaining);
+        }
+    }
+
+    // Up to batchSize services from the head of remaining, as far as maxUnavailable allows
+    private List<TopologyEntry> nextWave(Deque<TopologyEntry> remaining, List<TopologyEntry> targets,
+                                         int batchSize, int maxUnavailable) {
+        Map<String, String> statuses = serviceStatusMonitor.getAllStatuses();
+        Set<String> unavailable = new HashSet<>();
+        for (TopologyEntry entry : targets) {
+            if (!"up".equals(statuses.get(entry.getKey()))) {
+                unavailable.add(entry.getKey());
+            }
+        }
+        List<TopologyEntry> wave = new ArrayList<>();
+        for (TopologyEntry entry : remaining) {
+            if (wave.size() >= batchSize) {
+                break;
+            }
+            // Restarting a service that is down already costs nothing
+            if (unavailable.add(entry.getKey()) && unavailable.size() > maxUnavailable) {
+                break;
+            }
+            wave.add(entry);
+        }
+        return wave;
+    }
+
+    private Wave runWave(Rollout rollout, List<TopologyEntry> wave) throws InterruptedException {
+        int number = rollout.waves.size() + 1;
+        long start = System.nanoTime();
+        Set<String> keys = new LinkedHashSet<>();
+        Map<String, Future<RestartOutcome>> futures = new LinkedHashMap<>();
+        for (TopologyEntry entry : wave) {
+            keys.add(entry.getKey());
+            String os = entry.getOs();
+            futures.put(entry.getKey(), serviceRestarter.submit("rolling", entry.getKey(), entry.getAppName(), entry.getServer(),
+                    entry.getService(),
+                    ServiceRestarter.withSudo(entry.getService().getStopCmd(), os),
+                    ServiceRestarter.withSudo(entry.getService().getStartupCmd(), os),
+                    ServiceRestarter.withSudo(entry.getService().getStatusCmd(), os)));
+        }
+        log(rollout, "Wave " + number + ": restarting " + String.join(", ", keys));
+        List<RestartOutcome> outcomes = serviceRestarter.awaitAll(futures);
+
+        List<String> failed = new ArrayList<>();
+        for (RestartOutcome outcome : outcomes) {
+            if (!outcome.isSuccess()) {
+                failed.add(outcome.getKey());
+            }
+            log(rollout, "Wave " + number + ": " + outcome);
+        }
+
+        Map<String, String> verification = Collections.emptyMap();
+        if (rollout.request.isHealthGate()) {
+            if (rollout.request.getGateSeconds() > 0) {
+                TimeUnit.SECONDS.sleep(rollout.request.getGateSeconds());
+            }
+            verification = serviceRestarter.verify(keys);
+            for (String key : keys) {
+                if (!"up".equals(verification.get(key)) && !failed.contains(key)) {
+                    failed.add(key);
+                }
+            }
+            log(rollout, "Wave " + number + " health gate: " + verification);
+        }
+
+        rollout.restarted += keys.size();
+        return new Wave(number, new ArrayList<>(keys), outcomes, verification, failed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void finish(Rollout rollout, State state, String message, Deque<TopologyEntry> remaining) {
+        for (TopologyEntry entry : remaining) {
+            rollout.skipped.add(entry.getKey());
+        }
+        rollout.message = message;
+        rollout.finishedAt = LocalDateTime.now().toString();
+        rollout.state = state;
+        log(rollout, "Rolling restart " + state + ": " + message
+                + (rollout.skipped.isEmpty() ? "" : " (" + rollout.skipped.size() + " services skipped)"));
+        operationOutputHub.complete(rollout.id, state == State.SUCCEEDED ? "success" : "error");
+    }
+
+    private void log(Rollout rollout, String line) {
+        System.out.println("[rolling " + rollout.id + "] " + line);
+        operationOutputHub.publish(rollout.id, line);
+    }
+
+    private void prune() {
+        if (rollouts.size() <= history) {
+            return;
+        }
+        List<Rollout> finished = new ArrayList<>();
+        for (Rollout rollout : rollouts.values()) {
+            if (rollout.state.isFinished()) {
+                finished.add(rollout);
+            }
+        }
+        finished.sort((a, b) -> a.startedAt.compareTo(b.startedAt));
+        for (int i = 0; i < finished.size() && rollouts.size() > history; i++) {
+            rollouts.remove(finished.get(i).id);
+        }
+    }
+
+    private static final class Rollout {
+        private final String id;
+        private final RollingRestartRequest request;
+        private final List<TopologyEntry> targets;
+        private final String startedAt = LocalDateTime.now().toString();
+        private final List<Wave> waves = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> failedServices = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+        private volatile State state = State.QUEUED;
+        private volatile boolean abortRequested;
+        private volatile int restarted;
+        private volatile String message;
+        private volatile String finishedAt;
+
+        private Rollout(String id, RollingRestartRequest request, List<TopologyEntry> targets) {
+            this.id = id;
+            this.request = request;
+            this.targets = targets;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("state", state);
+            map.put("message", message);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("selection", request.toSelector());
+            map.put("batchSize", request.getBatchSize());
+            map.put("maxUnavailable", request.getMaxUnavailable() != null ? request.getMaxUnavailable() : request.getBatchSize());
+            map.put("healthGate", request.isHealthGate());
+            map.put("abortOnFailure", request.isAbortOnFailure());
+            map.put("total", targets.size());
+            map.put("restarted", restarted);
+            map.put("failed", new ArrayList<>(failedServices));
+            map.put("skipped", new ArrayList<>(skipped));
+            List<Map<String, Object>> waveMaps = new ArrayList<>();
+            synchronized (waves) {
+                for (Wave wave : waves) {
+                    waveMaps.add(wave.toMap());
+                }
+            }
+            map.put("waves", waveMaps);
+            return map;
+        }
+    }
+
+    // One finished wave: the outcome of every restart, the health gate's statuses and what failed
+    private static final class Wave {
+        private final int number;
+        private final List<String> services;
+        private final List<RestartOutcome> outcomes;
+        private final Map<String, String> verification;
+        private final List<String> failed;
+        private final long durationMs;
+
+        private Wave(int number, List<String> services, List<RestartOutcome> outcomes, Map<String, String> verification,
+                     List<String> failed, long durationMs) {
+            this.number = number;
+            this.services = services;
+            this.outcomes = outcomes;
+            this.verification = verification;
+            this.failed = failed;
+            this.durationMs = durationMs;
+        }
+
+        private Map<String, Object> toMap() {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (RestartOutcome outcome : outcomes) {
+                results.add(outcome.toMap());
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("wave", number);
+            map.put("services", services);
+            map.put("results", results);
+            map.put("verification", verification);
+            map.put("failed", failed);
+            map.put("durationMs", durationMs);
+            return map;
+        }
+    }
+}
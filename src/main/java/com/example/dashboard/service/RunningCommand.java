@@ -0,0 +1,105 @@
+package com.example.dashboard.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+/**
+ * A remote command from the moment it asks for an execution slot until it returns. Holds the
+ * deadline and the future of whatever is currently running for it (an ansible process or a
+ * worker request), so that cancelling the command stops the remote work as well.
+ */
+public class RunningCommand {
+
+    private final String id;
+    private final String application;
+    private final String host;
+    private final String os;
+    private final String serviceType;
+    private final String command;
+    private final Instant startedAt;
+    private final Duration timeout;
+    private final long deadlineNanos;
+
+    private volatile String stage = "queued";
+    private volatile boolean cancelled;
+    private Future<?> current;
+
+    public RunningCommand(String id, String application, String host, String os, String serviceType,
+                          String command, Duration timeout) {
+        this.id = id;
+        this.application = application;
+        this.host = host;
+        this.os = os;
+        this.serviceType = serviceType;
+        this.command = command;
+        this.startedAt = Instant.now();
+        this.timeout = timeout;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    public String getId() { return id; }
+    public String getHost() { return host; }
+    public String getOs() { return os; }
+    public String getCommand() { return command; }
+    public Instant getStartedAt() { return startedAt; }
+    public Duration getTimeout() { return timeout; }
+    public String getStage() { return stage; }
+    public boolean isCancelled() { return cancelled; }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public void checkNotCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Command " + id + " was cancelled");
+        }
+    }
+
+    /**
+     * Registers the work now running for this command. If the command was cancelled in the
+     * meantime the work is cancelled right away.
+     */
+    public synchronized void attach(Future<?> future) {
+        current = future;
+        if (cancelled) {
+            future.cancel(true);
+        }
+    }
+
+    public synchronized void detach() {
+        current = null;
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("application", application);
+        map.put("host", host);
+        map.put("os", os);
+        map.put("serviceType", serviceType);
+        map.put("command", command);
+        map.put("stage", stage);
+        map.put("startedAt", startedAt.toString());
+        map.put("ageMs", Duration.between(startedAt, Instant.now()).toMillis());
+        map.put("timeoutMs", timeout.toMillis());
+        map.put("remainingMs", remainingNanos() / 1_000_000);
+        map.put("cancelled", cancelled);
+        return map;
+    }
+}
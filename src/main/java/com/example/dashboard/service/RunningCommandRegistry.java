@@ -0,0 +1,67 @@
+package com.example.dashboard.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of remote commands that are waiting for a slot or running, so that they can be
+ * listed with their ages and cancelled from the API.
+ */
+@Component
+public class RunningCommandRegistry {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, RunningCommand> commands = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("remote.commands.running", commands, Map::size).register(meterRegistry);
+    }
+
+    public RunningCommand start(String application, String host, String os, String serviceType,
+                                String command, Duration timeout) {
+        RunningCommand running = new RunningCommand(String.valueOf(ids.incrementAndGet()),
+                application, host, os, serviceType, command, timeout);
+        commands.put(running.getId(), running);
+        return running;
+    }
+
+    public void finish(RunningCommand running) {
+        commands.remove(running.getId());
+    }
+
+    // Oldest first
+    public List<Map<String, Object>> list() {
+        List<RunningCommand> snapshot = new ArrayList<>(commands.values());
+        snapshot.sort(Comparator.comparing(RunningCommand::getStartedAt));
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RunningCommand running : snapshot) {
+            result.add(running.toMap());
+        }
+        return result;
+    }
+
+    public boolean cancel(String id) {
+        RunningCommand running = commands.get(id);
+        if (running == null) {
+            return false;
+        }
+        System.out.println("Cancelling command " + id + " on " + running.getHost() + ": " + running.getCommand());
+        running.cancel();
+        return true;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.RestartOutcome;
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Restart steps shared by the Linux and Windows activators: restarting one service on the
+ * restart lane and waiting until it is ready, collecting the results, and checking the
+ * restarted services afterwards. The activators decide which services to restart and which
+ * commands to use for them. Every restart passes RestartGuard's circuit breaker and rate
+ * limits first and is recorded in the restart journal.
+ */
+@Component
+public class ServiceRestarter {
+
+    @Autowired
+    private AnsibleExecutionService ansibleExecutionService;
+
+    @Autowired
+    private ReadinessWaiter readinessWaiter;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private RestartJournal restartJournal;
+
+    @Autowired
+    private RestartGuard restartGuard;
+
+    @Autowired
+    private LeaderElection leaderElection;
+
+    /**
+     * Restarts the service on the restart lane; the future yields its outcome.
+     * statusCmd may be null when the service has no status check.
+     */
+    public Future<RestartOutcome> submit(String activator, String key, String appName, Server server, Service service,
+                                         String restartCmd, String statusCmd) {
+        return submit(activator, key, appName, server, service, null, restartCmd, statusCmd);
+    }
+
+    /**
+     * Same, for a service that may be running: stopCmd (when not null) is run first and the
+     * service is only started again once it succeeded. The restart is handed to the lane
+     * only once RestartGuard admitted it; cancelling the future gives up the wait or
+     * interrupts the restart.
+     */
+    public Future<RestartOutcome> submit(String activator, String key, String appName, Server server, Service service,
+                                         String stopCmd, String restartCmd, String statusCmd) {
+        return submit(activator, key, appName, server, service, stopCmd, restartCmd, statusCmd, null);
+    }
+
+    /**
+     * Same, for a leader-only run started under fencingToken: the restart is skipped when
+     * the scheduler lease is no longer held under that token by the time it would run.
+     */
+    public Future<RestartOutcome> submit(String activator, String key, String appName, Server server, Service service,
+                                         String stopCmd, String restartCmd, String statusCmd, Long fencingToken) {
+        long startedAt = System.currentTimeMillis();
+        CompletableFuture<RestartOutcome> result = new CompletableFuture<>();
+        CompletableFuture<RestartOutcome> admission = restartGuard.admit(key, Collections.singletonList(server.getIp()));
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        AtomicBoolean started = new AtomicBoolean();
+        result.whenComplete((outcome, error) -> {
+            if (result.isCancelled()) {
+                admission.cancel(false);
+                // A task that has not started yet sees the cancellation itself and frees the circuit
+                Future<?> running = task.get();
+                if (running != null && started.get()) {
+                    running.cancel(true);
+                }
+            }
+        });
+
+        admission.whenComplete((rejection, error) -> {
+            if (error != null) {
+                return; // cancelled along with the result
+            }
+            if (rejection != null) {
+                System.out.println("Not restarting " + rejection);
+                restartJournal.record(activator, "restart", startedAt, rejection, null);
+                result.complete(rejection);
+                return;
+            }
+            try {
+                task.set(executionRuntime.executor(ExecutionRuntime.Lane.RESTART).submit(() -> {
+                    started.set(true);
+                    if (result.isCancelled()) {
+                        restartGuard.release(key);
+                        return;
+                    }
+                    if (fencingToken != null && !leaderElection.holdsLease(fencingToken)) {
+                        restartGuard.release(key);
+                        RestartOutcome fenced = new RestartOutcome(key, RestartOutcome.Status.SKIPPED,
+                                "scheduler lease lost, leaving the restart to the new leader");
+                        restartJournal.record(activator, "restart", startedAt, fenced, null);
+                        result.complete(fenced);
+                        return;
+                    }
+                    result.complete(run(activator, key, appName, server, service, stopCmd, restartCmd, statusCmd,
+                            startedAt));
+                }));
+            } catch (RejectedExecutionException e) {
+                restartGuard.release(key);
+                result.complete(RestartOutcome.error(key, "restart lane is shut down"));
+            }
+        });
+        return result;
+    }
+
+    // Runs on the restart lane once admitted
+    private RestartOutcome run(String activator, String key, String appName, Server server, Service service,
+                               String stopCmd, String restartCmd, String statusCmd, long startedAt) {
+        StringBuilder output = new StringBuilder();
+        try {
+            System.out.println("Thread " + Thread.currentThread().getName() + " starting restart for: " + key);
+            RestartOutcome outcome;
+            try {
+                outcome = restart(key, appName, server, service, stopCmd, restartCmd, statusCmd, output);
+            } catch (Exception e) {
+                restartGuard.recordResult(key, false);
+                throw e;
+            }
+            restartGuard.recordResult(key, outcome.isSuccess());
+            System.out.println("Thread " + Thread.currentThread().getName() + " completed restart for: " + outcome);
+            restartJournal.record(activator, "restart", startedAt, outcome, output.toString());
+            return outcome;
+        } catch (Exception e) {
+            RestartOutcome outcome = RestartOutcome.error(key, e.getMessage());
+            System.err.println("Thread " + Thread.currentThread().getName() + " failed restart for: " + outcome);
+            restartJournal.record(activator, "restart", startedAt, outcome, output.toString());
+            return outcome;
+        }
+    }
+
+    /**
+     * Waits for the submitted restarts (by service key), at most 5 minutes each; a restart
+     * that takes longer is cancelled, which kills its remote command.
+     */
+    public List<RestartOutcome> awaitAll(Map<String, Future<RestartOutcome>> futures) {
+        List<RestartOutcome> results = new ArrayList<>();
+        for (Map.Entry<String, Future<RestartOutcome>> entry : futures.entrySet()) {
+            String key = entry.getKey();
+            Future<RestartOutcome> future = entry.getValue();
+            try {
+                results.add(future.get(5, TimeUnit.MINUTES)); // 5 minute timeout per service
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                RestartOutcome timeout = new RestartOutcome(key, RestartOutcome.Status.TIMEOUT,
+                        "Service restart timed out after 5 minutes");
+                System.err.println(timeout);
+                results.add(timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(RestartOutcome.error(key, "interrupted"));
+                break;
+            } catch (Exception e) {
+                RestartOutcome error = RestartOutcome.error(key, e.getMessage());
+                System.err.println(error);
+                results.add(error);
+            }
+        }
+        return results;
+    }
+
+    // Checks the given services once and returns their statuses
+    public Map<String, String> verify(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        System.out.println("=== Verifying " + keys.size() + " restarted services ===");
+        try {
+            return serviceStatusMonitor.checkServices(keys).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Verification interrupted: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error verifying restarted services: " + e.getMessage());
+        }
+        return Collections.emptyMap();
+    }
+
+    // Appends the restart command's output to output, for the journal
+    private RestartOutcome restart(String key, String appName, Server server, Service service, String stopCmd,
+                                   String restartCmd, String statusCmd, StringBuilder output) throws InterruptedException {
+        if (restartCmd == null) {
+            return RestartOutcome.error(key, "No startup command configured");
+        }
+
+        if (stopCmd != null) {
+            System.out.println("Stopping service: " + service.getName() + " on " + server.getName());
+            ExecutionResult stopped = ansibleExecutionService.executeCommand(appName, server.getIp(), stopCmd,
+                    server.getOs(), service.getType());
+            if (!stopped.isSuccess()) {
+                output.append(stopped.getStderr().isBlank() ? stopped.getStdout() : stopped.getStderr());
+                return RestartOutcome.failed(key, "stop failed: " + stopped.getMessage());
+            }
+        }
+
+        System.out.println("Attempting to restart service: " + service.getName() + " on " + server.getName());
+        ExecutionResult result = ansibleExecutionService.executeCommand(appName, server.getIp(), restartCmd,
+                server.getOs(), service.getType());
+        output.append(result.getStderr().isBlank() ? result.getStdout() : result.getStderr());
+        if (!result.isSuccess()) {
+            return RestartOutcome.failed(key, result.getMessage());
+        }
+
+        // Poll until the service is up instead of sleeping a fixed time
+        if (statusCmd == null && service.getHealthUrl() == null) {
+            return RestartOutcome.success(key, "Service restart command executed");
+        }
+        ReadinessWaiter.Result ready = readinessWaiter.await(appName, server, service, statusCmd);
+        if (ready.isReady()) {
+            return RestartOutcome.success(key, "Service restarted and is now running (ready after "
+                    + ready.getTimeToReadyMs() + " ms)");
+        }
+        return new RestartOutcome(key, RestartOutcome.Status.PARTIAL, "Service restarted but not running after "
+                + ready.getTimeToReadyMs() / 1000 + "s (status " + ready.getLastStatus() + ")");
+    }
+
+    // Prepend sudo for Linux commands
+    static String withSudo(String command, String os) {
+        if (command != null && os != null && !os.equalsIgnoreCase("windows") && !command.startsWith("sudo ")) {
+            return "sudo " + command;
+        }
+        return command;
+    }
+}
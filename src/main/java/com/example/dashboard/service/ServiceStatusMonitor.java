@@ -1,12 +1,15 @@
 package com.example.dashboard.service;
 
 import com.example.dashboard.model.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 @Service
 public class ServiceStatusMonitor {
@@ -17,21 +20,79 @@ public class ServiceStatusMonitor {
     @Autowired
     private AnsibleExecutionService ansibleExecutionService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CyberArkService cyberArkService;
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private LeaderElection leaderElection;
+
+    @Autowired
+    private ProbeSharding probeSharding;
+
     private final ConcurrentHashMap<String, String> statusCache = new ConcurrentHashMap<>();
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
+    // When each status in statusCache was checked, to merge it with the shared view
+    private final ConcurrentHashMap<String, Long> checkedAtMs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    private Timer sweepTimer;
+    private volatile Map<String, Object> lastSweep = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        executor = executionRuntime.executor(ExecutionRuntime.Lane.PROBE);
+        sweepTimer = Timer.builder("status.sweep.duration")
+                .description("Time to check the status of every service in the topology")
+                .register(meterRegistry);
+    }
 
     // Key format: app|env|server|service
     private String makeKey(String app, String env, String server, String service) {
         return app + "|" + env + "|" + server + "|" + service;
     }
 
-    @Scheduled(fixedDelay = 10 * 60 * 1000) // every 5 minutes
+    // The first sweep after boot is run by StartupCoordinator; later ones by every instance when
+    // probes are sharded, otherwise only by the leader instance
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000) // every 10 minutes
     public void checkAllServices() {
+        if (!probeSharding.isEnabled() && !leaderElection.isLeader()) {
+            return;
+        }
+        runStatusSweep();
+    }
+
+    /**
+     * Checks the status of every service on the probe lane. The returned future completes
+     * with the sweep's duration and throughput once the last check has finished.
+     *
+     * The sweep is planned first: the credentials of every distinct host are prefetched in
+     * parallel batches while the probes are dispatched, so probes do not queue behind vault
+     * lookups one host at a time, and the first probes do not wait for the whole prefetch.
+     *
+     * With probe sharding only the servers in this instance's shard are checked, and their
+     * statuses are published to the fleet-wide view.
+     */
+    public CompletableFuture<Map<String, Object>> runStatusSweep() {
         System.out.println("=== Starting scheduled service status check ===");
+        long sweepStart = System.nanoTime();
+        long lookupsBefore = cyberArkService.getLookupCount();
+        List<Supplier<CompletableFuture<String>>> probes = new ArrayList<>();
+        List<String> sweptKeys = new ArrayList<>();
+        Set<CyberArkService.CredentialKey> hosts = new LinkedHashSet<>();
+        Set<String> ownedServers = new HashSet<>();
+        Set<String> otherServers = new HashSet<>();
         List<Application> applications = yamlParserService.parseYaml();
         if (applications == null) {
             System.out.println("No applications found in YAML");
-            return;
+            return CompletableFuture.completedFuture(Collections.emptyMap());
         }
 
         for (Application app : applications) {
@@ -40,8 +101,14 @@ public class ServiceStatusMonitor {
                 if (env.getServers() == null) continue;
                 for (com.example.dashboard.model.Server server : env.getServers()) {
                     if (server.getServices() == null) continue;
+                    if (!probeSharding.owns(server.getIp())) {
+                        otherServers.add(server.getIp());
+                        continue;
+                    }
+                    ownedServers.add(server.getIp());
                     for (com.example.dashboard.model.Service service : server.getServices()) {
                         String key = makeKey(app.getName(), env.getName(), server.getName(), service.getName());
+                        sweptKeys.add(key);
                         String statusCmd = service.getStatusCmd();
                         String statusScript = service.getStatusScript();
                         String os = server.getOs();
@@ -49,27 +116,139 @@ public class ServiceStatusMonitor {
                         String application = app.getName();
 
                         if (statusCmd == null && statusScript == null) {
-                            statusCache.put(key, "unknown");
+                            store(key, "unknown");
                             continue;
                         }
 
-                        executor.submit(() -> {
-                                                    try {
-                            String cmd = statusCmd != null ? statusCmd : statusScript;
-                            String result = ansibleExecutionService.executeCommand(application, ip, cmd, os);
-                                String status = parseStatus(result);
-                                statusCache.put(key, status);
-                                System.out.println("Updated status for " + key + ": " + status);
-                            } catch (Exception e) {
-                                statusCache.put(key, "down");
-                                System.out.println("Error updating status for " + key + ": " + e.getMessage());
-                            }
-                        });
+                        hosts.add(new CyberArkService.CredentialKey(application, os, ip));
+                        probes.add(() -> probe(key, application, ip, os, service));
                     }
                 }
             }
         }
-        System.out.println("=== Scheduled service status check completed ===");
+
+        CompletableFuture<Map<String, Object>> prefetch = CompletableFuture.completedFuture(Collections.emptyMap());
+        if (ansibleExecutionService.usesCredentials() && !hosts.isEmpty()) {
+            // Runs in the same host order as the probes, which are held back by the gate
+            prefetch = cyberArkService.prefetchAsync(hosts)
+                    .whenComplete((result, error) -> System.out.println("Prefetched credentials for sweep: " + result));
+        }
+
+        // Probes wait in the execution gate's per-host queues, not on probe lane threads
+        List<CompletableFuture<String>> checks = new ArrayList<>();
+        for (Supplier<CompletableFuture<String>> probe : probes) {
+            checks.add(probe.get());
+        }
+        System.out.println("=== Scheduled service status check submitted: " + checks.size() + " checks ===");
+        CompletableFuture<Map<String, Object>> credentials = prefetch;
+        Map<String, Object> shard = new LinkedHashMap<>();
+        if (probeSharding.isEnabled()) {
+            shard.put("nodeId", probeSharding.getNodeId());
+            shard.put("serversOwned", ownedServers.size());
+            shard.put("serversSkipped", otherServers.size());
+        }
+        return CompletableFuture.allOf(checks.toArray(new CompletableFuture[0]))
+                .thenCombine(credentials, (ignored, prefetched) -> {
+                    publish(sweptKeys);
+                    return recordSweep(sweepStart, checks.size(), prefetched,
+                            cyberArkService.getLookupCount() - lookupsBefore, shard);
+                });
+    }
+
+    private Map<String, Object> recordSweep(long sweepStart, int checked, Map<String, Object> prefetch, long vaultLookups,
+                                            Map<String, Object> shard) {
+        long durationNanos = System.nanoTime() - sweepStart;
+        sweepTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+
+        Map<String, Long> counts = new HashMap<>();
+        for (String status : statusCache.values()) {
+            counts.merge(status, 1L, Long::sum);
+        }
+        double seconds = durationNanos / 1e9;
+        Map<String, Object> sweep = new LinkedHashMap<>();
+        sweep.put("finishedAt", java.time.Instant.now().toString());
+        sweep.put("backend", ansibleExecutionService.getBackend());
+        sweep.put("servicesChecked", checked);
+        sweep.put("durationMs", durationNanos / 1_000_000);
+        sweep.put("servicesPerSecond", seconds > 0 ? Math.round(checked / seconds * 10) / 10.0 : checked);
+        sweep.put("statusCounts", counts);
+        sweep.put("credentialPrefetch", prefetch);
+        // Includes lookups made by probes whose prefetch failed or did not finish in time
+        sweep.put("vaultLookups", vaultLookups);
+        if (!shard.isEmpty()) {
+            sweep.put("shard", shard);
+        }
+        lastSweep = sweep;
+        System.out.println("=== Scheduled service status check completed: " + sweep + " ===");
+        return sweep;
+    }
+
+    /**
+     * Checks only the given services (app|env|server|service keys) on the probe lane and
+     * completes with their new statuses; keys that are not in the topology map to "unknown".
+     */
+    public CompletableFuture<Map<String, String>> checkServices(Collection<String> keys) {
+        Map<String, String> statuses = new ConcurrentHashMap<>();
+        List<CompletableFuture<String>> checks = new ArrayList<>();
+        for (String key : keys) {
+            TopologyEntry entry = topologyIndex.findByKey(key);
+            if (entry == null || (entry.getService().getStatusCmd() == null && entry.getService().getStatusScript() == null)) {
+                statuses.put(key, "unknown");
+                continue;
+            }
+            checks.add(probe(key, entry.getAppName(), entry.getIp(), entry.getOs(), entry.getService())
+                    .whenComplete((status, error) -> statuses.put(key, status != null ? status : "down")));
+        }
+        return CompletableFuture.allOf(checks.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    publish(statuses.keySet());
+                    return new TreeMap<>(statuses);
+                });
+    }
+
+    // Runs the service's status command on the probe lane and stores the result in the status cache
+    private CompletableFuture<String> probe(String key, String application, String ip, String os,
+                                            com.example.dashboard.model.Service service) {
+        String cmd = service.getStatusCmd() != null ? service.getStatusCmd() : service.getStatusScript();
+        return ansibleExecutionService.submitCommand(application, ip, cmd, os, service.getType(), executor)
+                .handle((result, error) -> {
+                    String status;
+                    if (error == null) {
+                        status = parseStatus(result);
+                        System.out.println("Updated status for " + key + ": " + status);
+                    } else {
+                        status = "down";
+                        System.out.println("Error updating status for " + key + ": " + error.getMessage());
+                    }
+                    store(key, status);
+                    return status;
+                });
+    }
+
+    private void store(String key, String status) {
+        statusCache.put(key, status);
+        checkedAtMs.put(key, System.currentTimeMillis());
+    }
+
+    // Writes the local statuses of the given services to the shared view when probes are sharded
+    private void publish(Collection<String> keys) {
+        if (!probeSharding.isEnabled()) {
+            return;
+        }
+        List<ServiceStatusRecord> records = new ArrayList<>();
+        for (String key : keys) {
+            String status = statusCache.get(key);
+            Long checkedAt = checkedAtMs.get(key);
+            if (status != null && checkedAt != null) {
+                records.add(new ServiceStatusRecord(key, status, java.time.Instant.ofEpochMilli(checkedAt),
+                        probeSharding.getNodeId()));
+            }
+        }
+        probeSharding.publish(records);
+    }
+
+    public Map<String, Object> getLastSweep() {
+        return lastSweep;
     }
 
     // Method to immediately update status of a specific service
@@ -102,18 +281,20 @@ public class ServiceStatusMonitor {
                         String application = app.getName();
 
                         if (statusCmd == null && statusScript == null) {
-                            statusCache.put(key, "unknown");
+                            store(key, "unknown");
                             return;
                         }
 
                         try {
                             String cmd = statusCmd != null ? statusCmd : statusScript;
-                            String result = ansibleExecutionService.executeCommand(application, ip, cmd, os);
+                            ExecutionResult result = ansibleExecutionService.executeCommand(application, ip, cmd, os, service.getType());
                             String status = parseStatus(result);
-                            statusCache.put(key, status);
+                            store(key, status);
+                            publish(List.of(key));
                             System.out.println("Immediate status update for " + key + ": " + status);
                         } catch (Exception e) {
-                            statusCache.put(key, "down");
+                            store(key, "down");
+                            publish(List.of(key));
                             System.out.println("Error in immediate status update for " + key + ": " + e.getMessage());
                         }
                         return; // Found the service, exit
@@ -123,26 +304,28 @@ public class ServiceStatusMonitor {
         }
     }
 
+    // Fleet-wide when probes are sharded: each service's most recently checked status from any instance
     public Map<String, String> getAllStatuses() {
+        if (probeSharding.isEnabled()) {
+            return probeSharding.merge(statusCache, checkedAtMs);
+        }
         return new HashMap<>(statusCache);
     }
 
-    private String parseStatus(String ansibleOutput) {
-        if (ansibleOutput == null) return "down";
-        String lower = ansibleOutput.toLowerCase();
-        
-        // First check for connection failures and errors
-        if (lower.contains("unreachable") || 
-            lower.contains("connection test failed") ||
-            lower.contains("failed to connect") ||
-            lower.contains("operation timed out") ||
-            lower.contains("connection to") && lower.contains("timed out") ||
-            lower.contains("could not retrieve password") ||
-            lower.contains("could not retrieve username") ||
-            lower.contains("ansible command execution failed")) {
-            return "down";
+    // Also used by the restart engine to decide whether a started service is up
+    String parseStatus(ExecutionResult result) {
+        if (result == null) return "down";
+        switch (result.getFailureCategory()) {
+            case NONE:
+                break;
+            case CANCELLED:
+                return "unknown";
+            default:
+                // Unreachable, no credentials, timed out or the status command itself failed
+                return "down";
         }
-        
+        String lower = result.getStdout().toLowerCase();
+
         // For systemctl status output - look for the Active: line specifically
         if (lower.contains("active: active (running)")) return "up";
         if (lower.contains("active: inactive") || lower.contains("active: dead")) return "down";
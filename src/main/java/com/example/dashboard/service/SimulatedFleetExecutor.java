@@ -0,0 +1,289 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.ExecutionResult.FailureCategory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Command backend that simulates a fleet instead of contacting hosts (execution.backend=simulated),
+ * for measuring status sweeps and auto-restarts against large generated inventories.
+ *
+ * Each step (connection check, command) takes a log-normally distributed time around
+ * simulation.latency.median-ms; a fixed fraction of hosts is slower by slow-host-factor and
+ * a fraction is dead. Commands fail or hit an unreachable host at the configured rates.
+ * Services keep state: stop marks a service down, start/restart marks it up, and status
+ * answers like systemctl (exit 0 when running, 3 when not). Host traits and initial service
+ * state are derived from simulation.seed so runs are repeatable.
+ *
+ * Waiting is done on a timer rather than by sleeping, but the calling thread still blocks
+ * for the simulated time, exactly as it would on a real command.
+ */
+@Component
+public class SimulatedFleetExecutor implements CommandExecutor {
+
+    public static final String NAME = "simulated";
+
+    private static final int EXIT_FAILED = 2;
+    private static final int EXIT_UNREACHABLE = 4;
+    private static final int EXIT_NOT_RUNNING = 3;
+
+    @Value("${simulation.latency.median-ms:150}")
+    private double medianLatencyMs;
+
+    @Value("${simulation.latency.sigma:0.5}")
+    private double latencySigma;
+
+    @Value("${simulation.slow-host-fraction:0.05}")
+    private double slowHostFraction;
+
+    @Value("${simulation.slow-host-factor:10}")
+    private double slowHostFactor;
+
+    @Value("${simulation.dead-host-fraction:0.002}")
+    private double deadHostFraction;
+
+    @Value("${simulation.unreachable-rate:0.005}")
+    private double unreachableRate;
+
+    @Value("${simulation.command-failure-rate:0.01}")
+    private double commandFailureRate;
+
+    @Value("${simulation.initially-down-rate:0.02}")
+    private double initiallyDownRate;
+
+    @Value("${simulation.seed:42}")
+    private long seed;
+
+    // host|service -> running
+    private final Map<String, Boolean> serviceState = new ConcurrentHashMap<>();
+
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong pings = new AtomicLong();
+    private final AtomicLong unreachable = new AtomicLong();
+    private final AtomicLong commandFailures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong simulatedMillis = new AtomicLong();
+
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "simulated-fleet-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean usesCredentials() {
+        return false;
+    }
+
+    @Override
+    public ExecutionResult execute(String application, String ip, String command, String os,
+                                   Consumer<String> outputListener, RunningCommand running) {
+        try {
+            running.setStage("connecting");
+            notify(outputListener, "Checking connection to " + ip + " (simulated)...");
+            if (!connect(ip, running)) {
+                String output = ip + " | UNREACHABLE! => {\"changed\": false, \"msg\": \"simulated unreachable host\"}";
+                notify(outputListener, output);
+                return ExecutionResults.of(running, new CommandOutput(EXIT_UNREACHABLE, output, ""),
+                        FailureCategory.UNREACHABLE, "Connection test failed with exit code " + EXIT_UNREACHABLE);
+            }
+
+            running.setStage("running");
+            notify(outputListener, "Running: " + command);
+            delay(ip, running);
+            commands.incrementAndGet();
+
+            if (ThreadLocalRandom.current().nextDouble() < commandFailureRate) {
+                commandFailures.incrementAndGet();
+                String output = ip + " | FAILED | rc=" + EXIT_FAILED + " >>\nsimulated command failure";
+                output.lines().forEach(line -> notify(outputListener, line));
+                return ExecutionResults.of(running, new CommandOutput(EXIT_FAILED, output, ""),
+                        FailureCategory.COMMAND_FAILED, "Command failed with exit code " + EXIT_FAILED + " on " + os + " server");
+            }
+
+            CommandOutput output = runCommand(ip, command);
+            output.getOutput().lines().forEach(line -> notify(outputListener, line));
+            if (output.getExitCode() == 0) {
+                return ExecutionResults.of(running, output, FailureCategory.NONE, "Command executed successfully on " + os + " server");
+            }
+            return ExecutionResults.of(running, output, FailureCategory.COMMAND_FAILED,
+                    "Command failed with exit code " + output.getExitCode() + " on " + os + " server");
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+            return ExecutionResults.failure(running, FailureCategory.TIMEOUT,
+                    "deadline of " + running.getTimeout().getSeconds() + "s exceeded on " + ip);
+        } catch (CancellationException e) {
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED, "command " + running.getId() + " was cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResults.failure(running, FailureCategory.CANCELLED, "interrupted");
+        }
+    }
+
+    @Override
+    public String ping(String application, String ip, String os, RunningCommand running) throws Exception {
+        if (!connect(ip, running)) {
+            return ip + " | UNREACHABLE! => {\"changed\": false, \"msg\": \"simulated unreachable host\"}";
+        }
+        return ip + " | SUCCESS => {\"changed\": false, \"ping\": \"pong\"}";
+    }
+
+    private boolean connect(String ip, RunningCommand running) throws TimeoutException, InterruptedException {
+        delay(ip, running);
+        pings.incrementAndGet();
+        if (hostTrait(ip, 1) < deadHostFraction || ThreadLocalRandom.current().nextDouble() < unreachableRate) {
+            unreachable.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private CommandOutput runCommand(String ip, String command) {
+        String[] parsed = parseCommand(command);
+        String verb = parsed[0];
+        String key = ip + "|" + parsed[1];
+
+        switch (verb) {
+            case "stop":
+                serviceState.put(key, false);
+                return new CommandOutput(0, ip + " | CHANGED | rc=0 >>\nStopped " + parsed[1]);
+            case "start":
+            case "restart":
+                serviceState.put(key, true);
+                return new CommandOutput(0, ip + " | CHANGED | rc=0 >>\nStarted " + parsed[1]);
+            case "status":
+                boolean up = serviceState.computeIfAbsent(key, k -> hostTrait(k, 2) >= initiallyDownRate);
+                if (up) {
+                    return new CommandOutput(0, ip + " | CHANGED | rc=0 >>\n* " + parsed[1]
+                            + "\n   Active: active (running)\n   Status: Running");
+                }
+                return new CommandOutput(EXIT_NOT_RUNNING, ip + " | FAILED | rc=" + EXIT_NOT_RUNNING + " >>\n* " + parsed[1]
+                        + "\n   Active: inactive (dead)\n   Status: Stopped");
+            default:
+                return new CommandOutput(0, ip + " | CHANGED | rc=0 >>\n(simulated) " + command);
+        }
+    }
+
+    /**
+     * Splits a command into {verb, service}. Understands systemctl/service style commands
+     * ("sudo systemctl restart tomcat", "service tomcat status"), init scripts
+     * ("/opt/app/bin/app.sh start") and the Windows service cmdlets.
+     */
+    private String[] parseCommand(String command) {
+        String[] tokens = command == null ? new String[0] : command.trim().split("\\s+");
+        String verb = "other";
+        int verbIndex = -1;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i].toLowerCase(Locale.ROOT);
+            String mapped = null;
+            if (token.equals("status") || token.equals("get-service") || token.equals("is-active")) mapped = "status";
+            else if (token.equals("stop") || token.equals("stop-service")) mapped = "stop";
+            else if (token.equals("start") || token.equals("start-service")) mapped = "start";
+            else if (token.equals("restart") || token.equals("restart-service")) mapped = "restart";
+            if (mapped != null) {
+                verb = mapped;
+                verbIndex = i;
+                break;
+            }
+        }
+
+        StringBuilder service = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (i == verbIndex || token.equals("sudo") || token.equals("systemctl") || token.equals("service")
+                    || token.startsWith("-")) {
+                continue;
+            }
+            if (service.length() > 0) service.append(' ');
+            service.append(token);
+        }
+        return new String[]{verb, service.length() > 0 ? service.toString() : String.join(" ", tokens)};
+    }
+
+    // Blocks for one simulated network round trip to the host, honouring deadline and cancellation
+    private void delay(String ip, RunningCommand running) throws TimeoutException, InterruptedException {
+        running.checkNotCancelled();
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        double latency = medianLatencyMs * Math.exp(latencySigma * gaussian);
+        if (hostTrait(ip, 0) < slowHostFraction) {
+            latency *= slowHostFactor;
+        }
+        long millis = Math.max(1, Math.round(latency));
+
+        CompletableFuture<Void> step = new CompletableFuture<>();
+        timer.schedule(() -> step.complete(null), millis, TimeUnit.MILLISECONDS);
+        running.attach(step);
+        try {
+            step.get(running.remainingNanos(), TimeUnit.NANOSECONDS);
+            simulatedMillis.addAndGet(millis);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            running.detach();
+        }
+    }
+
+    // Stable pseudo-random value in [0, 1) for a host or service and a trait number
+    private double hostTrait(String key, int trait) {
+        return new Random(seed * 31 + key.hashCode() * 17L + trait).nextDouble();
+    }
+
+    private void notify(Consumer<String> outputListener, String line) {
+        if (outputListener != null) {
+            outputListener.accept(line);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long down = serviceState.values().stream().filter(up -> !up).count();
+        long steps = pings.get() + commands.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connectionChecks", pings.get());
+        stats.put("commands", commands.get());
+        stats.put("unreachable", unreachable.get());
+        stats.put("commandFailures", commandFailures.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("servicesTracked", serviceState.size());
+        stats.put("servicesDown", down);
+        stats.put("meanStepLatencyMs", steps > 0 ? simulatedMillis.get() / steps : 0);
+        return stats;
+    }
+
+    public void reset() {
+        serviceState.clear();
+        commands.set(0);
+        pings.set(0);
+        unreachable.set(0);
+        commandFailures.set(0);
+        timeouts.set(0);
+        simulatedMillis.set(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.dashboard.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup work that used to run in @PostConstruct and held up the web server: loading the
+ * topology, the initial status check and the startup auto-restart of both activators.
+ * It now starts once the application is ready and runs on its own thread, while the
+ * dashboard is already served. Progress is reported through {@link #getPhase()} and the
+ * "startup" health indicator in the readiness group.
+ */
+@Component
+public class StartupCoordinator {
+
+    public enum Phase {
+        WAITING,           // application not ready yet
+        LOADING_TOPOLOGY,
+        INITIAL_CHECK,     // first status sweep, plus auto-restart when enabled
+        COMPLETE,
+        FAILED
+    }
+
+    @Autowired
+    private YamlParserService yamlParserService;
+
+    @Autowired
+    private ServiceStatusMonitor serviceStatusMonitor;
+
+    @Autowired
+    private ActivatorService activatorService;
+
+    @Autowired
+    private WindowsActivatorService windowsActivatorService;
+
+    @Autowired
+    private LeaderElection leaderElection;
+
+    // Restart down services right after startup, as the activators always did
+    @Value("${startup.auto-restart:true}")
+    private boolean autoRestart;
+
+    private volatile Phase phase = Phase.WAITING;
+    private volatile String failure;
+    private volatile Instant startedAt;
+    private volatile Instant topologyLoadedAt;
+    private volatile Instant finishedAt;
+
+    private final ExecutorService startupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "startup-phase");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startedAt = Instant.now();
+        startupExecutor.execute(this::runStartup);
+    }
+
+    private void runStartup() {
+        try {
+            phase = Phase.LOADING_TOPOLOGY;
+            System.out.println("=== Startup: loading topology ===");
+            yamlParserService.parseYaml();
+            topologyLoadedAt = Instant.now();
+
+            phase = Phase.INITIAL_CHECK;
+            // Only the scheduler leader restarts; other instances just check the statuses
+            if (autoRestart && leaderElection.isLeader()) {
+                System.out.println("=== Startup: initial status check and auto-restart ===");
+                activatorService.autoRestartIfLeader();
+                windowsActivatorService.autoRestartIfLeader();
+            } else {
+                System.out.println("=== Startup: initial status check ===");
+                serviceStatusMonitor.runStatusSweep().get();
+            }
+
+            finishedAt = Instant.now();
+            phase = Phase.COMPLETE;
+            System.out.println("=== Startup work completed in " + (finishedAt.toEpochMilli() - startedAt.toEpochMilli()) + " ms ===");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("interrupted");
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    private void fail(String message) {
+        System.err.println("Startup work failed in phase " + phase + ": " + message);
+        failure = message;
+        finishedAt = Instant.now();
+        phase = Phase.FAILED;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * The dashboard can render once the topology is loaded; statuses fill in as the initial
+     * check progresses.
+     */
+    public boolean isTopologyLoaded() {
+        return topologyLoadedAt != null;
+    }
+
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("phase", phase.name());
+        if (startedAt != null) details.put("startedAt", startedAt.toString());
+        if (topologyLoadedAt != null) details.put("topologyLoadedAt", topologyLoadedAt.toString());
+        if (finishedAt != null) details.put("finishedAt", finishedAt.toString());
+        if (failure != null) details.put("failure", failure);
+        return details;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        startupExecutor.shutdownNow();
+    }
+}
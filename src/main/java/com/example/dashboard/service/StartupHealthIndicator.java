@@ -0,0 +1,24 @@
+package com.example.dashboard.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "startup" health contributor, part of the readiness group: out of service until the
+ * topology is loaded, up afterwards with the startup phase as detail. A failed initial
+ * check does not make the application unready, the dashboard still works without it.
+ */
+@Component
+public class StartupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private StartupCoordinator startupCoordinator;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = startupCoordinator.isTopologyLoaded() ? Health.up() : Health.outOfService();
+        return builder.withDetails(startupCoordinator.getDetails()).build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import com.example.dashboard.model.Environment;
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.TopologyEntry;
+import com.example.dashboard.model.TopologySelector;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flattened, per-version index of every service in the topology, used for
+ * filtering without walking the nested application tree on each request.
+ */
+@org.springframework.stereotype.Service
+public class TopologyIndex {
+
+    @Autowired
+    private YamlParserService yamlParserService;
+
+    private volatile IndexedTopology indexed;
+
+    // Key format: app|env|server|service
+    public static String makeKey(String app, String env, String server, String service) {
+        return app + "|" + env + "|" + server + "|" + service;
+    }
+
+    public List<TopologyEntry> getEntries() {
+        return index().entries;
+    }
+
+    private IndexedTopology index() {
+        YamlParserService.Topology topology = yamlParserService.getTopology();
+        List<Application> applications = topology.getApplications();
+        IndexedTopology current = indexed;
+        if (current != null && current.applications == applications) {
+            return current;
+        }
+
+        List<TopologyEntry> entries = new ArrayList<>();
+        for (Application app : applications) {
+            if (app.getEnvironments() == null) continue;
+            for (Environment env : app.getEnvironments()) {
+                if (env.getServers() == null) continue;
+                for (Server server : env.getServers()) {
+                    if (server.getServices() == null) continue;
+                    for (com.example.dashboard.model.Service service : server.getServices()) {
+                        String key = makeKey(app.getName(), env.getName(), server.getName(), service.getName());
+                        entries.add(new TopologyEntry(app.getName(), env.getName(), server, service, key));
+                    }
+                }
+            }
+        }
+
+        Map<String, TopologyEntry> byKey = new HashMap<>();
+        for (TopologyEntry entry : entries) {
+            byKey.put(entry.getKey(), entry);
+        }
+
+        current = new IndexedTopology(applications, topology.getVersion(), Collections.unmodifiableList(entries), byKey);
+        indexed = current;
+        return current;
+    }
+
+    public List<TopologyEntry> select(TopologySelector selector, Map<String, String> statuses) {
+        return selectWithVersion(selector, statuses).getEntries();
+    }
+
+    // Same, together with the version of the topology the entries were selected from
+    public Selection selectWithVersion(TopologySelector selector, Map<String, String> statuses) {
+        IndexedTopology current = index();
+        List<TopologyEntry> selected = new ArrayList<>();
+        for (TopologyEntry entry : current.entries) {
+            if (selector.matches(entry, statuses.get(entry.getKey()))) {
+                selected.add(entry);
+            }
+        }
+        return new Selection(selected, current.version);
+    }
+
+    public TopologyEntry findByKey(String key) {
+        return index().byKey.get(key);
+    }
+
+    // Keys of every service in the current topology
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(index().byKey.keySet());
+    }
+
+    public static final class Selection {
+        private final List<TopologyEntry> entries;
+        private final String version;
+
+        private Selection(List<TopologyEntry> entries, String version) {
+            this.entries = entries;
+            this.version = version;
+        }
+
+        public List<TopologyEntry> getEntries() {
+            return entries;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    private static final class IndexedTopology {
+        private final List<Application> applications;
+        private final String version;
+        private final List<TopologyEntry> entries;
+        private final Map<String, TopologyEntry> byKey;
+
+        private IndexedTopology(List<Application> applications, String version, List<TopologyEntry> entries,
+                                Map<String, TopologyEntry> byKey) {
+            this.applications = applications;
+            this.version = version;
+            this.entries = entries;
+            this.byKey = byKey;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import com.example.dashboard.model.Environment;
+import com.example.dashboard.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the validated topology as a compact binary file so that startup does not have to
+ * run SnakeYAML over the whole inventory again when the source YAML has not changed.
+ * The snapshot header carries the content hash of the YAML sources it was built from.
+ */
+@Component
+public class TopologySnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologySnapshotStore.class);
+
+    private static final int MAGIC = 0x54504C4D; // "TPLM"
+    private static final int FORMAT_VERSION = 3;
+    private static final String SNAPSHOT_FILE = "topology.snapshot";
+
+    @Value("${topology.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${topology.snapshot.dir:${java.io.tmpdir}/dashboard-topology}")
+    private String snapshotDir;
+
+    /**
+     * Returns the applications stored in the snapshot, or null when there is no snapshot
+     * for the given source hash (missing file, other hash, older format or corrupt data).
+     */
+    public List<Application> load(String sourceHash) {
+        if (!enabled) {
+            return null;
+        }
+        Path file = Paths.get(snapshotDir, SNAPSHOT_FILE);
+        if (!Files.isReadable(file)) {
+            logger.debug("No topology snapshot found at {}", file);
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Check the header with a plain read so that a stale snapshot is never mapped
+            // (a mapped file cannot be replaced on Windows until the mapping is collected)
+            if (!sourceHash.equals(readHeaderHash(channel))) {
+                logger.info("Topology snapshot is stale, falling back to full YAML parsing");
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeaderHash(buffer);
+            return readApplications(buffer);
+        } catch (Exception e) {
+            logger.warn("Could not read topology snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(String sourceHash, List<Application> applications) {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(snapshotDir);
+        Path file = dir.resolve(SNAPSHOT_FILE);
+        try {
+            Files.createDirectories(dir);
+            Path tempFile = Files.createTempFile(dir, SNAPSHOT_FILE, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, sourceHash);
+                writeApplications(out, applications);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote topology snapshot with {} applications to {}", applications.size(), file);
+        } catch (Exception e) {
+            logger.warn("Could not write topology snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private String readHeaderHash(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        if (channel.read(header, 0) < 12) {
+            return null;
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        int length = header.getInt();
+        if (length < 0 || length > 1024) {
+            return null;
+        }
+        ByteBuffer hash = ByteBuffer.allocate(length);
+        channel.read(hash, 12);
+        return new String(hash.array(), 0, hash.position(), StandardCharsets.UTF_8);
+    }
+
+    private String readHeaderHash(ByteBuffer buffer) {
+        buffer.getInt();
+        buffer.getInt();
+        return readString(buffer);
+    }
+
+    private void writeApplications(DataOutputStream out, List<Application> applications) throws IOException {
+        out.writeInt(applications.size());
+        for (Application app : applications) {
+            writeString(out, app.getName());
+            writeCount(out, app.getEnvironments());
+            if (app.getEnvironments() == null) continue;
+            for (Environment env : app.getEnvironments()) {
+                writeString(out, env.getName());
+                writeCount(out, env.getServers());
+                if (env.getServers() == null) continue;
+                for (Server server : env.getServers()) {
+                    writeString(out, server.getName());
+                    writeString(out, server.getIp());
+                    writeString(out, server.getOs());
+                    writeCount(out, server.getServices());
+                    if (server.getServices() == null) continue;
+                    for (com.example.dashboard.model.Service service : server.getServices()) {
+                        writeService(out, service);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeService(DataOutputStream out, com.example.dashboard.model.Service service) throws IOException {
+        writeString(out, service.getName());
+        writeString(out, service.getType());
+        writeString(out, service.getGroup());
+        writeString(out, service.getCmd());
+        writeString(out, service.getStartupCmd());
+        writeString(out, service.getStatusCmd());
+        writeString(out, service.getStartScript());
+        writeString(out, service.getStatusScript());
+        writeString(out, service.getDbType());
+        writeString(out, service.getTnsAlias());
+        writeString(out, service.getStopCmd());
+        writeString(out, service.getStopScript());
+        writeCount(out, service.getDependsOn());
+        if (service.getDependsOn() != null) {
+            for (String dependency : service.getDependsOn()) {
+                writeString(out, dependency);
+            }
+        }
+        writeString(out, service.getHealthUrl());
+        out.writeInt(service.getReadyTimeoutSeconds() != null ? service.getReadyTimeoutSeconds() : -1);
+    }
+
+    private List<Application> readApplications(ByteBuffer buffer) {
+        int appCount = buffer.getInt();
+        List<Application> applications = new ArrayList<>(appCount);
+        for (int a = 0; a < appCount; a++) {
+            Application app = new Application();
+            app.setName(readString(buffer));
+            int envCount = buffer.getInt();
+            if (envCount >= 0) {
+                List<Environment> environments = new ArrayList<>(envCount);
+                for (int e = 0; e < envCount; e++) {
+                    Environment env = new Environment();
+                    env.setName(readString(buffer));
+                    int serverCount = buffer.getInt();
+                    if (serverCount >= 0) {
+                        List<Server> servers = new ArrayList<>(serverCount);
+                        for (int s = 0; s < serverCount; s++) {
+                            servers.add(readServer(buffer));
+                        }
+                        env.setServers(servers);
+                    }
+                    environments.add(env);
+                }
+                app.setEnvironments(environments);
+            }
+            applications.add(app);
+        }
+        return applications;
+    }
+
+    private Server readServer(ByteBuffer buffer) {
+        Server server = new Server();
+        server.setName(readString(buffer));
+        server.setIp(readString(buffer));
+        server.setOs(readString(buffer));
+        int serviceCount = buffer.getInt();
+        if (serviceCount >= 0) {
+            List<com.example.dashboard.model.Service> services = new ArrayList<>(serviceCount);
+            for (int i = 0; i < serviceCount; i++) {
+                services.add(readService(buffer));
+            }
+            server.setServices(services);
+        }
+        return server;
+    }
+
+    private com.example.dashboard.model.Service readService(ByteBuffer buffer) {
+        com.example.dashboard.model.Service service = new com.example.dashboard.model.Service();
+        service.setName(readString(buffer));
+        service.setType(readString(buffer));
+        service.setGroup(readString(buffer));
+        service.setCmd(readString(buffer));
+        service.setStartupCmd(readString(buffer));
+        service.setStatusCmd(readString(buffer));
+        service.setStartScript(readString(buffer));
+        service.setStatusScript(readString(buffer));
+        service.setDbType(readString(buffer));
+        service.setTnsAlias(readString(buffer));
+        service.setStopCmd(readString(buffer));
+        service.setStopScript(readString(buffer));
+        int dependencyCount = buffer.getInt();
+        if (dependencyCount >= 0) {
+            List<String> dependsOn = new ArrayList<>(dependencyCount);
+            for (int i = 0; i < dependencyCount; i++) {
+                dependsOn.add(readString(buffer));
+            }
+            service.setDependsOn(dependsOn);
+        }
+        service.setHealthUrl(readString(buffer));
+        int readyTimeoutSeconds = buffer.getInt();
+        service.setReadyTimeoutSeconds(readyTimeoutSeconds >= 0 ? readyTimeoutSeconds : null);
+        return service;
+    }
+
+    private void writeCount(DataOutputStream out, List<?> list) throws IOException {
+        out.writeInt(list == null ? -1 : list.size());
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the rendered HTML of each application tab per topology version, so a dashboard
+ * page load only renders the page shell and tabs are served from memory when opened.
+ * Statuses are not part of the fragments; the page still polls them from /api/service-statuses.
+ */
+@Service
+public class TopologyViewCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologyViewCache.class);
+    private static final String FRAGMENT_TEMPLATE = "fragments/application-pane";
+
+    @Autowired
+    private YamlParserService yamlParserService;
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    private volatile RenderedTopology rendered;
+
+    /**
+     * Returns the rendered tab for the application at the given index of the topology
+     * snapshot, or null if there is no such application. Tabs are rendered lazily the first
+     * time they are requested. Callers pass the snapshot their page was built from, so that
+     * an index always refers to the application it was rendered for.
+     */
+    public String getApplicationFragment(YamlParserService.Topology topology, int appIndex) {
+        // Applications and version from one snapshot, so fragments are never cached under a newer version
+        List<Application> applications = topology.getApplications();
+        String version = topology.getVersion();
+        if (appIndex < 0 || appIndex >= applications.size()) {
+            return null;
+        }
+
+        RenderedTopology current = rendered;
+        if (current == null || !Objects.equals(current.version, version)) {
+            current = new RenderedTopology(version);
+            // Only cache fragments for the live version; a reload may have happened meanwhile
+            if (Objects.equals(version, yamlParserService.getTopologyVersion())) {
+                rendered = current;
+            }
+        }
+
+        return current.fragments.computeIfAbsent(appIndex, index -> {
+            long startTime = System.nanoTime();
+            String html = renderApplication(applications.get(index), index);
+            logger.info("Rendered application fragment {} for topology version {} in {} ms",
+                    index, version, (System.nanoTime() - startTime) / 1_000_000);
+            return html;
+        });
+    }
+
+    public String renderApplication(Application application, int appIndex) {
+        Context context = new Context();
+        context.setVariable("app", application);
+        context.setVariable("appIndex", appIndex);
+        context.setVariable("first", appIndex == 0);
+        return templateEngine.process(FRAGMENT_TEMPLATE, context);
+    }
+
+    public void invalidate() {
+        rendered = null;
+    }
+
+    private static final class RenderedTopology {
+        private final String version;
+        private final Map<Integer, String> fragments = new ConcurrentHashMap<>();
+
+        private RenderedTopology(String version) {
+            this.version = version;
+        }
+    }
+}
@@ -2,12 +2,12 @@ package com.example.dashboard.service;
 
 import com.example.dashboard.model.Application;
 import com.example.dashboard.model.Environment;
+import com.example.dashboard.model.RestartOutcome;
+import com.example.dashboard.model.RestartRecord;
 import com.example.dashboard.model.Server;
 import com.example.dashboard.model.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
 import java.util.*;
 import java.util.concurrent.*;
 import java.time.LocalDateTime;
@@ -21,13 +21,21 @@ public class WindowsActivatorService {
     private YamlParserService yamlParserService;
 
     @Autowired
-    private AnsibleExecutionService ansibleExecutionService;
+    private ServiceStatusMonitor serviceStatusMonitor;
 
     @Autowired
-    private ServiceStatusMonitor serviceStatusMonitor;
+    private ServiceRestarter serviceRestarter;
+
+    @Autowired
+    private ExecutionRuntime executionRuntime;
+
+    @Autowired
+    private RestartJournal restartJournal;
+
+    @Autowired
+    private LeaderElection leaderElection;
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
-    private final List<String> restartLog = new ArrayList<>();
+    private volatile RestartRecord lastRecord;
     
     // Windows-specific configuration
     private final String WINDOWS_SERVICE_NAME = "TPLM-Dashboard";
@@ -39,10 +47,30 @@ public class WindowsActivatorService {
         return app + "|" + env + "|" + server + "|" + service;
     }
 
-    @PostConstruct
+    // Scheduled (and startup) runs happen only on the leader instance
     @Scheduled(cron = "0 30 16 * * THU") // Every Thursday at 4:30 PM
+    public void autoRestartIfLeader() {
+        Long fencingToken = leaderElection.getFencingToken();
+        if (fencingToken == null) {
+            System.out.println("=== Skipping Windows auto-restart: this instance is not the scheduler leader ===");
+            return;
+        }
+        autoRestartDownServices(fencingToken);
+    }
+
     public void autoRestartDownServices() {
+        autoRestartDownServices(null);
+    }
+
+    // Whether a leader-only run has lost the scheduler lease it started under (checked in the database)
+    private boolean leaseLost(Long fencingToken) {
+        return fencingToken != null && !leaderElection.holdsLease(fencingToken);
+    }
+
+    // fencingToken is set for leader-only runs, which stop if leadership moves on during the sweep
+    private void autoRestartDownServices(Long fencingToken) {
         System.out.println("=== Starting Windows Auto-Restart Service Check (Thursday 4:30 PM) ===");
+        long runStart = System.nanoTime();
         LocalDateTime now = LocalDateTime.now();
         System.out.println("Current time: " + now);
         
@@ -52,15 +80,19 @@ public class WindowsActivatorService {
             return;
         }
 
-        // First, update all service statuses
-        serviceStatusMonitor.checkAllServices();
-        
-        // Wait a bit for status updates to complete
+        // First, update all service statuses and wait for the sweep to finish
         try {
-            Thread.sleep(5000);
+            serviceStatusMonitor.runStatusSweep().get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return;
+        } catch (ExecutionException e) {
+            System.err.println("Status sweep failed: " + e.getCause().getMessage());
+        }
+
+        if (leaseLost(fencingToken)) {
+            System.out.println("Scheduler lease lost during the status sweep, leaving restarts to the new leader");
+            return;
         }
 
         // Get current statuses
@@ -69,8 +101,8 @@ public class WindowsActivatorService {
         List<String> downServices = new ArrayList<>();
         List<String> restartAttempts = new ArrayList<>();
 
-        // MULTITHREADED RESTART: Submit all restart tasks to thread pool
-        List<Future<String>> futures = new ArrayList<>();
+        // MULTITHREADED RESTART: Submit all restart tasks to the restart lane
+        Map<String, Future<RestartOutcome>> futures = new LinkedHashMap<>();
 
         for (Application app : applications) {
             if (app.getEnvironments() == null) continue;
@@ -84,22 +116,13 @@ public class WindowsActivatorService {
                         
                         if ("down".equals(status)) {
                             downServices.add(key);
-                            
-                            // Submit restart task to thread pool for parallel execution
-                            Future<String> future = executor.submit(() -> {
-                                try {
-                                    System.out.println("Thread " + Thread.currentThread().getName() + " starting restart for: " + key);
-                                    String result = restartService(app.getName(), env.getName(), server.getName(), service.getName(), server, service);
-                                    System.out.println("Thread " + Thread.currentThread().getName() + " completed restart for: " + key + " -> " + result);
-                                    return key + " -> " + result;
-                                } catch (Exception e) {
-                                    String errorMsg = "ERROR: " + e.getMessage();
-                                    System.err.println("Thread " + Thread.currentThread().getName() + " failed restart for: " + key + " -> " + errorMsg);
-                                    return key + " -> " + errorMsg;
-                                }
-                            });
-                            
-                            futures.add(future);
+                            if (leaseLost(fencingToken)) {
+                                restartAttempts.add(key + " -> SKIPPED: scheduler lease lost before the restart was dispatched");
+                                continue;
+                            }
+
+                            // Restart on the restart lane for parallel execution
+                            futures.put(key, restartService(key, app.getName(), server, service, fencingToken));
                         }
                     }
                 }
@@ -108,117 +131,47 @@ public class WindowsActivatorService {
         
         // Wait for all restart tasks to complete
         System.out.println("Waiting for " + futures.size() + " restart tasks to complete...");
-        for (Future<String> future : futures) {
-            try {
-                String result = future.get(5, TimeUnit.MINUTES); // 5 minute timeout per service
-                restartAttempts.add(result);
-            } catch (TimeoutException e) {
-                String timeoutMsg = "TIMEOUT: Service restart timed out after 5 minutes";
-                System.err.println(timeoutMsg);
-                restartAttempts.add("UNKNOWN -> " + timeoutMsg);
-            } catch (Exception e) {
-                String errorMsg = "ERROR: " + e.getMessage();
-                System.err.println(errorMsg);
-                restartAttempts.add("UNKNOWN -> " + errorMsg);
-            }
+        for (RestartOutcome outcome : serviceRestarter.awaitAll(futures)) {
+            restartAttempts.add(outcome.toString());
         }
 
-        // Log the results
-        String logEntry = String.format("[%s] Windows auto-restart check completed. Down services found: %d, Restart attempts: %d", 
-            now, downServices.size(), restartAttempts.size());
-        restartLog.add(logEntry);
-        
-        if (!downServices.isEmpty()) {
-            restartLog.add("Down services: " + String.join(", ", downServices));
-        }
-        if (!restartAttempts.isEmpty()) {
-            restartLog.add("Restart results: " + String.join("; ", restartAttempts));
-        }
-        
-        // Keep only last 100 log entries
-        if (restartLog.size() > 100) {
-            restartLog.subList(0, restartLog.size() - 100).clear();
-        }
-        
-        System.out.println(logEntry);
-        
-        // IMMEDIATE STATUS REFRESH: Update all service statuses after auto-restart
-        if (!downServices.isEmpty()) {
-            System.out.println("=== Refreshing service statuses after Windows auto-restart ===");
-            try {
-                // Wait a bit for services to fully start up
-                Thread.sleep(15000); // 15 seconds wait
-                
-                // Trigger immediate status check for all services
-                serviceStatusMonitor.checkAllServices();
-                
-                // Wait for status updates to complete
-                Thread.sleep(5000);
-                
-                System.out.println("=== Service statuses refreshed after Windows auto-restart ===");
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                System.err.println("Status refresh interrupted: " + e.getMessage());
-            } catch (Exception e) {
-                System.err.println("Error refreshing statuses: " + e.getMessage());
-            }
-        }
+        // Verify exactly what was restarted; the restarts already waited for readiness
+        long verifyStart = System.nanoTime();
+        Map<String, String> verification = serviceRestarter.verify(new LinkedHashSet<>(downServices));
+        long verificationMs = (System.nanoTime() - verifyStart) / 1_000_000;
+
+        RestartRecord record = new RestartRecord("windows", now.toString(), (System.nanoTime() - runStart) / 1_000_000,
+                serviceStatusMonitor.getLastSweep(), downServices, restartAttempts, verification, verificationMs);
+        lastRecord = record;
+
+        // Journal the run; each restart was journaled when it finished
+        List<String> stillDown = record.getStillDown();
+        String summary = String.format("Windows auto-restart check completed in %d ms. Down services found: %d, Restart attempts: %d, Still down after restart: %d",
+            record.getDurationMs(), downServices.size(), restartAttempts.size(), stillDown.size());
+        restartJournal.record("windows", "*", "auto-restart", System.currentTimeMillis() - record.getDurationMs(),
+                (stillDown.isEmpty() ? "SUCCESS: " : "PARTIAL: ") + summary,
+                stillDown.isEmpty() ? null : "Still down: " + String.join(", ", stillDown));
+
+        System.out.println("[" + now + "] " + summary);
         
         System.out.println("=== Windows Auto-Restart Service Check Completed ===");
     }
 
-    private String restartService(String appName, String envName, String serverName, String serviceName, 
-                                 Server server, Service service) {
-        try {
-            String os = server.getOs();
-            String ip = server.getIp();
-            String application = appName;
-            
-            String restartCmd = service.getStartupCmd();
-            if (restartCmd == null) {
-                return "ERROR: No startup command configured";
-            }
-
-            // Windows-specific command adjustments
-            if (os != null && os.equalsIgnoreCase("windows")) {
-                // Use Windows service commands
-                restartCmd = "Start-Service -Name " + serviceName;
-            } else {
-                // Prepend sudo for Linux commands
-                if (!restartCmd.startsWith("sudo ")) {
-                    restartCmd = "sudo " + restartCmd;
-                }
-            }
-
-            System.out.println("Attempting to restart service: " + serviceName + " on " + serverName);
-            String result = ansibleExecutionService.executeCommand(application, ip, restartCmd, os);
-            
-            if (result.startsWith("SUCCESS")) {
-                // Wait a bit for service to start
-                Thread.sleep(10000);
-                
-                // Check if service is now up
-                String statusCmd = service.getStatusCmd();
-                if (statusCmd != null) {
-                    if (os != null && os.equalsIgnoreCase("windows")) {
-                        statusCmd = "Get-Service -Name " + serviceName;
-                    } else if (!statusCmd.startsWith("sudo ")) {
-                        statusCmd = "sudo " + statusCmd;
-                    }
-                    String statusResult = ansibleExecutionService.executeCommand(application, ip, statusCmd, os);
-                    if (statusResult.toLowerCase().contains("running") || statusResult.toLowerCase().contains("active")) {
-                        return "SUCCESS: Service restarted and is now running";
-                    } else {
-                        return "PARTIAL: Service restarted but status unclear";
-                    }
-                }
-                return "SUCCESS: Service restart command executed";
-            } else {
-                return "FAILED: " + result;
-            }
-        } catch (Exception e) {
-            return "ERROR: " + e.getMessage();
+    // Windows servers are driven through the service manager, Linux servers need sudo
+    private Future<RestartOutcome> restartService(String key, String appName, Server server, Service service,
+                                                  Long fencingToken) {
+        String restartCmd = service.getStartupCmd();
+        String statusCmd = service.getStatusCmd();
+        String os = server.getOs();
+        if (os != null && os.equalsIgnoreCase("windows")) {
+            // Use Windows service commands
+            restartCmd = restartCmd != null ? "Start-Service -Name " + service.getName() : null;
+            statusCmd = statusCmd != null ? "Get-Service -Name " + service.getName() : null;
+        } else {
+            restartCmd = ServiceRestarter.withSudo(restartCmd, os);
+            statusCmd = ServiceRestarter.withSudo(statusCmd, os);
         }
+        return serviceRestarter.submit("windows", key, appName, server, service, null, restartCmd, statusCmd, fencingToken);
     }
 
     // Windows-specific method to restart the dashboard application itself
@@ -301,8 +254,8 @@ public class WindowsActivatorService {
     public String triggerManualRestart() {
         System.out.println("=== Manual Windows Auto-Restart Triggered ===");
         
-        // Run the auto-restart logic in a separate thread to avoid blocking
-        executor.submit(() -> {
+        // Run the auto-restart logic on the interactive lane to avoid blocking
+        executionRuntime.executor(ExecutionRuntime.Lane.INTERACTIVE).submit(() -> {
             try {
                 autoRestartDownServices();
             } catch (Exception e) {
@@ -317,11 +270,8 @@ public class WindowsActivatorService {
     public void refreshServiceStatuses() {
         System.out.println("=== Manual Windows service status refresh triggered ===");
         try {
-            // Trigger immediate status check for all services
-            serviceStatusMonitor.checkAllServices();
-            
-            // Wait for status updates to complete
-            Thread.sleep(5000);
+            // Check all services and wait for the sweep to finish
+            serviceStatusMonitor.runStatusSweep().get();
             
             System.out.println("=== Manual Windows service status refresh completed ===");
         } catch (InterruptedException e) {
@@ -332,9 +282,10 @@ public class WindowsActivatorService {
         }
     }
 
-    // Get restart logs
-    public List<String> getRestartLogs() {
-        return new ArrayList<>(restartLog);
+    // Last Windows auto-restart run, including the verification of what it restarted
+    public Map<String, Object> getLastRestartRecord() {
+        RestartRecord record = lastRecord;
+        return record != null ? record.toMap() : Collections.emptyMap();
     }
 
     // Get current down services
@@ -371,18 +322,4 @@ public class WindowsActivatorService {
         
         return nextThursday.toString();
     }
-    
-    @PreDestroy
-    public void shutdown() {
-        System.out.println("Shutting down Windows ActivatorService thread pool...");
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.example.dashboard.service;
 import com.example.dashboard.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
@@ -12,25 +13,83 @@ import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 
 @Service
 public class YamlParserService {
 
     private static final Logger logger = LoggerFactory.getLogger(YamlParserService.class);
+    private static final String CONFIG_FILE = "yaml-config.yaml";
+
     private Map<String, String> yamlErrors = new HashMap<>();
 
+    @Autowired
+    private TopologySnapshotStore topologySnapshotStore;
+
+    @Autowired
+    private FleetInventoryGenerator fleetInventoryGenerator;
+
+    // Parsed topology together with the content hash of the YAML sources it was built from
+    private volatile Topology topology;
+
+    /**
+     * Returns the in-memory topology, loading it on first use. The result is shared between
+     * callers and must not be modified; call {@link #reloadTopology()} to pick up YAML changes.
+     */
     public List<Application> parseYaml() {
+        return getTopology().getApplications();
+    }
+
+    /**
+     * Returns the applications and their version as one snapshot, loading the topology on
+     * first use. Callers that need both must use this rather than parseYaml() and
+     * getTopologyVersion(), which may see different topologies across a reload.
+     */
+    public Topology getTopology() {
+        Topology current = topology;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (topology == null) {
+                reloadTopology();
+            }
+            // A failed first load publishes nothing; callers then see an empty topology
+            return topology != null ? topology : new Topology(Collections.emptyList(), null);
+        }
+    }
+
+    public String getTopologyVersion() {
+        Topology current = topology;
+        return current != null ? current.getVersion() : null;
+    }
+
+    public synchronized List<Application> reloadTopology() {
         logger.info("Starting YAML parsing process");
+        long startTime = System.nanoTime();
         List<Application> applications = new ArrayList<>();
         yamlErrors.clear();
 
+        // Load testing against a generated fleet replaces the YAML topology entirely
+        if (fleetInventoryGenerator.isEnabled()) {
+            List<Application> generated = fleetInventoryGenerator.generate();
+            logger.info("Generated simulated topology of {} applications in {} ms",
+                    generated.size(), (System.nanoTime() - startTime) / 1_000_000);
+            return publishTopology(generated, fleetInventoryGenerator.getVersion());
+        }
+
         try {
             logger.debug("Loading YAML configuration file");
+            byte[] configBytes;
+            try (InputStream configInput = new ClassPathResource(CONFIG_FILE).getInputStream()) {
+                configBytes = configInput.readAllBytes();
+            }
             Yaml configYaml = new Yaml(new Constructor(YamlConfig.class, new LoaderOptions()));
-            InputStream configInput = new ClassPathResource("yaml-config.yaml").getInputStream();
-            YamlConfig yamlConfig = configYaml.load(configInput);
+            YamlConfig yamlConfig = configYaml.load(new ByteArrayInputStream(configBytes));
 
             if (yamlConfig == null) {
                 String errorMsg = "YAML configuration is null";
@@ -44,6 +103,17 @@ public class YamlParserService {
                 throw new RuntimeException(errorMsg);
             }
 
+            // Reuse the compiled snapshot when none of the source files changed
+            String sourceHash = computeSourceHash(configBytes, yamlConfig.getYamlFiles());
+            if (sourceHash != null) {
+                List<Application> snapshot = topologySnapshotStore.load(sourceHash);
+                if (snapshot != null) {
+                    logger.info("Loaded {} applications from topology snapshot in {} ms",
+                            snapshot.size(), (System.nanoTime() - startTime) / 1_000_000);
+                    return publishTopology(snapshot, sourceHash);
+                }
+            }
+
             logger.info("Found {} YAML files to process", yamlConfig.getYamlFiles().size());
 
             for (String yamlFile : yamlConfig.getYamlFiles()) {
@@ -54,8 +124,14 @@ public class YamlParserService {
                 }
             }
 
-            logger.info("Successfully parsed {} valid applications", applications.size());
-            return applications;
+            logger.info("Successfully parsed {} valid applications in {} ms",
+                    applications.size(), (System.nanoTime() - startTime) / 1_000_000);
+
+            // Only snapshot a complete topology so file errors are reported again on next boot
+            if (sourceHash != null && yamlErrors.isEmpty()) {
+                topologySnapshotStore.save(sourceHash, applications);
+            }
+            return publishTopology(applications, sourceHash != null ? sourceHash : "unhashed-" + System.currentTimeMillis());
 
         } catch (Exception e) {
             String errorMsg = "Error parsing YAML configuration: " + e.getMessage();
@@ -65,6 +141,32 @@ public class YamlParserService {
         }
     }
 
+    private List<Application> publishTopology(List<Application> parsed, String version) {
+        Topology published = new Topology(Collections.unmodifiableList(parsed), version);
+        this.topology = published;
+        logger.info("Topology version is now {}", version);
+        return published.getApplications();
+    }
+
+    // Applications and the version they were loaded as, published together on each reload
+    public static final class Topology {
+        private final List<Application> applications;
+        private final String version;
+
+        private Topology(List<Application> applications, String version) {
+            this.applications = applications;
+            this.version = version;
+        }
+
+        public List<Application> getApplications() {
+            return applications;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
     private List<Application> processYamlFile(String yamlFile) {
         try {
             Resource resource = new ClassPathResource(yamlFile);
@@ -125,6 +227,28 @@ public class YamlParserService {
         }
     }
 
+    // SHA-256 over the config file and every listed YAML file, or null if a file is missing
+    private String computeSourceHash(byte[] configBytes, List<String> yamlFiles) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(configBytes);
+            for (String yamlFile : yamlFiles) {
+                Resource resource = new ClassPathResource(yamlFile);
+                if (!resource.exists()) {
+                    return null;
+                }
+                digest.update(yamlFile.getBytes(StandardCharsets.UTF_8));
+                try (InputStream input = resource.getInputStream()) {
+                    digest.update(input.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            logger.warn("Could not compute YAML source hash: {}", e.getMessage());
+            return null;
+        }
+    }
+
     public Map<String, String> getYamlErrors() {
         return new HashMap<>(yamlErrors);
     }
@@ -0,0 +1,152 @@
+#!/usr/bin/env python3
+"""Long-running ansible worker used by AnsibleWorkerPool.
+
+Reads one JSON request per line on stdin:
+    {"id": 1, "args": ["ansible", "10.0.0.1", "-i", "inventory.ini", "-m", "ping"]}
+and writes one JSON response per line on stdout:
+    {"id": 1, "rc": 0, "output": "..."}
+A running request is killed, with everything it started, by sending:
+    {"cancel": 1}
+
+Ansible is imported once at startup. Each request runs in a forked child so it
+starts with the modules already loaded and cannot leak CLI state into the next one.
+Requests are handled concurrently; responses may arrive in any order.
+"""
+
+import collections
+import json
+import os
+import signal
+import sys
+import threading
+import traceback
+
+from ansible.cli.adhoc import AdHocCLI
+
+# Output kept per request; the dashboard trims it further to its own head/tail sizes
+HEAD_BYTES = 65536
+TAIL_BYTES = 65536
+
+_write_lock = threading.Lock()
+_children_lock = threading.Lock()
+_children = {}  # request id -> child pid (also its process group id)
+_cancelled = set()  # cancels that arrived before their child was started
+_out = os.fdopen(os.dup(sys.stdout.fileno()), "w")
+
+
+def _respond(request_id, rc, output):
+    line = json.dumps({"id": request_id, "rc": rc, "output": output})
+    with _write_lock:
+        _out.write(line + "\n")
+        _out.flush()
+
+
+def _run_in_child(args, write_fd):
+    # Own process group, so a cancel also reaches ssh and anything else ansible starts
+    os.setpgid(0, 0)
+    os.dup2(write_fd, 1)
+    os.dup2(write_fd, 2)
+    # Drop pipe ends inherited from concurrent requests so their readers see EOF
+    os.closerange(3, os.sysconf("SC_OPEN_MAX"))
+    rc = 250
+    try:
+        rc = AdHocCLI(args).run()
+    except SystemExit as e:
+        rc = e.code if isinstance(e.code, int) else 1
+    except Exception:
+        traceback.print_exc()
+    finally:
+        sys.stdout.flush()
+        sys.stderr.flush()
+        os._exit(rc or 0)
+
+
+def _handle(request):
+    request_id = request.get("id")
+    try:
+        read_fd, write_fd = os.pipe()
+        pid = os.fork()
+        if pid == 0:
+            os.close(read_fd)
+            _run_in_child(request["args"], write_fd)
+
+        os.close(write_fd)
+        try:
+            os.setpgid(pid, pid)
+        except OSError:
+            pass  # the child already did it, or has exited
+        with _children_lock:
+            _children[request_id] = pid
+            cancelled = request_id in _cancelled
+            _cancelled.discard(request_id)
+        if cancelled:
+            _cancel(request_id)
+        head = bytearray()
+        tail = collections.deque()
+        tail_size = 0
+        dropped = 0
+        with os.fdopen(read_fd, "rb") as reader:
+            for chunk in iter(lambda: reader.read(65536), b""):
+                if len(head) < HEAD_BYTES:
+                    take = HEAD_BYTES - len(head)
+                    head += chunk[:take]
+                    chunk = chunk[take:]
+                if chunk:
+                    tail.append(chunk)
+                    tail_size += len(chunk)
+                    while tail_size - len(tail[0]) >= TAIL_BYTES:
+                        tail_size -= len(tail[0])
+                        dropped += len(tail.popleft())
+        _, status = os.waitpid(pid, 0)
+        with _children_lock:
+            _children.pop(request_id, None)
+        rc = os.waitstatus_to_exitcode(status)
+        output = bytes(head)
+        if dropped:
+            output += b"\n... [%d bytes truncated] ...\n" % dropped
+        output += b"".join(tail)
+        _respond(request_id, rc, output.decode("utf-8", "replace"))
+    except Exception as e:
+        _respond(request_id, 250, "worker error: %s" % e)
+
+
+def _cancel(request_id):
+    with _children_lock:
+        pid = _children.get(request_id)
+        if pid is None:
+            _cancelled.add(request_id)
+    if pid is not None:
+        try:
+            os.killpg(pid, signal.SIGKILL)
+        except OSError:
+            pass  # already finished
+
+
+def main():
+    # Signal readiness once ansible is imported
+    _respond(None, 0, "ready")
+    workers = []
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        try:
+            request = json.loads(line)
+        except ValueError:
+            _respond(None, 250, "invalid request: %s" % line[:200])
+            continue
+        if "cancel" in request:
+            _cancel(request["cancel"])
+            continue
+        thread = threading.Thread(target=_handle, args=(request,))
+        thread.start()
+        workers.append(thread)
+        workers = [t for t in workers if t.is_alive()]
+
+    # stdin closed: finish what is in flight before exiting
+    for thread in workers:
+        thread.join()
+
+
+if __name__ == "__main__":
+    main()
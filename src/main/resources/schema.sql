@@ -46,5 +46,40 @@ CREATE INDEX idx_users_role ON USERS(ROLE);
 GRANT SELECT, INSERT, UPDATE, DELETE ON USERS TO dashboard_user;
 GRANT SELECT ON users_seq TO dashboard_user;
 
+-- Create SCHEDULER_LEASES table (leader election between dashboard instances)
+CREATE TABLE SCHEDULER_LEASES (
+    LEASE_NAME VARCHAR2(100) PRIMARY KEY,
+    OWNER_ID VARCHAR2(200) NOT NULL,
+    FENCING_TOKEN NUMBER(19) NOT NULL,
+    ACQUIRED_AT TIMESTAMP NOT NULL,
+    RENEWED_AT TIMESTAMP NOT NULL,
+    EXPIRES_AT TIMESTAMP NOT NULL
+);
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON SCHEDULER_LEASES TO dashboard_user;
+
+-- Create DASHBOARD_NODES and SERVICE_STATUSES tables (probe sharding between dashboard instances)
+CREATE TABLE DASHBOARD_NODES (
+    NODE_ID VARCHAR2(200) PRIMARY KEY,
+    STARTED_AT TIMESTAMP NOT NULL,
+    HEARTBEAT_AT TIMESTAMP NOT NULL
+);
+
+-- Times are UTC instants: the batched MERGE binds them as TIMESTAMP WITH TIME ZONE.
+-- The table only caches probe results, so an older SERVICE_STATUSES can be dropped and recreated.
+CREATE TABLE SERVICE_STATUSES (
+    SERVICE_KEY VARCHAR2(500) PRIMARY KEY,
+    STATUS VARCHAR2(20) NOT NULL,
+    CHECKED_AT TIMESTAMP WITH TIME ZONE NOT NULL,
+    CHECKED_BY VARCHAR2(200) NOT NULL,
+    UPDATED_AT TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IDX_SERVICE_STATUSES_UPDATED ON SERVICE_STATUSES(UPDATED_AT);
+CREATE INDEX IDX_SERVICE_STATUSES_CHECKED ON SERVICE_STATUSES(CHECKED_AT);
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON DASHBOARD_NODES TO dashboard_user;
+GRANT SELECT, INSERT, UPDATE, DELETE ON SERVICE_STATUSES TO dashboard_user;
+
 -- Commit the changes
 COMMIT;
@@ -1,58 +1,16 @@
 document.addEventListener('DOMContentLoaded', function() {
-    // Add click event listeners to all restart buttons
-    document.querySelectorAll('.restart-btn').forEach(button => {
-        button.addEventListener('click', function() {
-            // Get server and service information from data attributes
-            const serverInfo = {
-                appName: this.getAttribute('data-app-name'),
-                serverName: this.getAttribute('data-server-name'),
-                serverIp: this.getAttribute('data-server-ip'),
-                serverOs: this.getAttribute('data-server-os'),
-                serviceName: this.getAttribute('data-service-name'),
-                serviceType: this.getAttribute('data-service-type'),
-                operation: 'restart',
-                startupCmd: this.getAttribute('data-startup-cmd'),
-                startScript: this.getAttribute('data-start-script'),
-                statusCmd: this.getAttribute('data-status-cmd'),
-                statusScript: this.getAttribute('data-status-script'),
-                stopCmd: this.getAttribute('data-stop-cmd'),
-                stopScript: this.getAttribute('data-stop-script')
-            };
-
-            // Show loading state
-            this.disabled = true;
-            this.innerHTML = '<i class="fas fa-spinner fa-spin"></i> Restarting...';
+    // Restart buttons live in lazily loaded tabs, so listen on the document
+    document.addEventListener('click', function(event) {
+        const button = event.target.closest('.restart-btn');
+        if (button) {
+            handleRestartClick.call(button);
+        }
+    });
 
-            // Send the request
-            fetch('/api/service-operation', {
-                method: 'POST',
-                headers: {
-                    'Content-Type': 'application/json',
-                },
-                body: JSON.stringify(serverInfo)
-            })
-            .then(response => response.json())
-            .then(data => {
-                // Show success notification
-                showNotification(data.message || 'Service restarted successfully!', 'success');
-                
-                // Re-enable button
-                this.disabled = false;
-                this.innerHTML = '<i class="fas fa-sync-alt"></i> Restart';
-                
-                // Force immediate status update
-                setTimeout(() => {
-                    updateServiceStatuses();
-                }, 2000); // Wait 2 seconds for service to stabilize, then update
-            })
-            .catch(error => {
-                console.error('Error:', error);
-                showNotification('Failed to restart service: ' + error.message, 'error');
-                
-                // Re-enable button
-                this.disabled = false;
-                this.innerHTML = '<i class="fas fa-sync-alt"></i> Restart';
-            });
+    // Load application tabs the first time they are opened
+    document.querySelectorAll('#appTabs [data-bs-toggle="tab"]').forEach(tab => {
+        tab.addEventListener('show.bs.tab', function() {
+            loadApplicationTab(document.querySelector(this.getAttribute('data-bs-target')));
         });
     });
 
@@ -64,6 +22,147 @@ document.addEventListener('DOMContentLoaded', function() {
     initializeActivatorService();
 });
 
+function handleRestartClick() {
+    // Get server and service information from data attributes
+    const serverInfo = {
+        appName: this.getAttribute('data-app-name'),
+        serverName: this.getAttribute('data-server-name'),
+        serverIp: this.getAttribute('data-server-ip'),
+        serverOs: this.getAttribute('data-server-os'),
+        serviceName: this.getAttribute('data-service-name'),
+        serviceType: this.getAttribute('data-service-type'),
+        operation: 'restart',
+        startupCmd: this.getAttribute('data-startup-cmd'),
+        startScript: this.getAttribute('data-start-script'),
+        statusCmd: this.getAttribute('data-status-cmd'),
+        statusScript: this.getAttribute('data-status-script'),
+        stopCmd: this.getAttribute('data-stop-cmd'),
+        stopScript: this.getAttribute('data-stop-script')
+    };
+
+    // Show loading state
+    this.disabled = true;
+    this.innerHTML = '<i class="fas fa-spinner fa-spin"></i> Restarting...';
+
+    // Open the output stream and subscribe before sending the request so the first lines are not missed
+    let outputStream = { close: function() {} };
+    fetch('/api/operations', { method: 'POST' })
+    .then(response => response.ok ? response.json() : {})
+    .then(operation => {
+        if (operation.operationId) {
+            serverInfo.operationId = operation.operationId;
+            outputStream = openOperationOutput(operation.operationId,
+                `Restarting ${serverInfo.serviceName} on ${serverInfo.serverName}`);
+        }
+
+        // Send the request
+        return fetch('/api/service-operation', {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+            },
+            body: JSON.stringify(serverInfo)
+        });
+    })
+    .then(response => response.json())
+    .then(data => {
+        // The stream ends with its "done" event; give late lines a moment before giving up on it
+        setTimeout(() => outputStream.close(), 10000);
+
+        // Show the outcome reported by the server
+        if (data.status === 'error') {
+            showNotification(data.message || 'Service restart failed', 'error');
+        } else {
+            showNotification(data.message || 'Service restarted successfully!', 'success');
+        }
+        
+        // Re-enable button
+        this.disabled = false;
+        this.innerHTML = '<i class="fas fa-sync-alt"></i> Restart';
+        
+        // Force immediate status update
+        setTimeout(() => {
+            updateServiceStatuses();
+        }, 2000); // Wait 2 seconds for service to stabilize, then update
+    })
+    .catch(error => {
+        console.error('Error:', error);
+        outputStream.close();
+        showNotification('Failed to restart service: ' + error.message, 'error');
+        
+        // Re-enable button
+        this.disabled = false;
+        this.innerHTML = '<i class="fas fa-sync-alt"></i> Restart';
+    });
+}
+
+// Shows output lines of a running operation as they arrive from the server
+function openOperationOutput(operationId, title) {
+    const panel = document.getElementById('operationOutput');
+    const body = document.getElementById('operationOutputBody');
+    if (!panel || !window.EventSource) {
+        return { close: function() {} };
+    }
+
+    document.getElementById('operationOutputTitle').textContent = title;
+    document.getElementById('operationOutputClose').onclick = function() {
+        panel.style.display = 'none';
+    };
+    body.textContent = '';
+    panel.style.display = 'block';
+
+    const source = new EventSource(`/api/operations/${encodeURIComponent(operationId)}/stream`);
+    source.addEventListener('line', function(event) {
+        // Only follow the output if the user has not scrolled up
+        const atBottom = body.scrollTop + body.clientHeight >= body.scrollHeight - 5;
+        body.appendChild(document.createTextNode(event.data + '\n'));
+        if (atBottom) {
+            body.scrollTop = body.scrollHeight;
+        }
+    });
+    source.addEventListener('done', function(event) {
+        body.appendChild(document.createTextNode(`--- operation ${event.data} ---\n`));
+        body.scrollTop = body.scrollHeight;
+        source.close();
+    });
+    return source;
+}
+
+function loadApplicationTab(pane) {
+    if (!pane || !pane.dataset.fragmentUrl || pane.dataset.loaded) {
+        return;
+    }
+    pane.dataset.loaded = 'true';
+
+    fetch(pane.dataset.fragmentUrl)
+        .then(res => {
+            if (res.status === 409) {
+                // The topology was reloaded since this page was built; its tab indexes are stale
+                pane.innerHTML = '<div class="alert alert-warning">The topology has changed. Please reload the page.</div>';
+                return null;
+            }
+            if (!res.ok) {
+                throw new Error('Failed to load application: ' + res.status);
+            }
+            return res.text();
+        })
+        .then(html => {
+            if (html === null) {
+                return;
+            }
+            const container = document.createElement('div');
+            container.innerHTML = html;
+            pane.innerHTML = container.firstElementChild ? container.firstElementChild.innerHTML : html;
+            // Fill in status indicators for the newly rendered services
+            updateServiceStatuses();
+        })
+        .catch(error => {
+            console.error('Error loading application tab:', error);
+            delete pane.dataset.loaded;
+            pane.innerHTML = '<div class="alert alert-danger">Failed to load application. Please reopen the tab.</div>';
+        });
+}
+
 function updateServiceStatuses() {
     fetch('/api/service-statuses')
         .then(res => {
@@ -321,17 +420,10 @@ function toggleLogsView() {
     
     if (logsSection.style.display === 'none') {
         // Show logs
-        fetch('/api/activator/logs')
-            .then(response => response.json())
-            .then(data => {
-                updateLogsTable(data.logs);
-                logsSection.style.display = 'block';
-                button.innerHTML = '<i class="fas fa-eye-slash"></i> Hide Logs';
-            })
-            .catch(error => {
-                console.error('Error fetching logs:', error);
-                showNotification('Failed to fetch logs: ' + error.message, 'error');
-            });
+        loadLogsPage(null).then(() => {
+            logsSection.style.display = 'block';
+            button.innerHTML = '<i class="fas fa-eye-slash"></i> Hide Logs';
+        });
     } else {
         // Hide logs
         logsSection.style.display = 'none';
@@ -339,28 +431,47 @@ function toggleLogsView() {
     }
 }
 
-function updateLogsTable(logs) {
+// Loads one page of the restart journal; a cursor appends older entries to the table
+function loadLogsPage(cursor) {
+    const url = cursor ? '/api/activator/logs?cursor=' + cursor : '/api/activator/logs';
+    return fetch(url)
+        .then(response => response.json())
+        .then(data => {
+            updateLogsTable(data.entries, cursor !== null);
+            const tableBody = document.getElementById('logsTableBody');
+            if (tableBody && data.nextCursor) {
+                const row = document.createElement('tr');
+                row.className = 'logs-more';
+                row.innerHTML = '<td colspan="2"><a href="#">Load older entries</a></td>';
+                row.querySelector('a').addEventListener('click', event => {
+                    event.preventDefault();
+                    row.remove();
+                    loadLogsPage(data.nextCursor);
+                });
+                tableBody.appendChild(row);
+            }
+        })
+        .catch(error => {
+            console.error('Error fetching logs:', error);
+            showNotification('Failed to fetch logs: ' + error.message, 'error');
+        });
+}
+
+function updateLogsTable(entries, append) {
     const tableBody = document.getElementById('logsTableBody');
     if (!tableBody) return;
     
-    tableBody.innerHTML = '';
+    if (!append) {
+        tableBody.innerHTML = '';
+    }
     
-    logs.forEach(log => {
+    entries.forEach(entry => {
         const row = document.createElement('tr');
-        
-        // Extract timestamp if present
-        let timestamp = '';
-        let message = log;
-        
-        if (log.startsWith('[') && log.includes(']')) {
-            const endBracket = log.indexOf(']');
-            timestamp = log.substring(1, endBracket);
-            message = log.substring(endBracket + 1).trim();
-        }
+        const excerpt = entry.excerpt ? ' - ' + entry.excerpt : '';
         
         row.innerHTML = `
-            <td>${timestamp || 'N/A'}</td>
-            <td>${message}</td>
+            <td>${formatDateTime(entry.endedAt)}</td>
+            <td>[${entry.activator}] ${entry.action} ${entry.key}: ${entry.outcome}${excerpt}</td>
         `;
         
         tableBody.appendChild(row);
@@ -0,0 +1,292 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import com.example.dashboard.model.Environment;
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.GroupedService;
+import com.example.dashboard.model.RestartOutcome;
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import com.example.dashboard.model.TopologyEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivatorServiceTest {
+
+    private ExecutionRuntime executionRuntime;
+    private ActivatorService activator;
+    private YamlParserService yamlParserService;
+    private ServiceStatusMonitor serviceStatusMonitor;
+    private DependencyRestartEngine dependencyRestartEngine;
+    // Start and end of each group restart, in nanoseconds
+    private final Map<String, long[]> groupRuns = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        executionRuntime = new ExecutionRuntime();
+        ReflectionTestUtils.setField(executionRuntime, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executionRuntime, "probeThreads", 2);
+        ReflectionTestUtils.setField(executionRuntime, "restartThreads", 2);
+        ReflectionTestUtils.setField(executionRuntime, "groupThreads", 2);
+        ReflectionTestUtils.setField(executionRuntime, "interactiveThreads", 1);
+        executionRuntime.init();
+
+        yamlParserService = mock(YamlParserService.class);
+        serviceStatusMonitor = mock(ServiceStatusMonitor.class);
+        when(serviceStatusMonitor.runStatusSweep()).thenReturn(CompletableFuture.completedFuture(Collections.emptyMap()));
+
+        dependencyRestartEngine = mock(DependencyRestartEngine.class);
+        when(dependencyRestartEngine.restartGroup(anyString(), anyList())).thenAnswer(invocation -> {
+            String group = invocation.getArgument(0);
+            long start = System.nanoTime();
+            Thread.sleep(300);
+            groupRuns.put(group, new long[]{start, System.nanoTime()});
+            return RestartOutcome.success(group, "restarted");
+        });
+
+        RestartGuard restartGuard = mock(RestartGuard.class);
+        when(restartGuard.admit(anyString(), anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        ServiceRestarter serviceRestarter = mock(ServiceRestarter.class);
+        when(serviceRestarter.verify(any())).thenReturn(Collections.emptyMap());
+
+        activator = new ActivatorService();
+        ReflectionTestUtils.setField(activator, "yamlParserService", yamlParserService);
+        ReflectionTestUtils.setField(activator, "serviceStatusMonitor", serviceStatusMonitor);
+        ReflectionTestUtils.setField(activator, "dependencyRestartEngine", dependencyRestartEngine);
+        ReflectionTestUtils.setField(activator, "serviceRestarter", serviceRestarter);
+        ReflectionTestUtils.setField(activator, "executionRuntime", executionRuntime);
+        ReflectionTestUtils.setField(activator, "restartJournal", mock(RestartJournal.class));
+        ReflectionTestUtils.setField(activator, "leaderElection", mock(LeaderElection.class));
+        ReflectionTestUtils.setField(activator, "restartGuard", restartGuard);
+        ReflectionTestUtils.setField(activator, "groupTimeoutMinutes", 30L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executionRuntime.shutdown();
+    }
+
+    // One application whose server runs one service per group, all of them down
+    private void topology(String... groups) {
+        Server server = new Server();
+        server.setName("srv");
+        server.setIp("10.0.0.1");
+        server.setOs("linux");
+        List<Service> services = new ArrayList<>();
+        Map<String, String> statuses = new ConcurrentHashMap<>();
+        for (String group : groups) {
+            Service service = new Service();
+            service.setName(group + "-svc");
+            service.setGroup(group);
+            service.setStartupCmd("start " + group);
+            services.add(service);
+            statuses.put("app|env|srv|" + group + "-svc", "down");
+        }
+        server.setServices(services);
+        Environment env = new Environment();
+        env.setName("env");
+        env.setServers(List.of(server));
+        Application app = new Application();
+        app.setName("app");
+        app.setEnvironments(List.of(env));
+        when(yamlParserService.parseYaml()).thenReturn(List.of(app));
+        when(serviceStatusMonitor.getAllStatuses()).thenReturn(statuses);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> restartResults() {
+        return (List<String>) activator.getLastRestartRecord().get("restartResults");
+    }
+
+    @Test
+    void independentGroupsRestartAtTheSameTime() {
+        topology("alpha", "beta");
+
+        activator.autoRestartDownServices();
+
+        long[] alpha = groupRuns.get("alpha");
+        long[] beta = groupRuns.get("beta");
+        assertThat(alpha[0]).isLessThan(beta[1]);
+        assertThat(beta[0]).isLessThan(alpha[1]);
+        assertThat(restartResults()).hasSize(2).allMatch(result -> result.startsWith("Group ") && result.contains("SUCCESS"));
+    }
+
+    @Test
+    void groupsPastTheDeadlineAreReportedAsTimedOut() {
+        topology("alpha");
+        ReflectionTestUtils.setField(activator, "groupTimeoutMinutes", 0L);
+
+        activator.autoRestartDownServices();
+
+        assertThat(restartResults()).containsExactly("Group alpha: TIMEOUT: not finished within 0 minutes");
+    }
+
+    @Test
+    void verifiesOnlyTheRestartedServicesAndTheirGroupPeers() throws Exception {
+        List<String> commands = new CopyOnWriteArrayList<>();
+        SimulatedFleetExecutor simulated = new SimulatedFleetExecutor();
+        ReflectionTestUtils.setField(simulated, "medianLatencyMs", 1.0);
+        ReflectionTestUtils.setField(simulated, "seed", 42L);
+        RemoteExecutionGate gate = new RemoteExecutionGate();
+        try {
+            AnsibleExecutionService ansibleExecutionService = simulatedBackend(simulated, gate, commands);
+            ServiceStatusMonitor monitor = new ServiceStatusMonitor();
+            ProbeSharding probeSharding = mock(ProbeSharding.class);
+            when(probeSharding.owns(anyString())).thenReturn(true);
+            TopologyIndex topologyIndex = mock(TopologyIndex.class);
+            ReflectionTestUtils.setField(monitor, "yamlParserService", yamlParserService);
+            ReflectionTestUtils.setField(monitor, "ansibleExecutionService", ansibleExecutionService);
+            ReflectionTestUtils.setField(monitor, "meterRegistry", new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(monitor, "cyberArkService", mock(CyberArkService.class));
+            ReflectionTestUtils.setField(monitor, "topologyIndex", topologyIndex);
+            ReflectionTestUtils.setField(monitor, "executionRuntime", executionRuntime);
+            ReflectionTestUtils.setField(monitor, "leaderElection", mock(LeaderElection.class));
+            ReflectionTestUtils.setField(monitor, "probeSharding", probeSharding);
+            monitor.init();
+            ReflectionTestUtils.setField(activator, "serviceStatusMonitor", monitor);
+
+            // web and db are down; db's group peer queue is up, and so are cache and search
+            Server server = new Server();
+            server.setName("srv");
+            server.setIp("10.0.0.1");
+            server.setOs("linux");
+            server.setServices(List.of(service("web", null), service("cache", null), service("db", "alpha"),
+                    service("queue", "alpha"), service("search", "beta")));
+            Environment env = new Environment();
+            env.setName("env");
+            env.setServers(List.of(server));
+            Application app = new Application();
+            app.setName("app");
+            app.setEnvironments(List.of(env));
+            when(yamlParserService.parseYaml()).thenReturn(List.of(app));
+            for (Service service : server.getServices()) {
+                String key = "app|env|srv|" + service.getName();
+                when(topologyIndex.findByKey(key)).thenReturn(new TopologyEntry("app", "env", server, service, key));
+            }
+            ansibleExecutionService.executeCommand("app", "10.0.0.1", "systemctl stop web", "linux");
+            ansibleExecutionService.executeCommand("app", "10.0.0.1", "systemctl stop db", "linux");
+
+            // Restarts run the start commands on the simulated fleet; verification is the real one
+            ServiceRestarter serviceRestarter = mock(ServiceRestarter.class);
+            ReflectionTestUtils.setField(serviceRestarter, "serviceStatusMonitor", monitor);
+            when(serviceRestarter.verify(any())).thenCallRealMethod();
+            when(serviceRestarter.awaitAll(any())).thenCallRealMethod();
+            when(serviceRestarter.submit(anyString(), anyString(), anyString(), any(), any(), isNull(), anyString(), anyString(), any()))
+                    .thenAnswer(invocation -> {
+                        String key = invocation.getArgument(1);
+                        ansibleExecutionService.executeCommand("app", "10.0.0.1", invocation.getArgument(6), "linux");
+                        return CompletableFuture.completedFuture(RestartOutcome.success(key, "started"));
+                    });
+            ReflectionTestUtils.setField(activator, "serviceRestarter", serviceRestarter);
+            when(dependencyRestartEngine.restartGroup(anyString(), anyList())).thenAnswer(invocation -> {
+                List<GroupedService> members = invocation.getArgument(1);
+                for (GroupedService member : members) {
+                    ansibleExecutionService.executeCommand("app", "10.0.0.1", member.getService().getStartupCmd(), "linux");
+                }
+                return RestartOutcome.success(invocation.getArgument(0), "restarted");
+            });
+
+            activator.autoRestartDownServices();
+
+            // Status checks after the last start command are the verification
+            int lastStart = 0;
+            for (int i = 0; i < commands.size(); i++) {
+                if (commands.get(i).contains(" start ")) {
+                    lastStart = i;
+                }
+            }
+            assertThat(commands.subList(lastStart + 1, commands.size()))
+                    .containsExactlyInAnyOrder("systemctl status web", "systemctl status db", "systemctl status queue");
+
+            Map<String, Object> record = activator.getLastRestartRecord();
+            assertThat(record.get("downServices")).isEqualTo(1);
+            assertThat(record.get("verification")).isEqualTo(Map.of(
+                    "app|env|srv|web", "up", "app|env|srv|db", "up", "app|env|srv|queue", "up"));
+            assertThat(record.get("stillDown")).isEqualTo(List.of());
+        } finally {
+            gate.shutdown();
+            simulated.shutdown();
+        }
+    }
+
+    private Service service(String name, String group) {
+        Service service = new Service();
+        service.setName(name);
+        service.setGroup(group);
+        service.setStatusCmd("systemctl status " + name);
+        service.setStartupCmd("systemctl start " + name);
+        return service;
+    }
+
+    // Runs commands on the simulated fleet through the real gate, recording every command line
+    private AnsibleExecutionService simulatedBackend(SimulatedFleetExecutor simulated, RemoteExecutionGate gate,
+                                                     List<String> commands) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(gate, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(gate, "perHostLimit", 2);
+        ReflectionTestUtils.setField(gate, "globalLimit", 20);
+        gate.init();
+
+        RunningCommandRegistry runningCommands = new RunningCommandRegistry();
+        ReflectionTestUtils.setField(runningCommands, "meterRegistry", meterRegistry);
+        runningCommands.init();
+
+        CommandDeadlines deadlines = new CommandDeadlines();
+        ReflectionTestUtils.setField(deadlines, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(deadlines, "defaultSeconds", 30L);
+
+        CommandExecutor recording = new CommandExecutor() {
+            @Override
+            public String getName() {
+                return simulated.getName();
+            }
+
+            @Override
+            public ExecutionResult execute(String application, String ip, String command, String os,
+                                           Consumer<String> outputListener, RunningCommand running) {
+                commands.add(command);
+                return simulated.execute(application, ip, command, os, outputListener, running);
+            }
+
+            @Override
+            public boolean usesCredentials() {
+                return simulated.usesCredentials();
+            }
+
+            @Override
+            public String ping(String application, String ip, String os, RunningCommand running) throws Exception {
+                return simulated.ping(application, ip, os, running);
+            }
+        };
+
+        AnsibleExecutionService ansibleExecutionService = new AnsibleExecutionService();
+        ReflectionTestUtils.setField(ansibleExecutionService, "commandExecutors", List.of(recording));
+        ReflectionTestUtils.setField(ansibleExecutionService, "remoteExecutionGate", gate);
+        ReflectionTestUtils.setField(ansibleExecutionService, "runningCommands", runningCommands);
+        ReflectionTestUtils.setField(ansibleExecutionService, "commandDeadlines", deadlines);
+        ReflectionTestUtils.setField(ansibleExecutionService, "backend", SimulatedFleetExecutor.NAME);
+        ansibleExecutionService.init();
+        return ansibleExecutionService;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import com.example.dashboard.model.TopologyEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnsibleInventoryServiceTest {
+
+    @TempDir
+    Path inventoryDir;
+
+    private TopologyIndex topologyIndex;
+    private YamlParserService yamlParserService;
+    private AnsibleInventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        topologyIndex = mock(TopologyIndex.class);
+        yamlParserService = mock(YamlParserService.class);
+        when(yamlParserService.getTopologyVersion()).thenReturn("v1");
+        // Two services on one Linux server, one Windows server
+        when(topologyIndex.getEntries()).thenReturn(List.of(
+                entry("10.0.0.1", "linux", "api"),
+                entry("10.0.0.1", "linux", "worker"),
+                entry("10.0.0.2", "windows", "iis")));
+
+        inventoryService = new AnsibleInventoryService();
+        ReflectionTestUtils.setField(inventoryService, "topologyIndex", topologyIndex);
+        ReflectionTestUtils.setField(inventoryService, "yamlParserService", yamlParserService);
+        ReflectionTestUtils.setField(inventoryService, "inventoryDir", inventoryDir.toString());
+        ReflectionTestUtils.setField(inventoryService, "controlPersist", "120s");
+    }
+
+    private static TopologyEntry entry(String ip, String os, String serviceName) {
+        Service service = new Service();
+        service.setName(serviceName);
+        Server server = new Server("srv-" + ip, ip, os, List.of(service));
+        return new TopologyEntry("app", "prod", server, service, "app|prod|srv-" + ip + "|" + serviceName);
+    }
+
+    // The host lines of one [group] section
+    private static List<String> section(String inventory, String group) {
+        String body = inventory.substring(inventory.indexOf("[" + group + "]\n") + group.length() + 3);
+        int end = body.indexOf("\n\n");
+        return (end >= 0 ? body.substring(0, end) : body).lines().toList();
+    }
+
+    @Test
+    void groupsHostsByOsWithSshConnectionReuse() throws Exception {
+        Path file = inventoryService.getInventory("10.0.0.1", "linux");
+        String inventory = Files.readString(file);
+
+        assertThat(section(inventory, "linux")).containsExactly("10.0.0.1 ansible_host=10.0.0.1");
+        assertThat(section(inventory, "windows")).containsExactly("10.0.0.2 ansible_host=10.0.0.2");
+        assertThat(inventory).contains("ansible_ssh_args=-C -o ControlMaster=auto -o ControlPersist=120s\n");
+        assertThat(inventory).contains("ansible_control_path_dir=" + inventoryDir.resolve("cp").toAbsolutePath() + "\n");
+        assertThat(inventoryDir.resolve("cp")).isDirectory();
+        assertThat(section(inventory, "windows:vars")).contains("ansible_connection=winrm");
+        // Credentials are passed per command, never written to the file
+        assertThat(inventory).doesNotContain("ansible_password").doesNotContain("ansible_user");
+    }
+
+    @Test
+    void addsHostsOutsideTheTopologyOnDemand() throws Exception {
+        Path file = inventoryService.getInventory("10.0.0.1", "linux");
+        assertThat(inventoryService.getInventory("10.0.0.2", "windows")).isEqualTo(file);
+        verify(topologyIndex, times(1)).getEntries();
+
+        inventoryService.getInventory("10.0.0.9", "windows");
+        inventoryService.getInventory("10.0.0.8", null);
+        String inventory = Files.readString(file);
+        assertThat(section(inventory, "windows")).contains("10.0.0.9 ansible_host=10.0.0.9");
+        assertThat(section(inventory, "linux")).contains("10.0.0.8 ansible_host=10.0.0.8");
+
+        // Ad-hoc hosts stay after the topology changes
+        when(yamlParserService.getTopologyVersion()).thenReturn("v2");
+        inventoryService.getInventory(null, null);
+        assertThat(section(Files.readString(file), "windows")).contains("10.0.0.9 ansible_host=10.0.0.9");
+        verify(topologyIndex, times(4)).getEntries();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.dashboard.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the pool against fake-ansible-worker.py, which speaks the worker protocol without
+ * needing ansible installed.
+ */
+class AnsibleWorkerPoolTest {
+
+    private static final Pattern PID = Pattern.compile("pid=(\\d+)");
+
+    @TempDir
+    Path workDir;
+
+    private AnsibleWorkerPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path fakeWorker = Paths.get(getClass().getResource("/fake-ansible-worker.py").toURI());
+        pool = new AnsibleWorkerPool();
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "workerCount", 1);
+        ReflectionTestUtils.setField(pool, "workerCommand", "python3 " + fakeWorker.toAbsolutePath());
+        ReflectionTestUtils.setField(pool, "python", "python3");
+        ReflectionTestUtils.setField(pool, "maxResponseChars", 1048576);
+        ReflectionTestUtils.setField(pool, "workDir", workDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void unparsableLinesAreSkipped() throws Exception {
+        CommandOutput noisy = pool.submit(List.of("noise", "-m", "ping")).get(10, TimeUnit.SECONDS);
+        CommandOutput next = pool.submit(List.of("echo", "-m", "ping")).get(10, TimeUnit.SECONDS);
+
+        assertThat(noisy.getExitCode()).isZero();
+        assertThat(noisy.getOutput()).startsWith("noise | SUCCESS");
+        // Answered by the same worker process: the line that is not JSON did not end it
+        assertThat(pid(next)).isEqualTo(pid(noisy));
+    }
+
+    @Test
+    void oversizedResponseKeepsItsExitCode() throws Exception {
+        ReflectionTestUtils.setField(pool, "maxResponseChars", 1000);
+
+        CommandOutput huge = pool.submit(List.of("huge", "-m", "ping")).get(10, TimeUnit.SECONDS);
+        CommandOutput next = pool.submit(List.of("echo", "-m", "ping")).get(10, TimeUnit.SECONDS);
+
+        assertThat(huge.getExitCode()).isEqualTo(2);
+        assertThat(huge.getOutput()).contains("exceeded ansible.worker.max-response-chars");
+        // The rest of the cut line was skipped, not read as the next response
+        assertThat(next.getOutput()).startsWith("echo | SUCCESS");
+    }
+
+    @Test
+    void cancellingARequestIsSentToTheWorker() throws Exception {
+        CompletableFuture<CommandOutput> slow = pool.submit(List.of("slow", "-m", "ping"));
+        slow.cancel(true);
+
+        CommandOutput next = pool.submit(List.of("echo", "-m", "ping")).get(10, TimeUnit.SECONDS);
+        assertThat(next.getOutput()).contains("cancelled=[1]");
+    }
+
+    @Test
+    void brokenWorkerIsDestroyedAndReplaced() throws Exception {
+        long firstPid = pid(pool.submit(List.of("echo", "-m", "ping")).get(10, TimeUnit.SECONDS));
+
+        CompletableFuture<CommandOutput> broken = pool.submit(List.of("closeout", "-m", "ping"));
+        assertThatThrownBy(() -> broken.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+        // The worker closed its stdout but kept running; the pool must not leave it behind
+        ProcessHandle firstWorker = ProcessHandle.of(firstPid).orElse(null);
+        if (firstWorker != null) {
+            firstWorker.onExit().get(10, TimeUnit.SECONDS);
+        }
+
+        long secondPid = pid(pool.submit(List.of("echo", "-m", "ping")).get(10, TimeUnit.SECONDS));
+        assertThat(secondPid).isNotEqualTo(firstPid);
+    }
+
+    private static long pid(CommandOutput output) {
+        Matcher matcher = PID.matcher(output.getOutput());
+        assertThat(matcher.find()).as("pid in %s", output.getOutput()).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedOutputCaptureTest {
+
+    @Test
+    void shortOutputIsKeptWhole() throws Exception {
+        BoundedOutputCapture capture = new BoundedOutputCapture(100, 100);
+        capture.drain(stream("first\r\nsecond\nthird"));
+
+        assertThat(capture.isTruncated()).isFalse();
+        assertThat(capture.toString()).isEqualTo("first\nsecond\nthird\n");
+    }
+
+    @Test
+    void keepsHeadAndTailAndCountsWhatWasDropped() throws Exception {
+        List<String> seen = new ArrayList<>();
+        // "line-NN\n" is 8 characters: two lines fit in the head and two in the tail
+        BoundedOutputCapture capture = new BoundedOutputCapture(20, 20, seen::add);
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            output.append(String.format("line-%02d\n", i));
+        }
+        capture.drain(stream(output.toString()));
+
+        assertThat(capture.isTruncated()).isTrue();
+        assertThat(capture.toString()).isEqualTo(
+                "line-00\nline-01\n... [6 lines, 48 characters truncated] ...\nline-08\nline-09\n");
+        // The listener still sees the dropped lines
+        assertThat(seen).hasSize(10).contains("line-05");
+    }
+
+    @Test
+    void overlongLinesAreCut() throws Exception {
+        BoundedOutputCapture capture = new BoundedOutputCapture(10000, 10000);
+        capture.drain(stream("x".repeat(10000) + "\nafter\n"));
+
+        String[] lines = capture.toString().split("\n");
+        assertThat(lines[0]).isEqualTo("x".repeat(4096) + " ...[line truncated]");
+        assertThat(lines[1]).isEqualTo("after");
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
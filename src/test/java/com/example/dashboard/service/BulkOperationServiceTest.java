@@ -0,0 +1,179 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.BulkOperationRequest;
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import com.example.dashboard.model.TopologyEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkOperationServiceTest {
+
+    private final ExecutorService probeLane = Executors.newSingleThreadExecutor();
+    private final ExecutorService restartLane = Executors.newSingleThreadExecutor();
+    private final List<Map<String, Object>> lines = new CopyOnWriteArrayList<>();
+    private final CountDownLatch summarySent = new CountDownLatch(1);
+    private AnsibleExecutionService ansibleExecutionService;
+    private RestartJournal restartJournal;
+    private TopologyIndex topologyIndex;
+    private BulkOperationService service;
+
+    @BeforeEach
+    void setUp() {
+        ansibleExecutionService = mock(AnsibleExecutionService.class);
+        restartJournal = mock(RestartJournal.class);
+        topologyIndex = mock(TopologyIndex.class);
+        ExecutionRuntime executionRuntime = mock(ExecutionRuntime.class);
+        when(executionRuntime.executor(ExecutionRuntime.Lane.PROBE)).thenReturn(probeLane);
+        when(executionRuntime.executor(ExecutionRuntime.Lane.RESTART)).thenReturn(restartLane);
+
+        service = new BulkOperationService();
+        ReflectionTestUtils.setField(service, "topologyIndex", topologyIndex);
+        ReflectionTestUtils.setField(service, "serviceStatusMonitor", mock(ServiceStatusMonitor.class));
+        ReflectionTestUtils.setField(service, "ansibleExecutionService", ansibleExecutionService);
+        ReflectionTestUtils.setField(service, "executionRuntime", executionRuntime);
+        ReflectionTestUtils.setField(service, "restartJournal", restartJournal);
+        ReflectionTestUtils.setField(service, "gatePerHostLimit", 2);
+        ReflectionTestUtils.setField(service, "maxServices", 100);
+        ReflectionTestUtils.setField(service, "defaultTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(service, "maxTimeoutSeconds", 60L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        probeLane.shutdownNow();
+        restartLane.shutdownNow();
+    }
+
+    private TopologyEntry entry(String serverName, String ip, String serviceName) {
+        Service svc = new Service();
+        svc.setName(serviceName);
+        svc.setStatusCmd("systemctl status " + serviceName);
+        svc.setStartupCmd("systemctl start " + serviceName);
+        Server server = new Server(serverName, ip, "linux", List.of(svc));
+        TopologyEntry entry = new TopologyEntry("app", "prod", server, svc, "app|prod|" + serverName + "|" + serviceName);
+        when(topologyIndex.findByKey(entry.getKey())).thenReturn(entry);
+        return entry;
+    }
+
+    private BulkOperationService.Run run(String operation, TopologyEntry... entries) {
+        BulkOperationRequest request = new BulkOperationRequest();
+        request.setOperation(operation);
+        request.setKeys(Arrays.stream(entries).map(TopologyEntry::getKey).toList());
+        BulkOperationService.Run run = service.prepare(request);
+        service.execute(run, line -> {
+            lines.add(line);
+            if ("summary".equals(line.get("type"))) {
+                summarySent.countDown();
+            }
+        });
+        return run;
+    }
+
+    private static ExecutionResult ok(String host) {
+        return new ExecutionResult(host, "linux", "ssh", "status", 0, "active", "", 5,
+                ExecutionResult.FailureCategory.NONE, "exit code 0");
+    }
+
+    private Map<String, Object> itemFor(String key) {
+        return lines.stream().filter(line -> key.equals(line.get("key"))).findFirst().orElseThrow();
+    }
+
+    @Test
+    void statusChecksQueueInTheGateOnTheProbeLane() throws Exception {
+        TopologyEntry api = entry("srv1", "10.0.0.1", "api");
+        when(ansibleExecutionService.submitCommand(eq("app"), eq("10.0.0.1"), anyString(), eq("linux"), any(),
+                same(probeLane))).thenReturn(CompletableFuture.completedFuture(ok("10.0.0.1")));
+
+        run("status", api);
+
+        assertThat(summarySent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(lines.get(0)).containsEntry("type", "plan").containsEntry("perHostLimit", 2);
+        assertThat(itemFor(api.getKey())).containsEntry("outcome", "SUCCESS");
+    }
+
+    @Test
+    void restartsRunUnderTheGateOnlyAndAreJournaled() throws Exception {
+        TopologyEntry api = entry("srv1", "10.0.0.1", "api");
+        TopologyEntry db = entry("srv2", "10.0.0.2", "db");
+        ExecutionResult started = ok("10.0.0.1");
+        when(ansibleExecutionService.submitCommand(eq("app"), eq("10.0.0.1"), eq("sudo systemctl start api"), eq("linux"),
+                any(), same(restartLane))).thenReturn(CompletableFuture.completedFuture(started));
+        when(ansibleExecutionService.submitCommand(eq("app"), eq("10.0.0.2"), anyString(), anyString(), any(), any()))
+                .thenThrow(new IllegalStateException("gate shut down"));
+
+        run("restart", api, db);
+
+        assertThat(summarySent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(itemFor(api.getKey())).containsEntry("outcome", "SUCCESS");
+        assertThat(itemFor(db.getKey())).containsEntry("outcome", "ERROR");
+        verify(restartJournal).record(eq("bulk"), eq(api.getKey()), eq("restart"), anyLong(), same(started));
+        Map<String, Object> summary = lines.get(lines.size() - 1);
+        assertThat(summary).containsEntry("type", "summary").containsEntry("total", 2).containsEntry("timedOut", false);
+    }
+
+    @Test
+    void slowClientDoesNotHoldUpFinishingServices() throws Exception {
+        TopologyEntry api = entry("srv1", "10.0.0.1", "api");
+        TopologyEntry db = entry("srv2", "10.0.0.2", "db");
+        CompletableFuture<ExecutionResult> apiCheck = new CompletableFuture<>();
+        CompletableFuture<ExecutionResult> dbCheck = new CompletableFuture<>();
+        when(ansibleExecutionService.submitCommand(anyString(), eq("10.0.0.1"), anyString(), anyString(), any(), any()))
+                .thenReturn(apiCheck);
+        when(ansibleExecutionService.submitCommand(anyString(), eq("10.0.0.2"), anyString(), anyString(), any(), any()))
+                .thenReturn(dbCheck);
+
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch client = new CountDownLatch(1);
+        BulkOperationRequest request = new BulkOperationRequest();
+        request.setOperation("status");
+        request.setKeys(List.of(api.getKey(), db.getKey()));
+        service.execute(service.prepare(request), line -> {
+            if (api.getKey().equals(line.get("key"))) {
+                sending.countDown();
+                try {
+                    client.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            lines.add(line);
+            if ("summary".equals(line.get("type"))) {
+                summarySent.countDown();
+            }
+        });
+
+        CompletableFuture.runAsync(() -> apiCheck.complete(ok("10.0.0.1")));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        // The first item is still being sent; the second service finishes without waiting for it
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> dbCheck.complete(ok("10.0.0.2")));
+        second.get(2, TimeUnit.SECONDS);
+
+        client.countDown();
+        assertThat(summarySent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(lines).extracting(line -> line.get("type")).containsExactly("plan", "item", "item", "summary");
+    }
+}
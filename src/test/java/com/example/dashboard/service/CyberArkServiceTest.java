@@ -0,0 +1,165 @@
+package com.example.dashboard.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CyberArkService against a stub vault: an HTTP server answering every lookup with the
+ * password "secret-<n>", n being the request number.
+ */
+class CyberArkServiceTest {
+
+    private HttpServer vault;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile long answerDelayMs;
+    private final AtomicInteger answering = new AtomicInteger();
+    private final AtomicInteger maxAnswering = new AtomicInteger();
+    private volatile CountDownLatch firstRequestReceived = new CountDownLatch(1);
+    private volatile CountDownLatch releaseFirstRequest = new CountDownLatch(0);
+
+    private CyberArkService cyberArkService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        vault = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        vault.createContext("/credentials", this::answer);
+        vault.setExecutor(Executors.newCachedThreadPool());
+        vault.start();
+
+        cyberArkService = new CyberArkService();
+        ReflectionTestUtils.setField(cyberArkService, "vaultUrl",
+                "http://127.0.0.1:" + vault.getAddress().getPort() + "/credentials");
+        ReflectionTestUtils.setField(cyberArkService, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(cyberArkService, "ttlSeconds", 900L);
+        ReflectionTestUtils.setField(cyberArkService, "refreshAheadSeconds", 120L);
+        ReflectionTestUtils.setField(cyberArkService, "prefetchParallelism", 8);
+        ReflectionTestUtils.setField(cyberArkService, "prefetchTimeoutSeconds", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstRequest.countDown();
+        cyberArkService.shutdown();
+        vault.stop(0);
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        int request = requests.incrementAndGet();
+        queries.add(exchange.getRequestURI().getQuery());
+        maxAnswering.accumulateAndGet(answering.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(answerDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (request == 1) {
+            firstRequestReceived.countDown();
+            try {
+                releaseFirstRequest.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = ("{\"UserName\":\"svc-user\",\"Content\":\"secret-" + request + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        answering.decrementAndGet();
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Test
+    void looksUpOnceAndServesFromTheCache() {
+        Map<String, String> first = cyberArkService.getcreds("billing", "linux", "10.0.0.1");
+        Map<String, String> second = cyberArkService.getcreds("billing", "linux", "10.0.0.1");
+
+        assertThat(first).containsEntry("username", "svc-user").containsEntry("password", "secret-1");
+        assertThat(second).isEqualTo(first);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(queries.get(0)).isEqualTo("application=billing&os=linux&address=10.0.0.1");
+    }
+
+    @Test
+    void vaultErrorGivesNoCredentials() {
+        status = 500;
+        assertThat(cyberArkService.getcreds("billing", "linux", "10.0.0.1")).isEmpty();
+        assertThat(cyberArkService.getStats().get("lookupFailures")).isEqualTo(1L);
+    }
+
+    @Test
+    void lookupFinishingAfterInvalidateIsNotCached() throws Exception {
+        releaseFirstRequest = new CountDownLatch(1);
+        CompletableFuture<Map<String, String>> waiting = CompletableFuture.supplyAsync(
+                () -> cyberArkService.getcreds("billing", "linux", "10.0.0.1"));
+        assertThat(firstRequestReceived.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The host rejected the credentials while the vault was still answering the first lookup
+        cyberArkService.invalidate("billing", "linux", "10.0.0.1");
+        releaseFirstRequest.countDown();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).containsEntry("password", "secret-1");
+
+        assertThat(cyberArkService.getcreds("billing", "linux", "10.0.0.1")).containsEntry("password", "secret-2");
+        assertThat(cyberArkService.getcreds("billing", "linux", "10.0.0.1")).containsEntry("password", "secret-2");
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(cyberArkService.getStats().get("staleLookups")).isEqualTo(1L);
+    }
+
+    @Test
+    void prefetchLooksUpEachHostOnce() {
+        cyberArkService.getcreds("billing", "linux", "10.0.0.4");
+        List<CyberArkService.CredentialKey> hosts = List.of(
+                new CyberArkService.CredentialKey("billing", "linux", "10.0.0.1"),
+                new CyberArkService.CredentialKey("billing", "linux", "10.0.0.2"),
+                new CyberArkService.CredentialKey("billing", "linux", "10.0.0.1"),
+                new CyberArkService.CredentialKey("billing", "linux", "10.0.0.3"),
+                new CyberArkService.CredentialKey("billing", "linux", "10.0.0.4"));
+
+        Map<String, Object> result = cyberArkService.prefetch(hosts);
+
+        assertThat(result).containsEntry("hosts", 5).containsEntry("failed", 0).containsEntry("notFinished", 0);
+        // One lookup for the host fetched before, one per distinct host not yet cached
+        assertThat(requests.get()).isEqualTo(4);
+        assertThat(cyberArkService.getcreds("billing", "linux", "10.0.0.2")).containsEntry("username", "svc-user");
+        assertThat(cyberArkService.getcreds("billing", "linux", "10.0.0.3")).containsEntry("username", "svc-user");
+        assertThat(requests.get()).isEqualTo(4);
+    }
+
+    @Test
+    void prefetchKeepsAtMostParallelismLookupsOutstanding() throws Exception {
+        ReflectionTestUtils.setField(cyberArkService, "prefetchParallelism", 2);
+        answerDelayMs = 50;
+        List<CyberArkService.CredentialKey> hosts = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            hosts.add(new CyberArkService.CredentialKey("billing", "linux", "10.0.0." + i));
+        }
+
+        Map<String, Object> result = cyberArkService.prefetchAsync(hosts).get(10, TimeUnit.SECONDS);
+
+        assertThat(result).containsEntry("fetched", 6).containsEntry("alreadyCached", 0);
+        assertThat(requests.get()).isEqualTo(6);
+        assertThat(maxAnswering.get()).isEqualTo(2);
+    }
+}
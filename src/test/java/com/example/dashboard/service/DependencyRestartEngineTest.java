@@ -0,0 +1,122 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ExecutionResult;
+import com.example.dashboard.model.GroupedService;
+import com.example.dashboard.model.RestartOutcome;
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DependencyRestartEngineTest {
+
+    private ExecutionRuntime executionRuntime;
+    private DependencyRestartEngine engine;
+    private final List<String> commands = new CopyOnWriteArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private volatile String failingCommand;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executionRuntime = new ExecutionRuntime();
+        ReflectionTestUtils.setField(executionRuntime, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executionRuntime, "probeThreads", 1);
+        // As many restart lane threads as the DAG width: any thread parked on a slot would stall the group
+        ReflectionTestUtils.setField(executionRuntime, "restartThreads", 2);
+        ReflectionTestUtils.setField(executionRuntime, "groupThreads", 1);
+        ReflectionTestUtils.setField(executionRuntime, "interactiveThreads", 1);
+        executionRuntime.init();
+
+        AnsibleExecutionService ansibleExecutionService = mock(AnsibleExecutionService.class);
+        when(ansibleExecutionService.executeCommand(anyString(), anyString(), anyString(), anyString(), isNull()))
+                .thenAnswer(invocation -> {
+                    String command = invocation.getArgument(2);
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    commands.add(command);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    ExecutionResult result = mock(ExecutionResult.class);
+                    when(result.isSuccess()).thenReturn(!command.equals(failingCommand));
+                    when(result.getMessage()).thenReturn("exit code " + (command.equals(failingCommand) ? 1 : 0));
+                    return result;
+                });
+        ReadinessWaiter readinessWaiter = mock(ReadinessWaiter.class);
+        ReadinessWaiter.Result ready = mock(ReadinessWaiter.Result.class);
+        when(ready.isReady()).thenReturn(true);
+        when(readinessWaiter.await(anyString(), any(), any(), any())).thenReturn(ready);
+
+        engine = new DependencyRestartEngine();
+        ReflectionTestUtils.setField(engine, "ansibleExecutionService", ansibleExecutionService);
+        ReflectionTestUtils.setField(engine, "readinessWaiter", readinessWaiter);
+        ReflectionTestUtils.setField(engine, "executionRuntime", executionRuntime);
+        ReflectionTestUtils.setField(engine, "width", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executionRuntime.shutdown();
+    }
+
+    // A "-M" master and workers that depend on it by naming convention
+    private List<GroupedService> group(int workers) {
+        List<GroupedService> members = new ArrayList<>();
+        members.add(member("db-M"));
+        for (int i = 1; i <= workers; i++) {
+            members.add(member("worker-" + i));
+        }
+        return members;
+    }
+
+    private GroupedService member(String name) {
+        Server server = new Server();
+        server.setName("srv");
+        server.setIp("10.0.0.1");
+        server.setOs("windows");
+        Service service = new Service();
+        service.setName(name);
+        service.setStopCmd("stop " + name);
+        service.setStartupCmd("start " + name);
+        return new GroupedService("app", "env", "srv", name, server, service, "up", "app|env|srv|" + name, "grp");
+    }
+
+    @Test
+    void runsAtMostWidthStepsInDependencyOrder() {
+        RestartOutcome outcome = engine.restartGroup("grp", group(6));
+
+        assertThat(outcome.isSuccess()).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(2);
+        assertThat(commands).hasSize(14);
+        // Workers stop before the master, and start only after it
+        for (int i = 1; i <= 6; i++) {
+            assertThat(commands.indexOf("stop worker-" + i)).isLessThan(commands.indexOf("stop db-M"));
+            assertThat(commands.indexOf("start worker-" + i)).isGreaterThan(commands.indexOf("start db-M"));
+        }
+    }
+
+    @Test
+    void dependentsOfAFailedStartAreSkipped() {
+        failingCommand = "start db-M";
+
+        RestartOutcome outcome = engine.restartGroup("grp", group(3));
+
+        assertThat(outcome.getStatus()).isEqualTo(RestartOutcome.Status.FAILED);
+        assertThat(commands).noneMatch(command -> command.startsWith("start worker-"));
+        assertThat(outcome.getMessage()).contains("worker-1 (SKIPPED: dependency db-M is not running)");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FleetInventoryGeneratorTest {
+
+    private FleetInventoryGenerator generator(int services, String backend) {
+        FleetInventoryGenerator generator = new FleetInventoryGenerator();
+        ReflectionTestUtils.setField(generator, "services", services);
+        ReflectionTestUtils.setField(generator, "backend", backend);
+        return generator;
+    }
+
+    @Test
+    void generatedInventoryRequiresTheSimulatedBackend() {
+        assertThatThrownBy(() -> generator(1000, AnsibleCommandExecutor.NAME).init())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("execution.backend");
+    }
+
+    @Test
+    void startsWithTheSimulatedBackendOrWhenDisabled() {
+        assertThatCode(() -> generator(1000, SimulatedFleetExecutor.NAME).init()).doesNotThrowAnyException();
+        assertThatCode(() -> generator(0, AnsibleCommandExecutor.NAME).init()).doesNotThrowAnyException();
+    }
+}
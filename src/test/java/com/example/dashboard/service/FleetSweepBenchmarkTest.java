@@ -0,0 +1,140 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sweep benchmark: a full status sweep over generated inventories of benchmark.fleet.sizes
+ * services (default 1000,10000,50000) against the simulated backend, through the real gate,
+ * probe lane and deadlines. Simulated round trips take benchmark.fleet.latency-ms (default 2),
+ * so the numbers show the dashboard's own overhead rather than network time; with real
+ * latencies throughput is bounded by remote.execution.global-limit / (2 x latency).
+ * Tagged benchmark, so it only runs with -Pbenchmark.
+ */
+@Tag("benchmark")
+class FleetSweepBenchmarkTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionRuntime executionRuntime;
+    private RemoteExecutionGate gate;
+    private SimulatedFleetExecutor simulated;
+    private ServiceStatusMonitor monitor;
+    private YamlParserService yamlParserService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        executionRuntime = new ExecutionRuntime();
+        ReflectionTestUtils.setField(executionRuntime, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(executionRuntime, "probeThreads", 10);
+        ReflectionTestUtils.setField(executionRuntime, "restartThreads", 10);
+        ReflectionTestUtils.setField(executionRuntime, "groupThreads", 3);
+        ReflectionTestUtils.setField(executionRuntime, "interactiveThreads", 4);
+        executionRuntime.init();
+
+        gate = new RemoteExecutionGate();
+        ReflectionTestUtils.setField(gate, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(gate, "perHostLimit", 2);
+        ReflectionTestUtils.setField(gate, "globalLimit", 20);
+        gate.init();
+
+        RunningCommandRegistry runningCommands = new RunningCommandRegistry();
+        ReflectionTestUtils.setField(runningCommands, "meterRegistry", meterRegistry);
+        runningCommands.init();
+
+        CommandDeadlines deadlines = new CommandDeadlines();
+        ReflectionTestUtils.setField(deadlines, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(deadlines, "defaultSeconds", 300L);
+
+        simulated = new SimulatedFleetExecutor();
+        ReflectionTestUtils.setField(simulated, "medianLatencyMs", (double) Integer.getInteger("benchmark.fleet.latency-ms", 2));
+        ReflectionTestUtils.setField(simulated, "latencySigma", 0.5);
+        ReflectionTestUtils.setField(simulated, "slowHostFraction", 0.05);
+        ReflectionTestUtils.setField(simulated, "slowHostFactor", 10.0);
+        ReflectionTestUtils.setField(simulated, "deadHostFraction", 0.002);
+        ReflectionTestUtils.setField(simulated, "unreachableRate", 0.005);
+        ReflectionTestUtils.setField(simulated, "commandFailureRate", 0.01);
+        ReflectionTestUtils.setField(simulated, "initiallyDownRate", 0.02);
+        ReflectionTestUtils.setField(simulated, "seed", 42L);
+
+        AnsibleExecutionService ansibleExecutionService = new AnsibleExecutionService();
+        ReflectionTestUtils.setField(ansibleExecutionService, "commandExecutors", List.<CommandExecutor>of(simulated));
+        ReflectionTestUtils.setField(ansibleExecutionService, "remoteExecutionGate", gate);
+        ReflectionTestUtils.setField(ansibleExecutionService, "runningCommands", runningCommands);
+        ReflectionTestUtils.setField(ansibleExecutionService, "commandDeadlines", deadlines);
+        ReflectionTestUtils.setField(ansibleExecutionService, "backend", SimulatedFleetExecutor.NAME);
+        ansibleExecutionService.init();
+
+        ProbeSharding probeSharding = mock(ProbeSharding.class);
+        when(probeSharding.owns(anyString())).thenReturn(true);
+        yamlParserService = mock(YamlParserService.class);
+
+        monitor = new ServiceStatusMonitor();
+        ReflectionTestUtils.setField(monitor, "yamlParserService", yamlParserService);
+        ReflectionTestUtils.setField(monitor, "ansibleExecutionService", ansibleExecutionService);
+        ReflectionTestUtils.setField(monitor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(monitor, "cyberArkService", mock(CyberArkService.class));
+        ReflectionTestUtils.setField(monitor, "topologyIndex", mock(TopologyIndex.class));
+        ReflectionTestUtils.setField(monitor, "executionRuntime", executionRuntime);
+        ReflectionTestUtils.setField(monitor, "leaderElection", mock(LeaderElection.class));
+        ReflectionTestUtils.setField(monitor, "probeSharding", probeSharding);
+        monitor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulated.shutdown();
+        gate.shutdown();
+        executionRuntime.shutdown();
+    }
+
+    @Test
+    void sweepsGeneratedFleets() throws Exception {
+        List<String> report = new ArrayList<>();
+        for (String size : System.getProperty("benchmark.fleet.sizes", "1000,10000,50000").split(",")) {
+            int services = Integer.parseInt(size.trim());
+            List<Application> inventory = generate(services);
+            when(yamlParserService.parseYaml()).thenReturn(inventory);
+            simulated.reset();
+
+            Map<String, Object> sweep = monitor.runStatusSweep().get(10, TimeUnit.MINUTES);
+
+            assertThat(sweep.get("servicesChecked")).isEqualTo(services);
+            assertThat(monitor.getAllStatuses()).hasSizeGreaterThanOrEqualTo(services);
+            assertThat(gate.getStats().get("waiting")).isEqualTo(0);
+            report.add(String.format("%d services: %d ms, %s services/s, statuses %s", services,
+                    sweep.get("durationMs"), sweep.get("servicesPerSecond"), sweep.get("statusCounts")));
+        }
+        report.forEach(line -> System.out.println("Fleet sweep, " + line));
+    }
+
+    private List<Application> generate(int services) {
+        FleetInventoryGenerator generator = new FleetInventoryGenerator();
+        ReflectionTestUtils.setField(generator, "services", services);
+        ReflectionTestUtils.setField(generator, "servicesPerServer", 5);
+        ReflectionTestUtils.setField(generator, "serversPerEnvironment", 20);
+        ReflectionTestUtils.setField(generator, "environmentsPerApplication", 2);
+        ReflectionTestUtils.setField(generator, "windowsFraction", 0.1);
+        ReflectionTestUtils.setField(generator, "seed", 42L);
+        ReflectionTestUtils.setField(generator, "backend", SimulatedFleetExecutor.NAME);
+        generator.init();
+        return generator.generate();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.SchedulerLease;
+import com.example.dashboard.repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two (and later three) dashboard instances in one JVM, each its own application context with
+ * only the lease table and LeaderElection, sharing an embedded H2 database in place of Oracle.
+ * Leases last 2 seconds and are renewed every second.
+ */
+class LeaderElectionTest {
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class, HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = SchedulerLease.class)
+    @EnableJpaRepositories(basePackageClasses = SchedulerLeaseRepository.class)
+    @Import(LeaderElection.class)
+    static class LeaseOnly {
+    }
+
+    private final String database = "jdbc:h2:mem:leases-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private LeaderElection start(String instanceId) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LeaseOnly.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + database,
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.sql.init.mode=never",
+                        "--spring.main.banner-mode=off",
+                        "--leader.election.enabled=true",
+                        "--leader.lease-seconds=2",
+                        "--leader.heartbeat-seconds=1",
+                        "--leader.instance-id=" + instanceId);
+        contexts.add(context);
+        return context.getBean(LeaderElection.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void oneLeaderAtATimeAndStaleTokensAreFenced() throws Exception {
+        LeaderElection a = start("node-a");
+        await(a::isLeader);
+        LeaderElection b = start("node-b");
+        Thread.sleep(2500); // more than a lease: b has tried to take over and failed
+
+        assertThat(a.isLeader()).isTrue();
+        assertThat(b.isLeader()).isFalse();
+        Long tokenA = a.getFencingToken();
+        assertThat(a.holdsLease(tokenA)).isTrue();
+        assertThat(b.getFencingToken()).isNull();
+
+        // a hangs: no more heartbeats, and it does not release the lease
+        ((ScheduledExecutorService) ReflectionTestUtils.getField(a, "heartbeatExecutor")).shutdownNow();
+        await(b::isLeader);
+        Long tokenB = b.getFencingToken();
+        assertThat(tokenB).isEqualTo(tokenA + 1);
+
+        // a job a started before it hung finds its token stale, even before a notices it lost the lease
+        assertThat(a.holdsLease(tokenA)).isFalse();
+        assertThat(b.holdsLease(tokenB)).isTrue();
+        await(() -> !a.isLeader());
+        assertThat(b.holdsLease(tokenA)).isFalse();
+    }
+
+    @Test
+    void releasedLeaseIsTakenOverWithoutWaitingForExpiry() throws Exception {
+        LeaderElection a = start("node-a");
+        await(a::isLeader);
+        Long tokenA = a.getFencingToken();
+        LeaderElection b = start("node-b");
+
+        // Shutdown releases the lease: b takes over within a heartbeat instead of a full lease time
+        contexts.remove(0).close();
+        long released = System.nanoTime();
+        await(b::isLeader);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - released)).isLessThan(1900);
+        assertThat(b.getFencingToken()).isEqualTo(tokenA + 1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dashboard.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperationOutputHubTest {
+
+    private final OperationOutputHub hub = createHub();
+
+    private static OperationOutputHub createHub() {
+        OperationOutputHub hub = new OperationOutputHub();
+        ReflectionTestUtils.setField(hub, "replayLines", 10);
+        ReflectionTestUtils.setField(hub, "subscriberBuffer", 10);
+        ReflectionTestUtils.setField(hub, "emitterTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(hub, "retentionSeconds", 60L);
+        return hub;
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void unknownOperationsHaveNoStream() {
+        hub.publish("made-up", "line");
+        hub.complete("made-up", "success");
+
+        assertThat(hub.subscribe("made-up", "alice", null)).isNull();
+        assertThat(hub.getStats().get("operations")).isEqualTo(0);
+    }
+
+    @Test
+    void onlyTheOwnerCanSubscribe() {
+        String operationId = hub.open("alice");
+
+        assertThat(hub.isOwner(operationId, "alice")).isTrue();
+        assertThat(hub.isOwner(operationId, "bob")).isFalse();
+        assertThat(hub.subscribe(operationId, "bob", null)).isNull();
+        assertThat(hub.subscribe(operationId, "alice", null)).isNotNull();
+    }
+
+    @Test
+    void anOperationIdIsOpenedOnce() {
+        hub.open("rollout-1", "alice");
+
+        assertThatThrownBy(() -> hub.open("rollout-1", "bob")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(hub.isOwner("rollout-1", "alice")).isTrue();
+    }
+}
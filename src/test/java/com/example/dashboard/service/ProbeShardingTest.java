@@ -0,0 +1,134 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.ServiceStatusRecord;
+import com.example.dashboard.repository.ServiceStatusRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The shared status table on an embedded H2 database in place of Oracle, written and read
+ * the way two sharded instances would.
+ */
+class ProbeShardingTest {
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class, HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = ServiceStatusRecord.class)
+    @EnableJpaRepositories(basePackageClasses = ServiceStatusRepository.class)
+    static class StatusesOnly {
+    }
+
+    private static final String APP_KEY = "app|prod|srv1|api";
+    private static final String DB_KEY = "app|prod|srv2|db";
+    private static final String REMOVED_KEY = "app|prod|srv9|old";
+
+    private ConfigurableApplicationContext context;
+    private ServiceStatusRepository repository;
+    private LeaderElection leaderElection;
+    private ProbeSharding sharding;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(StatusesOnly.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:statuses-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.sql.init.mode=never",
+                        "--spring.main.banner-mode=off",
+                        "--probe.sharding.write-batch-size=2");
+        repository = context.getBean(ServiceStatusRepository.class);
+
+        leaderElection = mock(LeaderElection.class);
+        TopologyIndex topologyIndex = mock(TopologyIndex.class);
+        when(topologyIndex.getKeys()).thenReturn(Set.of(APP_KEY, DB_KEY));
+
+        sharding = new ProbeSharding();
+        ReflectionTestUtils.setField(sharding, "statusRepository", repository);
+        ReflectionTestUtils.setField(sharding, "leaderElection", leaderElection);
+        ReflectionTestUtils.setField(sharding, "topologyIndex", topologyIndex);
+        ReflectionTestUtils.setField(sharding, "nodeId", "node-a");
+        ReflectionTestUtils.setField(sharding, "fullRefreshMinutes", 10L);
+        ReflectionTestUtils.setField(sharding, "statusRetentionMinutes", 60L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharding.shutdown();
+        context.close();
+    }
+
+    @Test
+    void batchedUpsertsAreReadBackIncrementallyForKnownServices() {
+        Instant checked = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        repository.upsertAll(List.of(
+                new ServiceStatusRecord(APP_KEY, "up", checked, "node-b"),
+                new ServiceStatusRecord(DB_KEY, "up", checked, "node-b"),
+                new ServiceStatusRecord(REMOVED_KEY, "down", checked, "node-b")), Instant.now());
+        sharding.refreshSharedStatuses();
+
+        Map<String, String> merged = sharding.merge(Map.of(), Map.of());
+        assertThat(merged).containsEntry(APP_KEY, "up").containsEntry(DB_KEY, "up").doesNotContainKey(REMOVED_KEY);
+
+        // The second write updates the existing row; the next read only fetches what changed
+        repository.upsertAll(List.of(new ServiceStatusRecord(DB_KEY, "down", checked.plusSeconds(1), "node-b")),
+                Instant.now());
+        sharding.refreshSharedStatuses();
+
+        assertThat(repository.count()).isEqualTo(3);
+        assertThat(sharding.merge(Map.of(), Map.of())).containsEntry(DB_KEY, "down");
+
+        // A local check newer than the shared row wins
+        Map<String, Long> checkedAtMs = new HashMap<>();
+        checkedAtMs.put(DB_KEY, checked.plusSeconds(2).toEpochMilli());
+        assertThat(sharding.merge(Map.of(DB_KEY, "up"), checkedAtMs)).containsEntry(DB_KEY, "up");
+    }
+
+    @Test
+    void leaderPrunesRowsNobodyChecksAnyMore() {
+        Instant now = Instant.now();
+        repository.upsertAll(List.of(
+                new ServiceStatusRecord(APP_KEY, "up", now, "node-b"),
+                new ServiceStatusRecord(REMOVED_KEY, "down", now.minus(2, ChronoUnit.HOURS), "node-b")), now);
+
+        when(leaderElection.isLeader()).thenReturn(false);
+        sharding.refreshSharedStatuses();
+        assertThat(repository.existsById(REMOVED_KEY)).isTrue();
+
+        when(leaderElection.isLeader()).thenReturn(true);
+        ReflectionTestUtils.setField(sharding, "lastRefreshAt", null);
+        sharding.refreshSharedStatuses();
+        assertThat(repository.existsById(REMOVED_KEY)).isFalse();
+        assertThat(repository.existsById(APP_KEY)).isTrue();
+    }
+}
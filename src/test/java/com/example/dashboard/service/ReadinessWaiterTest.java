@@ -0,0 +1,92 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Server;
+import com.example.dashboard.model.Service;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ReadinessWaiter against a fake status source: the status command's output is ignored and
+ * parseStatus answers from a script, recording when each check happened.
+ */
+class ReadinessWaiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> checkTimes = new ArrayList<>();
+    private ReadinessWaiter waiter;
+    private Server server;
+    private Service service;
+
+    @BeforeEach
+    void setUp() {
+        ServiceStatusMonitor statusSource = mock(ServiceStatusMonitor.class);
+        waiter = new ReadinessWaiter();
+        ReflectionTestUtils.setField(waiter, "ansibleExecutionService", mock(AnsibleExecutionService.class));
+        ReflectionTestUtils.setField(waiter, "serviceStatusMonitor", statusSource);
+        ReflectionTestUtils.setField(waiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(waiter, "defaultTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(waiter, "initialIntervalMs", 20L);
+        ReflectionTestUtils.setField(waiter, "maxIntervalMs", 80L);
+        ReflectionTestUtils.setField(waiter, "multiplier", 2.0);
+
+        // Up on the fifth check
+        when(statusSource.parseStatus(any())).thenAnswer(invocation -> {
+            checkTimes.add(System.nanoTime());
+            return checkTimes.size() >= 5 ? "up" : "down";
+        });
+
+        server = new Server();
+        server.setIp("10.0.0.1");
+        server.setOs("linux");
+        service = new Service();
+        service.setName("api");
+    }
+
+    @Test
+    void backsOffUntilTheServiceIsUp() throws Exception {
+        long start = System.nanoTime();
+        ReadinessWaiter.Result result = waiter.await("billing", server, service, "systemctl is-active api");
+
+        assertThat(result.isReady()).isTrue();
+        assertThat(result.getAttempts()).isEqualTo(5);
+        // Waits of 20, 40, 80 and 80 ms: doubled each time, capped at max-interval-ms
+        long[] expectedMs = {20, 40, 80, 80, 80};
+        long previous = start;
+        for (int i = 0; i < checkTimes.size(); i++) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(checkTimes.get(i) - previous)).as("wait before check %d", i + 1)
+                    .isGreaterThanOrEqualTo(expectedMs[i]);
+            previous = checkTimes.get(i);
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(checkTimes.get(4) - start)).isGreaterThanOrEqualTo(300);
+
+        Timer timer = meterRegistry.get("service.time.to.ready")
+                .tags("application", "billing", "service", "api", "outcome", "ready").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(result.getTimeToReadyMs());
+    }
+
+    @Test
+    void passedDeadlineIsNotReady() throws Exception {
+        service.setReadyTimeoutSeconds(0);
+
+        ReadinessWaiter.Result result = waiter.await("billing", server, service, "systemctl is-active api");
+
+        assertThat(result.isReady()).isFalse();
+        assertThat(result.getAttempts()).isEqualTo(1);
+        assertThat(result.getLastStatus()).isEqualTo("down");
+        assertThat(meterRegistry.get("service.time.to.ready").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("service.time.to.ready").tag("outcome", "ready").timer()).isNull();
+    }
+}
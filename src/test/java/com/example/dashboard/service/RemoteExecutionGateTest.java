@@ -0,0 +1,136 @@
+package com.example.dashboard.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RemoteExecutionGateTest {
+
+    private RemoteExecutionGate gate;
+    private ExecutorService lane;
+
+    @BeforeEach
+    void setUp() {
+        gate = new RemoteExecutionGate();
+        ReflectionTestUtils.setField(gate, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(gate, "perHostLimit", 2);
+        ReflectionTestUtils.setField(gate, "globalLimit", 20);
+        gate.init();
+        lane = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lane.shutdownNow();
+        gate.shutdown();
+    }
+
+    @Test
+    void busyHostDoesNotHoldLaneThreads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<String>> busy = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            busy.add(gate.submit("busy-host", Long.MAX_VALUE, lane, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await();
+                running.decrementAndGet();
+                return "busy";
+            }));
+        }
+
+        // Two lane threads run the busy host's admitted commands; the third is free for other hosts
+        String other = gate.submit("other-host", Long.MAX_VALUE, lane, () -> "other").get(5, TimeUnit.SECONDS);
+        assertThat(other).isEqualTo("other");
+
+        release.countDown();
+        CompletableFuture.allOf(busy.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(maxRunning.get()).isEqualTo(2);
+        assertThat(gate.getStats().get("waiting")).isEqualTo(0);
+        assertThat(gate.getStats().get("admitted")).isEqualTo(0);
+    }
+
+    @Test
+    void queuedCommandTimesOutAndLeavesTheQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            gate.submit("host", Long.MAX_VALUE, lane, () -> release.await(5, TimeUnit.SECONDS));
+        }
+
+        CompletableFuture<String> late = gate.submit("host", TimeUnit.MILLISECONDS.toNanos(100), lane, () -> "ran");
+        assertThatThrownBy(() -> late.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(gate.getStats().get("waiting")).isEqualTo(0);
+        release.countDown();
+    }
+
+    @Test
+    void cancelledCommandIsNotRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            gate.submit("host", Long.MAX_VALUE, lane, () -> release.await(5, TimeUnit.SECONDS));
+        }
+        AtomicInteger ran = new AtomicInteger();
+        CompletableFuture<Integer> cancelled = gate.submit("host", Long.MAX_VALUE, lane, ran::incrementAndGet);
+        cancelled.cancel(true);
+
+        release.countDown();
+        assertThat(gate.submit("host", Long.MAX_VALUE, lane, () -> "next").get(5, TimeUnit.SECONDS)).isEqualTo("next");
+        assertThat(ran.get()).isZero();
+    }
+
+    @Test
+    void blockingCallersShareTheSameQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            gate.submit("host", Long.MAX_VALUE, lane, () -> release.await(5, TimeUnit.SECONDS));
+        }
+        assertThatThrownBy(() -> gate.execute("host", TimeUnit.MILLISECONDS.toNanos(100), () -> "ran"))
+                .isInstanceOf(TimeoutException.class);
+
+        release.countDown();
+        assertThat(gate.execute("host", TimeUnit.SECONDS.toNanos(5), () -> "ran")).isEqualTo("ran");
+    }
+
+    @Test
+    void cancellingAWaiterEndsItsWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            gate.submit("host", Long.MAX_VALUE, lane, () -> release.await(5, TimeUnit.SECONDS));
+        }
+        CompletableFuture<Future<?>> queued = new CompletableFuture<>();
+        CompletableFuture<Throwable> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                gate.execute("host", TimeUnit.SECONDS.toNanos(30), () -> "ran", queued::complete);
+                return null;
+            } catch (Exception e) {
+                return e;
+            }
+        });
+
+        queued.get(5, TimeUnit.SECONDS).cancel(true);
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+        assertThat(gate.getStats().get("waiting")).isEqualTo(0);
+        release.countDown();
+    }
+}
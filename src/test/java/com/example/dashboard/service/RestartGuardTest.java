@@ -0,0 +1,94 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.RestartOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestartGuardTest {
+
+    private RestartGuard guard;
+
+    private RestartGuard guard(int perHost, int global, long maxWaitSeconds) {
+        guard = new RestartGuard();
+        ReflectionTestUtils.setField(guard, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(guard, "failureThreshold", 3);
+        ReflectionTestUtils.setField(guard, "windowMinutes", 60L);
+        ReflectionTestUtils.setField(guard, "openMinutes", 30L);
+        ReflectionTestUtils.setField(guard, "perHostPerMinute", perHost);
+        ReflectionTestUtils.setField(guard, "globalPerMinute", global);
+        ReflectionTestUtils.setField(guard, "maxWaitSeconds", maxWaitSeconds);
+        guard.init();
+        return guard;
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    private RestartOutcome admitNow(String key, String... hosts) throws Exception {
+        return guard.admit(key, List.of(hosts)).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void hostIsThrottledOnceItsTokensAreUsed() throws Exception {
+        guard(2, 60, 0);
+        assertThat(admitNow("svc-1", "10.0.0.1")).isNull();
+        assertThat(admitNow("svc-2", "10.0.0.1")).isNull();
+
+        RestartOutcome third = admitNow("svc-3", "10.0.0.1");
+        assertThat(third.getStatus()).isEqualTo(RestartOutcome.Status.THROTTLED);
+        assertThat(third.getMessage()).contains("10.0.0.1");
+        assertThat(admitNow("svc-4", "10.0.0.2")).isNull();
+    }
+
+    @Test
+    void groupTakesATokenPerMemberOnItsHost() throws Exception {
+        guard(3, 60, 0);
+        assertThat(admitNow("group:billing", "10.0.0.1", "10.0.0.1", "10.0.0.2")).isNull();
+
+        assertThat(admitNow("svc-1", "10.0.0.1")).isNull();
+        assertThat(admitNow("svc-2", "10.0.0.1").getStatus()).isEqualTo(RestartOutcome.Status.THROTTLED);
+        assertThat(admitNow("svc-3", "10.0.0.2")).isNull();
+    }
+
+    @Test
+    void waitsForATokenWithoutHoldingTheCaller() throws Exception {
+        // 60 a minute: one token a second once the bucket is empty
+        guard(60, 600, 5);
+        assertThat(admitNow("group:big", Collections.nCopies(60, "10.0.0.1").toArray(new String[0]))).isNull();
+
+        long start = System.nanoTime();
+        CompletableFuture<RestartOutcome> waiting = guard.admit("svc-1", List.of("10.0.0.1"));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+        assertThat(waiting).isNotDone();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void cancelledWaitLeavesTheHalfOpenCircuitFree() throws Exception {
+        guard(2, 60, 60);
+        ReflectionTestUtils.setField(guard, "openMinutes", 0L);
+        ReflectionTestUtils.setField(guard, "failureThreshold", 1);
+        assertThat(admitNow("svc-0", "10.0.0.1")).isNull();
+        assertThat(admitNow("svc-1", "10.0.0.1")).isNull();
+        guard.recordResult("svc-1", false);
+
+        // The circuit is half-open at once; the trial restart waits for the host's next token
+        CompletableFuture<RestartOutcome> trial = guard.admit("svc-1", List.of("10.0.0.1"));
+        assertThat(trial).isNotDone();
+        trial.cancel(false);
+
+        CompletableFuture<RestartOutcome> next = guard.admit("svc-1", List.of("10.0.0.2"));
+        assertThat(next.get(5, TimeUnit.SECONDS)).isNull();
+    }
+}
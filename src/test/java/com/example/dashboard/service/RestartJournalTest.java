@@ -0,0 +1,77 @@
+package com.example.dashboard.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestartJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final List<RestartJournal> journals = new ArrayList<>();
+
+    private RestartJournal journal(long flushIntervalMs) {
+        RestartJournal journal = new RestartJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(journal, "capacity", 4);
+        ReflectionTestUtils.setField(journal, "segmentBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(journal, "maxSegments", 20);
+        ReflectionTestUtils.setField(journal, "flushIntervalMs", flushIntervalMs);
+        ReflectionTestUtils.setField(journal, "excerptChars", 500);
+        journal.init();
+        journals.add(journal);
+        return journal;
+    }
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(RestartJournal::shutdown);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> seqs(Map<String, Object> page) {
+        List<Object> seqs = new ArrayList<>();
+        for (Map<String, Object> entry : (List<Map<String, Object>>) page.get("entries")) {
+            seqs.add(entry.get("seq"));
+        }
+        return seqs;
+    }
+
+    @Test
+    void entriesEvictedBeforeTheirFlushStayOnThePage() {
+        // The periodic flush never runs during the test, so the older entries are only queued
+        RestartJournal journal = journal(3_600_000);
+        for (int i = 1; i <= 10; i++) {
+            journal.record("linux", "app|env|srv|svc-" + i, "restart", System.currentTimeMillis(), "SUCCESS: restarted", null);
+        }
+
+        Map<String, Object> first = journal.page(null, 6);
+        assertThat(seqs(first)).containsExactly(10L, 9L, 8L, 7L, 6L, 5L);
+        Map<String, Object> second = journal.page((Long) first.get("nextCursor"), 6);
+        assertThat(seqs(second)).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(second.get("nextCursor")).isNull();
+    }
+
+    @Test
+    void restartedJournalPagesThroughTheFiles() {
+        RestartJournal journal = journal(3_600_000);
+        for (int i = 1; i <= 10; i++) {
+            journal.record("linux", "app|env|srv|svc-" + i, "restart", System.currentTimeMillis(), "FAILED: exit 1", null);
+        }
+        journal.shutdown();
+
+        RestartJournal recovered = journal(3_600_000);
+        assertThat(recovered.getTotal()).isEqualTo(10);
+        assertThat(seqs(recovered.page(null, 20))).containsExactly(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import com.example.dashboard.model.ApplicationList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Startup-time benchmark: loading a large synthetic inventory with SnakeYAML (a cold start,
+ * or one after a YAML change) against mapping the binary topology snapshot (every other start).
+ * The size is benchmark.services services (default 20000); timings are printed, best of a few runs.
+ * Tagged benchmark, so it only runs with -Pbenchmark.
+ */
+@Tag("benchmark")
+class TopologySnapshotBenchmarkTest {
+
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path snapshotDir;
+
+    @Test
+    void compareSnapshotLoadWithYamlParsing() {
+        int services = Integer.getInteger("benchmark.services", 20000);
+        FleetInventoryGenerator generator = new FleetInventoryGenerator();
+        ReflectionTestUtils.setField(generator, "services", services);
+        ReflectionTestUtils.setField(generator, "servicesPerServer", 5);
+        ReflectionTestUtils.setField(generator, "serversPerEnvironment", 20);
+        ReflectionTestUtils.setField(generator, "environmentsPerApplication", 2);
+        ReflectionTestUtils.setField(generator, "windowsFraction", 0.1);
+        ReflectionTestUtils.setField(generator, "seed", 42L);
+        List<Application> inventory = generator.generate();
+
+        DumperOptions dumperOptions = new DumperOptions();
+        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        // One document per application, as the inventory is split into files in yaml-config.yaml
+        List<String> yamlFiles = new ArrayList<>();
+        long yamlChars = 0;
+        for (Application application : inventory) {
+            String yamlText = new Yaml(dumperOptions).dumpAsMap(new ApplicationList(List.of(application)));
+            yamlFiles.add(yamlText);
+            yamlChars += yamlText.length();
+        }
+
+        TopologySnapshotStore store = new TopologySnapshotStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "snapshotDir", snapshotDir.toString());
+        store.save("benchmark", inventory);
+
+        long yamlBest = Long.MAX_VALUE;
+        long snapshotBest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            List<Application> parsed = new ArrayList<>();
+            for (String yamlText : yamlFiles) {
+                Yaml yaml = new Yaml(new Constructor(ApplicationList.class, new LoaderOptions()));
+                parsed.addAll(((ApplicationList) yaml.load(yamlText)).getApplications());
+            }
+            yamlBest = Math.min(yamlBest, System.nanoTime() - start);
+            assertThat(parsed).isEqualTo(inventory);
+
+            start = System.nanoTime();
+            List<Application> loaded = store.load("benchmark");
+            snapshotBest = Math.min(snapshotBest, System.nanoTime() - start);
+            assertThat(loaded).isEqualTo(inventory);
+        }
+
+        System.out.printf("Topology load, %d services (%d KB of YAML): SnakeYAML %d ms, snapshot %d ms (%.1fx)%n",
+                services, yamlChars / 1024, yamlBest / 1_000_000, snapshotBest / 1_000_000,
+                (double) yamlBest / Math.max(1, snapshotBest));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.dashboard.service;
+
+import com.example.dashboard.model.Application;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Startup with the topology snapshot: the YAML files on the test classpath (yaml-config.yaml
+ * and sample-applications.yaml) against a snapshot in a temporary directory.
+ */
+class YamlParserServiceTest {
+
+    @TempDir
+    Path snapshotDir;
+
+    private TopologySnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TopologySnapshotStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "snapshotDir", snapshotDir.toString());
+    }
+
+    private YamlParserService newParser() {
+        YamlParserService parser = new YamlParserService();
+        ReflectionTestUtils.setField(parser, "topologySnapshotStore", store);
+        ReflectionTestUtils.setField(parser, "fleetInventoryGenerator", mock(FleetInventoryGenerator.class));
+        return parser;
+    }
+
+    private static List<Application> marker() {
+        Application application = new Application();
+        application.setName("from-snapshot");
+        return List.of(application);
+    }
+
+    @Test
+    void matchingSourceHashLoadsTheSnapshot() {
+        YamlParserService.Topology parsed = newParser().getTopology();
+        assertThat(parsed.getApplications()).isNotEmpty();
+        String sourceHash = parsed.getVersion();
+        assertThat(store.load(sourceHash)).isEqualTo(parsed.getApplications());
+
+        // Only a snapshot load can return this, the YAML files do not contain it
+        store.save(sourceHash, marker());
+        YamlParserService.Topology restarted = newParser().getTopology();
+
+        assertThat(restarted.getVersion()).isEqualTo(sourceHash);
+        assertThat(restarted.getApplications()).isEqualTo(marker());
+    }
+
+    @Test
+    void otherSourceHashReparsesTheYaml() {
+        store.save("hash-of-older-yaml", marker());
+
+        YamlParserService.Topology parsed = newParser().getTopology();
+
+        assertThat(parsed.getApplications()).isNotEmpty().doesNotContainAnyElementsOf(marker());
+        assertThat(parsed.getVersion()).isNotEqualTo("hash-of-older-yaml");
+        // The snapshot was rewritten for the current sources
+        assertThat(store.load(parsed.getVersion())).isEqualTo(parsed.getApplications());
+        assertThat(store.load("hash-of-older-yaml")).isNull();
+    }
+}
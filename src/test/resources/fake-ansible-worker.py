@@ -0,0 +1,63 @@
+#!/usr/bin/env python3
+"""Fake ansible worker for AnsibleWorkerPoolTest, speaking the ansible-worker.py protocol.
+
+The behaviour depends on the host, the second request argument:
+    noise     prints a line that is not JSON before answering
+    slow      answers after 30 seconds unless cancelled
+    closeout  closes stdout and keeps running, as a worker whose pipe broke
+    huge      answers with rc 2 and 100000 characters of output
+anything else answers at once. Answers carry the worker pid and the ids cancelled so far.
+"""
+
+import json
+import os
+import sys
+import threading
+import time
+
+_lock = threading.Lock()
+_cancelled = []
+
+
+def _write(text):
+    with _lock:
+        os.write(1, (text + "\n").encode("utf-8"))
+
+
+def _respond(request_id, rc, output):
+    _write(json.dumps({"id": request_id, "rc": rc, "output": output}))
+
+
+def _handle(request):
+    request_id = request["id"]
+    host = request["args"][1]
+    if host == "noise":
+        _write("this is not json")
+    elif host == "slow":
+        for _ in range(300):
+            if request_id in _cancelled:
+                return
+            time.sleep(0.1)
+    elif host == "huge":
+        _respond(request_id, 2, "x" * 100000)
+        return
+    elif host == "closeout":
+        os.close(1)
+        time.sleep(60)
+        return
+    _respond(request_id, 0, "%s | SUCCESS pid=%d cancelled=%s" % (host, os.getpid(), sorted(_cancelled)))
+
+
+def main():
+    _write("fake worker starting")
+    _respond(None, 0, "ready")
+    for line in sys.stdin:
+        request = json.loads(line)
+        if "cancel" in request:
+            _cancelled.append(request["cancel"])
+            continue
+        threading.Thread(target=_handle, args=(request,), daemon=True).start()
+
+
+if __name__ == "__main__":
+    main()